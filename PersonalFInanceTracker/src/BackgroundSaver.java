@@ -0,0 +1,118 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single background thread that performs save requests off the caller's
+ * thread.
+ *
+ * Requests for the same file that arrive while an earlier one is still
+ * waiting in the queue are merged into it: a burst of ten saves becomes one
+ * write, and all ten callers get the same outcome. A request that arrives
+ * while its file is already being written queues one more write, because the
+ * running one may have copied the ledger before the latest change.
+ *
+ * The thread is a daemon so it never keeps the application alive, but a
+ * shutdown hook lets queued writes finish when the JVM exits normally.
+ * close does the same earlier and removes the hook, so a saver that is no
+ * longer needed leaves neither its thread nor its manager behind.
+ */
+final class BackgroundSaver {
+
+    private static final long SHUTDOWN_WAIT_SECONDS = 60;
+
+    /**
+     * Performs one save; runs on the background thread
+     */
+    interface Writer {
+        void write(Path file, boolean csv) throws IOException;
+    }
+
+    private static final class Request {
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        boolean csv;
+    }
+
+    private final Writer writer;
+    private final ExecutorService executor;
+    private final Map<Path, Request> queued = new HashMap<>();
+    private final Thread shutdownHook = new Thread(this::drain, "expense-saver-shutdown");
+
+    BackgroundSaver(Writer writer) {
+        this.writer = writer;
+        this.executor = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "expense-saver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * Queues a save of the given file, or joins the one already queued for it
+     *
+     * @param file The file to write
+     * @param csv true for the CSV format, false for the binary snapshot; the latest request wins
+     * @return A future that completes once the file is durable on disk
+     * @throws java.util.concurrent.RejectedExecutionException if the saver has been closed
+     */
+    CompletableFuture<Void> submit(Path file, boolean csv) {
+        Path key = file.toAbsolutePath().normalize();
+        synchronized (queued) {
+            Request request = queued.get(key);
+            if (request == null) {
+                request = new Request();
+                queued.put(key, request);
+                Request queuedRequest = request;
+                executor.execute(() -> run(key, queuedRequest));
+            }
+            request.csv = csv;
+            return request.done.copy(); // Callers cannot complete or cancel the shared future
+        }
+    }
+
+    private void run(Path file, Request request) {
+        boolean csv;
+        synchronized (queued) {
+            queued.remove(file); // Requests from now on need a new write
+            csv = request.csv;
+        }
+        try {
+            writer.write(file, csv);
+            request.done.complete(null);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("❌ Error saving expenses to " + file + ": " + e.getMessage());
+            request.done.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Lets the queued writes finish, then stops the thread and removes the shutdown hook
+     * Later submits are rejected
+     */
+    void close() {
+        drain();
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // The JVM is already shutting down and runs the hook itself
+        }
+    }
+
+    /**
+     * Lets queued writes finish before the JVM exits
+     */
+    private void drain() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(SHUTDOWN_WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,12 @@
+/**
+ * Broad groups of expense categories, for reports that need fewer columns than there are categories
+ * Each category belongs to exactly one group; see ExpenseCategory.getGroup
+ */
+public enum CategoryGroup {
+    HOUSING,         // Rent, utilities, home maintenance
+    EVERYDAY,        // Food, healthcare, education
+    TRANSPORTATION,  // Transport, car expenses
+    LIFESTYLE,       // Entertainment, shopping, travel, gifts, subscriptions
+    FINANCIAL,       // Savings, debt, charity
+    OTHER
+}
@@ -0,0 +1,263 @@
+import java.util.Arrays;
+
+/**
+ * Date-ordered index of expense amounts for fast range totals.
+ *
+ * Keeps the distinct expense dates in ascending order together with
+ * cumulative amount sums (Fenwick trees), one for all expenses and one per
+ * category. A range total is two binary searches over the dates plus two
+ * prefix-sum lookups, O(log d) for d distinct dates, regardless of how many
+ * expenses there are. Adding or removing an expense updates the sums in
+ * O(log d).
+ *
+ * A date whose expenses have all been removed stays in the index with a zero
+ * total; clear() or rebuild() drops it.
+ */
+final class DateRangeIndex {
+
+    private static final int CATEGORY_COUNT = ExpenseCategory.values().length;
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int DENSE_RANGE_LIMIT = 1 << 22; // ~11,000 years of days
+
+    private int[] days;                  // Distinct dates as epoch days, ascending
+    private long[] dayTotals;            // Cents per date
+    private long[][] dayCategoryTotals;  // Cents per category per date
+    private long[] totalTree;            // Fenwick tree over dayTotals (1-based)
+    private long[][] categoryTrees;      // Fenwick tree per category (1-based)
+    private int dayCount;
+
+    DateRangeIndex() {
+        clear();
+    }
+
+    /**
+     * Records one expense
+     */
+    void add(int epochDay, int categoryOrdinal, long cents) {
+        update(epochDay, categoryOrdinal, cents);
+    }
+
+    /**
+     * Forgets one expense that was previously added
+     */
+    void remove(int epochDay, int categoryOrdinal, long cents) {
+        update(epochDay, categoryOrdinal, -cents);
+    }
+
+    /**
+     * Drops every date and total
+     */
+    void clear() {
+        days = new int[INITIAL_CAPACITY];
+        dayTotals = new long[INITIAL_CAPACITY];
+        dayCategoryTotals = new long[CATEGORY_COUNT][INITIAL_CAPACITY];
+        totalTree = new long[INITIAL_CAPACITY + 1];
+        categoryTrees = new long[CATEGORY_COUNT][INITIAL_CAPACITY + 1];
+        dayCount = 0;
+    }
+
+    /**
+     * Rebuilds the index from scratch in one pass over the store, for bulk loads
+     */
+    void rebuild(ExpenseStore store) {
+        clear();
+        int size = store.size();
+        if (size == 0) {
+            return;
+        }
+
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int row = 0; row < size; row++) {
+            int day = store.epochDay(row);
+            min = Math.min(min, day);
+            max = Math.max(max, day);
+        }
+
+        if ((long) max - min < DENSE_RANGE_LIMIT) {
+            // Usual case: mark the dates in a dense table, then number them in order
+            int[] slots = new int[max - min + 1];
+            for (int row = 0; row < size; row++) {
+                slots[store.epochDay(row) - min] = 1;
+            }
+            int distinct = 0;
+            for (int offset = 0; offset < slots.length; offset++) {
+                if (slots[offset] != 0) {
+                    slots[offset] = distinct++;
+                } else {
+                    slots[offset] = -1;
+                }
+            }
+
+            ensureCapacity(distinct);
+            for (int offset = 0; offset < slots.length; offset++) {
+                if (slots[offset] >= 0) {
+                    days[slots[offset]] = min + offset;
+                }
+            }
+            dayCount = distinct;
+
+            for (int row = 0; row < size; row++) {
+                int pos = slots[store.epochDay(row) - min];
+                accumulate(pos, store.categoryOrdinal(row), store.amountCents(row));
+            }
+        } else {
+            int[] sorted = new int[size];
+            for (int row = 0; row < size; row++) {
+                sorted[row] = store.epochDay(row);
+            }
+            Arrays.sort(sorted);
+            int distinct = 0;
+            for (int i = 0; i < size; i++) {
+                if (i == 0 || sorted[i] != sorted[i - 1]) {
+                    sorted[distinct++] = sorted[i];
+                }
+            }
+
+            ensureCapacity(distinct);
+            System.arraycopy(sorted, 0, days, 0, distinct);
+            dayCount = distinct;
+
+            for (int row = 0; row < size; row++) {
+                int pos = Arrays.binarySearch(days, 0, dayCount, store.epochDay(row));
+                accumulate(pos, store.categoryOrdinal(row), store.amountCents(row));
+            }
+        }
+        rebuildTrees();
+    }
+
+    /**
+     * Sums the amounts dated within [fromDay, toDay]
+     *
+     * @return The total in cents
+     */
+    long totalCents(int fromDay, int toDay) {
+        return rangeSum(totalTree, fromDay, toDay);
+    }
+
+    /**
+     * Sums the amounts of one category dated within [fromDay, toDay]
+     *
+     * @return The total in cents
+     */
+    long totalCents(int categoryOrdinal, int fromDay, int toDay) {
+        return rangeSum(categoryTrees[categoryOrdinal], fromDay, toDay);
+    }
+
+    // ========== INTERNALS ==========
+
+    private long rangeSum(long[] tree, int fromDay, int toDay) {
+        if (fromDay > toDay) {
+            return 0;
+        }
+        int low = firstIndexAtOrAfter(fromDay);
+        int high = toDay == Integer.MAX_VALUE ? dayCount : firstIndexAtOrAfter(toDay + 1);
+        return prefixSum(tree, high) - prefixSum(tree, low);
+    }
+
+    private int firstIndexAtOrAfter(int day) {
+        int pos = Arrays.binarySearch(days, 0, dayCount, day);
+        return pos >= 0 ? pos : -pos - 1;
+    }
+
+    private void update(int day, int categoryOrdinal, long delta) {
+        int pos = Arrays.binarySearch(days, 0, dayCount, day);
+        if (pos < 0) {
+            pos = insertDay(-pos - 1, day);
+        }
+
+        dayTotals[pos] += delta;
+        dayCategoryTotals[categoryOrdinal][pos] += delta;
+        long[] categoryTree = categoryTrees[categoryOrdinal];
+        for (int i = pos + 1; i <= dayCount; i += i & -i) {
+            totalTree[i] += delta;
+            categoryTree[i] += delta;
+        }
+    }
+
+    /**
+     * Inserts a new date with zero totals at the given position
+     *
+     * @return The position of the new date
+     */
+    private int insertDay(int pos, int day) {
+        ensureCapacity(dayCount + 1);
+
+        if (pos == dayCount) {
+            // Appending a newer date leaves every existing tree node valid; the new node
+            // covers (node - lowbit(node), node], which is a sum of existing dates only
+            int node = dayCount + 1;
+            int from = node - (node & -node);
+            totalTree[node] = prefixSum(totalTree, dayCount) - prefixSum(totalTree, from);
+            for (long[] tree : categoryTrees) {
+                tree[node] = prefixSum(tree, dayCount) - prefixSum(tree, from);
+            }
+            days[pos] = day;
+            dayTotals[pos] = 0;
+            for (long[] totals : dayCategoryTotals) {
+                totals[pos] = 0;
+            }
+            dayCount++;
+            return pos;
+        }
+
+        // An older date shifts the positions of everything after it; rebuild the trees in O(d)
+        int following = dayCount - pos;
+        System.arraycopy(days, pos, days, pos + 1, following);
+        System.arraycopy(dayTotals, pos, dayTotals, pos + 1, following);
+        for (long[] totals : dayCategoryTotals) {
+            System.arraycopy(totals, pos, totals, pos + 1, following);
+            totals[pos] = 0;
+        }
+        days[pos] = day;
+        dayTotals[pos] = 0;
+        dayCount++;
+        rebuildTrees();
+        return pos;
+    }
+
+    private void accumulate(int pos, int categoryOrdinal, long cents) {
+        dayTotals[pos] += cents;
+        dayCategoryTotals[categoryOrdinal][pos] += cents;
+    }
+
+    private void rebuildTrees() {
+        buildTree(totalTree, dayTotals);
+        for (int c = 0; c < CATEGORY_COUNT; c++) {
+            buildTree(categoryTrees[c], dayCategoryTotals[c]);
+        }
+    }
+
+    private void buildTree(long[] tree, long[] values) {
+        Arrays.fill(tree, 0);
+        System.arraycopy(values, 0, tree, 1, dayCount);
+        for (int i = 1; i <= dayCount; i++) {
+            int parent = i + (i & -i);
+            if (parent <= dayCount) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+
+    private static long prefixSum(long[] tree, int count) {
+        long sum = 0;
+        for (int i = count; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= days.length) {
+            return;
+        }
+        int capacity = Math.max(needed, days.length * 2);
+        days = Arrays.copyOf(days, capacity);
+        dayTotals = Arrays.copyOf(dayTotals, capacity);
+        totalTree = Arrays.copyOf(totalTree, capacity + 1);
+        for (int c = 0; c < CATEGORY_COUNT; c++) {
+            dayCategoryTotals[c] = Arrays.copyOf(dayCategoryTotals[c], capacity);
+            categoryTrees[c] = Arrays.copyOf(categoryTrees[c], capacity + 1);
+        }
+    }
+}
@@ -0,0 +1,332 @@
+import java.util.Arrays;
+
+/**
+ * Trigram index over the description dictionary of an ExpenseStore.
+ *
+ * Every distinct description is indexed once, not every row: each run of
+ * three case-folded characters maps to the ascending list of dictionary ids
+ * whose text contains it. A substring search intersects the lists of the
+ * needle's trigrams, shortest first, and checks only the ids left over, so
+ * its cost follows the number of candidate texts instead of the size of the
+ * dictionary. Needles shorter than three characters have no trigram and are
+ * checked against every text.
+ *
+ * Behind the texts, the index lists the expense IDs of the rows using each
+ * text and counts the live ones, so a rare text leads straight to its few
+ * rows instead of a scan of the description column. IDs are used rather
+ * than row numbers because they survive compaction and reordering; removed
+ * rows are only counted off and their IDs dropped by the caller's ID lookup,
+ * until they outnumber the live ones and the lists are rebuilt.
+ *
+ * The dictionary only ever grows, and ids never change when rows are removed,
+ * compacted or reordered, so keeping up is a matter of indexing the entries
+ * added since the last search; whoever replaces or clears the dictionary calls
+ * clear. Nothing is indexed before the first search, so a ledger that is
+ * never searched pays nothing; from then on the rows are kept up to date by
+ * addRow and removeRow. Trigram postings live in an open-addressing table
+ * keyed by the packed trigram, with one growable int array per trigram; row
+ * postings are chained through two parallel arrays. Nothing is boxed.
+ * Not thread-safe; the manager synchronizes on it.
+ */
+final class DescriptionIndex {
+
+    private static final int INITIAL_CAPACITY = 1024; // Power of two
+    private static final long EMPTY = 0;
+    private static final long PRESENT = 1L << 48;     // Set in every packed trigram, so none equals EMPTY
+
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private int[][] postings = new int[INITIAL_CAPACITY][];
+    private int[] postingSizes = new int[INITIAL_CAPACITY];
+    private int trigramCount;
+    private int indexedCount; // Dictionary ids below this are indexed
+
+    // Expense IDs per dictionary id, newest first: heads[text] is the latest posting, -1 for none,
+    // and nextPostings links each posting to the one before it
+    private boolean rowsIndexed;
+    private int[] heads = new int[0];
+    private int[] liveCounts = new int[0];
+    private long[] postingIds = new long[0];
+    private int[] nextPostings = new int[0];
+    private int postingCount;
+    private int staleCount; // Postings of removed rows
+
+    /**
+     * Indexes the dictionary entries added to the store since the last call, and the rows if
+     * they are not indexed yet or mostly removed
+     */
+    void catchUp(ExpenseStore store) {
+        indexTexts(store);
+        if (!rowsIndexed || staleCount > postingCount - staleCount) {
+            indexRows(store);
+        }
+    }
+
+    /**
+     * Records a row added to the store; ignored until the rows are indexed
+     */
+    void addRow(int descriptionId, long expenseId) {
+        if (!rowsIndexed) {
+            return;
+        }
+        if (descriptionId >= heads.length) {
+            int capacity = Math.max(descriptionId + 1, heads.length * 2);
+            int oldLength = heads.length;
+            heads = Arrays.copyOf(heads, capacity);
+            Arrays.fill(heads, oldLength, capacity, -1);
+            liveCounts = Arrays.copyOf(liveCounts, capacity);
+        }
+        if (postingCount == postingIds.length) {
+            int capacity = Math.max(16, postingCount * 2);
+            postingIds = Arrays.copyOf(postingIds, capacity);
+            nextPostings = Arrays.copyOf(nextPostings, capacity);
+        }
+        postingIds[postingCount] = expenseId;
+        nextPostings[postingCount] = heads[descriptionId];
+        heads[descriptionId] = postingCount++;
+        liveCounts[descriptionId]++;
+    }
+
+    /**
+     * Records a row removed from the store; its ID stays listed until the next rebuild
+     */
+    void removeRow(int descriptionId) {
+        if (rowsIndexed) {
+            liveCounts[descriptionId]--;
+            staleCount++;
+        }
+    }
+
+    /**
+     * @return The number of live rows using the text, once catchUp indexed the rows
+     */
+    int liveCount(int descriptionId) {
+        return descriptionId < liveCounts.length ? liveCounts[descriptionId] : 0;
+    }
+
+    /**
+     * Lists the expense IDs of the rows using any of the given texts, removed rows included
+     *
+     * @param descriptionIds Dictionary ids, as find returns them
+     */
+    long[] expenseIds(int[] descriptionIds) {
+        int count = 0;
+        for (int id : descriptionIds) {
+            for (int p = id < heads.length ? heads[id] : -1; p >= 0; p = nextPostings[p]) {
+                count++;
+            }
+        }
+        long[] ids = new long[count];
+        count = 0;
+        for (int id : descriptionIds) {
+            for (int p = id < heads.length ? heads[id] : -1; p >= 0; p = nextPostings[p]) {
+                ids[count++] = postingIds[p];
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Forgets every entry, after the store's dictionary was replaced or cleared
+     */
+    void clear() {
+        keys = new long[INITIAL_CAPACITY];
+        postings = new int[INITIAL_CAPACITY][];
+        postingSizes = new int[INITIAL_CAPACITY];
+        trigramCount = 0;
+        indexedCount = 0;
+        rowsIndexed = false;
+        heads = new int[0];
+        liveCounts = new int[0];
+        postingIds = new long[0];
+        nextPostings = new int[0];
+        postingCount = 0;
+        staleCount = 0;
+    }
+
+    /**
+     * Finds the dictionary entries whose text contains a needle, ignoring case
+     *
+     * @param limit Only ids below this are looked at; at most the number of indexed entries
+     * @param wordStart Whether the needle must also start a word of the text
+     * @return The ids of the matching texts, ascending
+     */
+    int[] find(ExpenseStore store, String needle, boolean wordStart, int limit) {
+        int[] found = new int[16];
+        int count = 0;
+        if (needle.length() < 3) {
+            for (int id = 0; id < limit; id++) {
+                if (test(store.descriptionText(id), needle, wordStart)) {
+                    if (count == found.length) {
+                        found = Arrays.copyOf(found, count * 2);
+                    }
+                    found[count++] = id;
+                }
+            }
+            return Arrays.copyOf(found, count);
+        }
+
+        // Gather the needle's posting lists; a trigram no text has means no text matches
+        int[][] lists = new int[needle.length() - 2][];
+        int[] sizes = new int[lists.length];
+        for (int i = 0; i < lists.length; i++) {
+            int slot = slotOf(trigram(needle, i));
+            if (keys[slot] == EMPTY) {
+                return new int[0];
+            }
+            lists[i] = postings[slot];
+            sizes[i] = postingSizes[slot];
+        }
+        int shortest = 0;
+        for (int i = 1; i < lists.length; i++) {
+            if (sizes[i] < sizes[shortest]) {
+                shortest = i;
+            }
+        }
+
+        // Walk the shortest list; the others are only probed by binary search
+        int[] candidates = lists[shortest];
+        for (int c = 0; c < sizes[shortest]; c++) {
+            int id = candidates[c];
+            if (id >= limit) {
+                break;
+            }
+            boolean inAll = true;
+            for (int i = 0; i < lists.length && inAll; i++) {
+                inAll = i == shortest || Arrays.binarySearch(lists[i], 0, sizes[i], id) >= 0;
+            }
+            // Sharing all trigrams does not mean containing the needle, so each candidate is checked
+            if (inAll && test(store.descriptionText(id), needle, wordStart)) {
+                if (count == found.length) {
+                    found = Arrays.copyOf(found, count * 2);
+                }
+                found[count++] = id;
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    /**
+     * Tests whether a text contains a needle, ignoring case
+     *
+     * @param wordStart Whether the needle must also start a word, i.e. follow the start of
+     *                  the text or a character that is neither a letter nor a digit
+     */
+    static boolean test(String text, String needle, boolean wordStart) {
+        int last = text.length() - needle.length();
+        for (int i = 0; i <= last; i++) {
+            if (wordStart && i > 0 && Character.isLetterOrDigit(text.charAt(i - 1))) {
+                continue;
+            }
+            if (text.regionMatches(true, i, needle, 0, needle.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // ========== INTERNALS ==========
+
+    private void indexRows(ExpenseStore store) {
+        rowsIndexed = true;
+        heads = new int[store.descriptionCount()];
+        Arrays.fill(heads, -1);
+        liveCounts = new int[heads.length];
+        postingIds = new long[Math.max(16, store.liveCount())];
+        nextPostings = new int[postingIds.length];
+        postingCount = 0;
+        staleCount = 0;
+        for (int row = 0; row < store.size(); row++) {
+            long id = store.id(row);
+            if (id != ExpenseStore.TOMBSTONE) {
+                addRow(store.descriptionId(row), id);
+            }
+        }
+    }
+
+    private void indexTexts(ExpenseStore store) {
+        int count = store.descriptionCount();
+        long[] seen = new long[16];
+        for (int id = indexedCount; id < count; id++) {
+            String text = store.descriptionText(id);
+            int trigrams = 0;
+            for (int i = 0; i + 3 <= text.length(); i++) {
+                long trigram = trigram(text, i);
+                // A text repeating a trigram is listed once; texts are short, so a linear check is enough
+                boolean repeated = false;
+                for (int t = 0; t < trigrams && !repeated; t++) {
+                    repeated = seen[t] == trigram;
+                }
+                if (!repeated) {
+                    if (trigrams == seen.length) {
+                        seen = Arrays.copyOf(seen, trigrams * 2);
+                    }
+                    seen[trigrams++] = trigram;
+                    append(trigram, id);
+                }
+            }
+        }
+        indexedCount = count;
+    }
+
+    private void append(long trigram, int id) {
+        if ((trigramCount + 1) * 4L > keys.length * 3L) {
+            resize(keys.length * 2);
+        }
+        int slot = slotOf(trigram);
+        if (keys[slot] == EMPTY) {
+            keys[slot] = trigram;
+            postings[slot] = new int[4];
+            trigramCount++;
+        }
+        int[] list = postings[slot];
+        int size = postingSizes[slot];
+        if (size == list.length) {
+            list = Arrays.copyOf(list, size * 2);
+            postings[slot] = list;
+        }
+        list[size] = id; // Ids are indexed in ascending order, so every list stays sorted
+        postingSizes[slot] = size + 1;
+    }
+
+    /**
+     * @return The slot holding the trigram, or the empty slot where it belongs
+     */
+    private int slotOf(long trigram) {
+        int mask = keys.length - 1;
+        long hash = trigram * 0x9E3779B97F4A7C15L;
+        int slot = (int) (hash ^ (hash >>> 32)) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != trigram) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[][] oldPostings = postings;
+        int[] oldSizes = postingSizes;
+        keys = new long[capacity];
+        postings = new int[capacity][];
+        postingSizes = new int[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slotOf(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                postings[slot] = oldPostings[i];
+                postingSizes[slot] = oldSizes[i];
+            }
+        }
+    }
+
+    /**
+     * Packs three case-folded characters into one key, folded the way regionMatches ignores case
+     */
+    private static long trigram(String text, int start) {
+        return PRESENT | (long) fold(text.charAt(start)) << 32
+            | (long) fold(text.charAt(start + 1)) << 16 | fold(text.charAt(start + 2));
+    }
+
+    private static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+}
@@ -1,9 +1,10 @@
 public class Expense {
     
     // Instance variables to store expense information
-    private double amount;           // The monetary amount of the expense
+    private final long id;           // Stable ID assigned by the ExpenseManager, 0 if not stored yet
+    private long amountCents;        // The monetary amount of the expense, in cents
     private ExpenseCategory category; // The category this expense belongs to
-    private String date;            // Date when the expense occurred (dd-MM-yyyy format)
+    private int epochDay;           // Date when the expense occurred, as days since 1970-01-01
     private String description;     // Detailed description of the expense
 
     /**
@@ -12,40 +13,142 @@ public class Expense {
      * @param amount The monetary amount 
      * @param category The expense category 
      * @param date The date in dd-MM-yyyy format 
+     * @param description The expense description; line breaks in it become spaces
+     * @throws IllegalArgumentException if any parameter is invalid, including a date that is not a valid dd-MM-yyyy date
+     *                                  and an amount below one cent
+     */
+    public Expense(double amount, ExpenseCategory category, String date, String description) {
+        validate(amount, category, description);
+
+        // Set the validated values; the amount is kept in cents and the date as a number, both converted once here
+        this.id = 0;
+        this.amountCents = checkCents(Money.toCents(amount));
+        this.category = category;
+        this.epochDay = parseDate(date);
+        this.description = normalizeDescription(description);
+    }
+
+    /**
+     * Constructor for an expense whose date has already been parsed
+     * 
+     * @param amount The monetary amount 
+     * @param category The expense category 
+     * @param epochDay The date as days since 1970-01-01
      * @param description The expense description
      * @throws IllegalArgumentException if any parameter is invalid
      */
-    public Expense(double amount, ExpenseCategory category, String date, String description) {
+    public Expense(double amount, ExpenseCategory category, int epochDay, String description) {
+        validate(amount, category, description);
+
+        this.id = 0;
+        this.amountCents = checkCents(Money.toCents(amount));
+        this.category = category;
+        this.epochDay = epochDay;
+        this.description = normalizeDescription(description);
+    }
+
+    /**
+     * Constructor for a view of a stored expense, carrying its ID
+     */
+    Expense(long id, long amountCents, ExpenseCategory category, int epochDay, String description) {
+        validateCents(amountCents, category, description);
+
+        this.id = id;
+        this.amountCents = amountCents;
+        this.category = category;
+        this.epochDay = epochDay;
+        this.description = normalizeDescription(description);
+    }
+    
+    /**
+     * Checks the constructor rules for everything but the date without creating an Expense
+     * Used by the expense store, which keeps the fields in columns instead of objects
+     *
+     * @throws IllegalArgumentException if any parameter is invalid
+     */
+    static void validate(double amount, ExpenseCategory category, String description) {
         if (amount <= 0) {
             throw new IllegalArgumentException("Amount must be positive");
         }
         if (category == null) {
             throw new IllegalArgumentException("Category cannot be null");
         }
-        if (date == null || date.trim().isEmpty()) {
-            throw new IllegalArgumentException("Date cannot be null or empty");
-        }
         if (description == null || description.trim().isEmpty()) {
             throw new IllegalArgumentException("Description cannot be null or empty");
         }
-        
-        // Set the validated values
-        this.amount = amount;
-        this.category = category;
-        this.date = date.trim();
-        this.description = description.trim();
     }
-    
+
+    /**
+     * Checks the constructor rules for an amount already converted to cents
+     *
+     * @throws IllegalArgumentException if any parameter is invalid
+     */
+    static void validateCents(long amountCents, ExpenseCategory category, String description) {
+        validate(checkCents(amountCents), category, description);
+    }
+
+    /**
+     * Checks that an amount in cents is at least one cent
+     *
+     * @return The amount
+     * @throws IllegalArgumentException if it is not
+     */
+    private static long checkCents(long amountCents) {
+        if (amountCents <= 0) {
+            throw new IllegalArgumentException("Amount must be at least 0.01");
+        }
+        return amountCents;
+    }
+
+    /**
+     * Trims a description and turns each line break in it into a space
+     * The CSV file and the journal hold one expense per line, so a description cannot span lines
+     *
+     * @param description The description, not null
+     * @return The description as it is stored
+     */
+    static String normalizeDescription(String description) {
+        String trimmed = description.trim();
+        if (trimmed.indexOf('\n') < 0 && trimmed.indexOf('\r') < 0) {
+            return trimmed;
+        }
+        return trimmed.replaceAll("\r\n|[\r\n]", " ");
+    }
+
+    /**
+     * Checks and parses a dd-MM-yyyy date
+     *
+     * @param date The date text
+     * @return The date as days since 1970-01-01
+     * @throws IllegalArgumentException if date is null, empty or not a valid dd-MM-yyyy date
+     */
+    static int parseDate(String date) {
+        if (date == null || date.trim().isEmpty()) {
+            throw new IllegalArgumentException("Date cannot be null or empty");
+        }
+        return ExpenseDates.toEpochDay(date.trim());
+    }
+
+    /**
+     * Gets the ID the ExpenseManager assigned to this expense
+     * Expenses returned by the manager carry the ID of their stored row; use it with
+     * ExpenseManager.removeExpense(long) or getExpenseById
+     * @return The expense ID, or 0 for an expense that was not obtained from the manager
+     */
+    public long getId() {
+        return id;
+    }
+
     /**
      * Sets the amount for this expense
-     * @param amount The new amount (must be positive)
-     * @throws IllegalArgumentException if amount is not positive
+     * @param amount The new amount (must be positive); kept rounded to the cent
+     * @throws IllegalArgumentException if amount is not positive or below one cent
      */
     public void setAmount(double amount) {
         if (amount <= 0) {
             throw new IllegalArgumentException("Amount must be positive");
         }
-        this.amount = amount;
+        this.amountCents = checkCents(Money.toCents(amount));
     }
     
     /**
@@ -53,7 +156,15 @@ public class Expense {
      * @return The expense amount
      */
     public double getAmount() {
-        return amount;
+        return Money.fromCents(amountCents);
+    }
+
+    /**
+     * Gets the amount of this expense in cents, the exact form it is stored and totalled in
+     * @return The expense amount in cents
+     */
+    public long getAmountCents() {
+        return amountCents;
     }
 
     /**
@@ -79,33 +190,39 @@ public class Expense {
     /**
      * Sets the date for this expense
      * @param date The new date in dd-MM-yyyy format (cannot be null or empty)
-     * @throws IllegalArgumentException if date is null or empty
+     * @throws IllegalArgumentException if date is null, empty or not a valid dd-MM-yyyy date
      */
     public void setDate(String date) {
-        if (date == null || date.trim().isEmpty()) {
-            throw new IllegalArgumentException("Date cannot be null or empty");
-        }
-        this.date = date.trim();
+        this.epochDay = parseDate(date);
     }
 
     /**
      * Gets the date of this expense
-     * @return The expense date
+     * The text is produced on demand from the stored epoch day
+     * @return The expense date in dd-MM-yyyy format
      */
     public String getDate() {
-        return date;
+        return ExpenseDates.format(epochDay);
+    }
+
+    /**
+     * Gets the date of this expense as a number, for comparisons and range checks
+     * @return The expense date as days since 1970-01-01
+     */
+    public int getEpochDay() {
+        return epochDay;
     }
 
     /**
      * Sets the description for this expense
-     * @param description The new description (cannot be null or empty)
+     * @param description The new description (cannot be null or empty); line breaks in it become spaces
      * @throws IllegalArgumentException if description is null or empty
      */
     public void setDescription(String description) {
         if (description == null || description.trim().isEmpty()) {
             throw new IllegalArgumentException("Description cannot be null or empty");
         }
-        this.description = description.trim();
+        this.description = normalizeDescription(description);
     }
 
     /**
@@ -122,13 +239,14 @@ public class Expense {
      */
     @Override
     public String toString() {
-        return String.format("AMOUNT: $%.2f%nCATEGORY: %s%nDATE: %s%nDESCRIPTION: %s%n", 
-            amount, category, date, description);
+        return String.format("AMOUNT: $%s%nCATEGORY: %s%nDATE: %s%nDESCRIPTION: %s%n", 
+            Money.format(amountCents), category, getDate(), description);
     }
 
     /**
      * Compares this expense with another object for equality
-     * Two expenses are considered equal if all their fields match exactly
+     * Two expenses are considered equal if all their fields match exactly; the ID is not compared,
+     * so a view of a stored expense equals the expense it was added from
      * 
      * @param obj The object to compare with
      * @return true if the objects are equal, false otherwise
@@ -147,9 +265,9 @@ public class Expense {
 
         // Cast to Expense and compare all fields
         Expense other = (Expense) obj;
-        return Double.compare(this.amount, other.amount) == 0 &&
+        return this.amountCents == other.amountCents &&
                this.category.equals(other.category) &&
-               this.date.equals(other.date) &&
+               this.epochDay == other.epochDay &&
                this.description.equals(other.description);
     }
     
@@ -160,9 +278,9 @@ public class Expense {
     @Override
     public int hashCode() {
         int result = 17;
-        result = 31 * result + Double.hashCode(amount);
+        result = 31 * result + Long.hashCode(amountCents);
         result = 31 * result + category.hashCode();
-        result = 31 * result + date.hashCode();
+        result = 31 * result + epochDay;
         result = 31 * result + description.hashCode();
         return result;
     }
@@ -0,0 +1,76 @@
+/**
+ * Count, sum, minimum, maximum and average of the amounts of the expenses matching a query
+ * Computed from the stored columns in cents; no Expense objects are built for it
+ */
+public final class ExpenseAggregate {
+
+    private final long count;
+    private final long sumCents;
+    private final long minCents;
+    private final long maxCents;
+
+    ExpenseAggregate(long count, long sumCents, long minCents, long maxCents) {
+        this.count = count;
+        this.sumCents = sumCents;
+        this.minCents = minCents;
+        this.maxCents = maxCents;
+    }
+
+    /**
+     * @return The number of matching expenses
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return The total amount, exact to the cent
+     */
+    public double getSum() {
+        return Money.fromCents(sumCents);
+    }
+
+    /**
+     * @return The total amount in cents, exactly
+     */
+    public long getSumCents() {
+        return sumCents;
+    }
+
+    /**
+     * @return The smallest amount, or 0 if nothing matched
+     */
+    public double getMin() {
+        return count == 0 ? 0 : Money.fromCents(minCents);
+    }
+
+    /**
+     * @return The largest amount, or 0 if nothing matched
+     */
+    public double getMax() {
+        return count == 0 ? 0 : Money.fromCents(maxCents);
+    }
+
+    /**
+     * @return The mean amount, or 0 if nothing matched
+     */
+    public double getAverage() {
+        return count == 0 ? 0 : getSum() / count;
+    }
+
+    /**
+     * Combines the aggregates of two disjoint sets of expenses
+     *
+     * @throws ArithmeticException if the total does not fit in a long number of cents
+     */
+    ExpenseAggregate plus(ExpenseAggregate other) {
+        return new ExpenseAggregate(count + other.count, Math.addExact(sumCents, other.sumCents),
+                                    Math.min(minCents, other.minCents), Math.max(maxCents, other.maxCents));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d, sum=$%s, min=$%.2f, max=$%.2f, avg=$%.2f",
+            count, Money.format(sumCents), getMin(), getMax(), getAverage());
+    }
+}
@@ -1,3 +1,5 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 
 public enum ExpenseCategory {
     FOOD,                    
@@ -16,8 +18,74 @@ public enum ExpenseCategory {
     CHARITY,               
     HOME_MAINTENANCE,       
     CAR_EXPENSES,           
-    OTHER;                 
-    
+    OTHER;
+
+    // Category names as ASCII bytes, bucketed by name length for the byte-level lookup
+    private static final ExpenseCategory[][] BY_LENGTH;
+    private static final byte[][] NAME_BYTES;
+
+    static {
+        ExpenseCategory[] categories = values();
+        int maxLength = 0;
+        for (ExpenseCategory category : categories) {
+            maxLength = Math.max(maxLength, category.name().length());
+        }
+
+        int[] counts = new int[maxLength + 1];
+        for (ExpenseCategory category : categories) {
+            counts[category.name().length()]++;
+        }
+
+        BY_LENGTH = new ExpenseCategory[maxLength + 1][];
+        for (int len = 0; len <= maxLength; len++) {
+            BY_LENGTH[len] = new ExpenseCategory[counts[len]];
+            counts[len] = 0;
+        }
+
+        NAME_BYTES = new byte[categories.length][];
+        for (ExpenseCategory category : categories) {
+            int len = category.name().length();
+            BY_LENGTH[len][counts[len]++] = category;
+            NAME_BYTES[category.ordinal()] = category.name().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    /**
+     * Resolves a category from raw ASCII bytes without creating a String.
+     * Matching is case-insensitive, like valueOf(text.toUpperCase()).
+     * The caller is expected to have trimmed the field already.
+     *
+     * @param buffer The buffer holding the bytes (absolute positions are used)
+     * @param start The index of the first byte of the name
+     * @param end The index one past the last byte of the name
+     * @return The matching category, or null if no category has that name
+     */
+    public static ExpenseCategory fromAsciiBytes(ByteBuffer buffer, int start, int end) {
+        int len = end - start;
+        if (len <= 0 || len >= BY_LENGTH.length) {
+            return null;
+        }
+
+        for (ExpenseCategory candidate : BY_LENGTH[len]) {
+            byte[] name = NAME_BYTES[candidate.ordinal()];
+            int i = 0;
+            while (i < len) {
+                int b = buffer.get(start + i);
+                if (b >= 'a' && b <= 'z') {
+                    b -= 'a' - 'A';
+                }
+                if (b != name[i]) {
+                    break;
+                }
+                i++;
+            }
+            if (i == len) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
     /**
      * Gets an array of all category names as strings
      * This is useful for populating dropdown menus in the GUI
@@ -70,4 +138,20 @@ public enum ExpenseCategory {
             default: return "Unknown category";
         }
     }
+
+    /**
+     * Gets the broader group this category is reported under
+     * 
+     * @return The group
+     */
+    public CategoryGroup getGroup() {
+        switch (this) {
+            case RENT: case UTILITIES: case HOME_MAINTENANCE: return CategoryGroup.HOUSING;
+            case FOOD: case HEALTHCARE: case EDUCATION: return CategoryGroup.EVERYDAY;
+            case TRANSPORT: case CAR_EXPENSES: return CategoryGroup.TRANSPORTATION;
+            case ENTERTAINMENT: case SHOPPING: case TRAVEL: case GIFTS: case SUBSCRIPTIONS: return CategoryGroup.LIFESTYLE;
+            case SAVINGS: case DEBT: case CHARITY: return CategoryGroup.FINANCIAL;
+            default: return CategoryGroup.OTHER;
+        }
+    }
 }
@@ -0,0 +1,86 @@
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Describes one change to an ExpenseManager
+ * Every change bumps the manager's version by one, so a listener that last saw version v can apply
+ * the event with version v + 1 as a delta; after a gap it should re-read getSnapshot instead.
+ * Positions refer to snapshot order, the order getSnapshot lists the expenses in
+ */
+public final class ExpenseChangeEvent {
+
+    /**
+     * Kind of change
+     */
+    public enum Type {
+        ADDED,          // getCount expenses appended at getIndex; getExpenses lists them
+        REMOVED,        // One expense removed from getIndex; getExpenses holds it
+        BULK_LOADED,    // All expenses replaced by a load; getCount is the new number of expenses
+        CLEARED,        // All getCount expenses removed
+        REORDERED       // The same expenses, sorted
+    }
+
+    private final Type type;
+    private final long version;
+    private final int index;
+    private final int count;
+    private final List<Expense> expenses;
+
+    ExpenseChangeEvent(Type type, long version, int index, int count, List<Expense> expenses) {
+        this.type = type;
+        this.version = version;
+        this.index = index;
+        this.count = count;
+        this.expenses = expenses;
+    }
+
+    /**
+     * @return The kind of change
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Gets the manager version right after the change
+     * @return The version; the one before the change is one less
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets where the change happened
+     * For ADDED this is the position of the first new expense after the change, for REMOVED the
+     * position the expense had before it; 0 for the other types
+     * @return The position in snapshot order
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Gets how many expenses the change affected
+     * @return The number added, removed, loaded, cleared or reordered
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the expenses that were added or removed, with their IDs
+     * @return An unmodifiable list; empty for BULK_LOADED, CLEARED and REORDERED
+     */
+    public List<Expense> getExpenses() {
+        return expenses;
+    }
+
+    static ExpenseChangeEvent whole(Type type, long version, int count) {
+        return new ExpenseChangeEvent(type, version, 0, count, Collections.emptyList());
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + count + " at " + index + " (version " + version + ")";
+    }
+}
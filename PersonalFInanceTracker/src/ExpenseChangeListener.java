@@ -0,0 +1,15 @@
+/**
+ * Receives the changes made to an ExpenseManager, one event per operation
+ * Register with ExpenseManager.addChangeListener
+ */
+public interface ExpenseChangeListener {
+
+    /**
+     * Called after a change, on the thread that made it (or on another changing thread that delivers
+     * it first); events arrive one at a time and in version order
+     * Listeners should return quickly, e.g. by handing the event to a UI thread
+     *
+     * @param event What changed
+     */
+    void expensesChanged(ExpenseChangeEvent event);
+}
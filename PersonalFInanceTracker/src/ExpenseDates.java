@@ -0,0 +1,146 @@
+import java.nio.ByteBuffer;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.ResolverStyle;
+
+/**
+ * Conversions between the dd-MM-yyyy text used in the CSV file and the GUI
+ * and the epoch-day numbers expenses are stored and compared as.
+ *
+ * The common ten-character form is converted with plain integer arithmetic,
+ * so parsing and formatting do not allocate LocalDate objects. Anything else
+ * falls back to a strict DateTimeFormatter, which also rejects dates such as
+ * 31-02-2025 instead of silently moving them to the end of the month.
+ */
+final class ExpenseDates {
+
+    static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("dd-MM-uuuu")
+                                                             .withResolverStyle(ResolverStyle.STRICT);
+
+    // Bounds of date range queries keep the lenient default resolver they always had, which clamps
+    // a day past the end of its month (31-02-2024 reads as 29-02-2024) instead of rejecting it
+    static final DateTimeFormatter RANGE_FORMAT = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+
+    // Returned by the byte parser when the text is not in the fast ten-character form
+    static final int NOT_PARSED = Integer.MIN_VALUE;
+
+    private ExpenseDates() {
+    }
+
+    /**
+     * Parses a dd-MM-yyyy date into days since 1970-01-01
+     *
+     * @param date The date text
+     * @return The epoch day
+     * @throws IllegalArgumentException if the date is not a valid dd-MM-yyyy date
+     */
+    static int toEpochDay(String date) {
+        if (date.length() == 10 && date.charAt(2) == '-' && date.charAt(5) == '-') {
+            int day = twoDigits(date.charAt(0), date.charAt(1));
+            int month = twoDigits(date.charAt(3), date.charAt(4));
+            int year = fourDigits(date.charAt(6), date.charAt(7), date.charAt(8), date.charAt(9));
+            if (day >= 0 && month >= 0 && year >= 0) {
+                if (isValid(year, month, day)) {
+                    return epochDay(year, month, day);
+                }
+                throw new IllegalArgumentException("Invalid date '" + date + "'. Please use dd-MM-yyyy format");
+            }
+        }
+
+        try {
+            return Math.toIntExact(LocalDate.parse(date, FORMAT).toEpochDay());
+        } catch (DateTimeException | ArithmeticException e) {
+            throw new IllegalArgumentException("Invalid date '" + date + "'. Please use dd-MM-yyyy format", e);
+        }
+    }
+
+    /**
+     * Parses a dd-MM-yyyy date straight from ASCII bytes
+     *
+     * @return The epoch day, or NOT_PARSED if the bytes are not a valid ten-character date
+     */
+    static int toEpochDay(ByteBuffer buffer, int start, int end) {
+        if (end - start != 10 || buffer.get(start + 2) != '-' || buffer.get(start + 5) != '-') {
+            return NOT_PARSED;
+        }
+        int day = twoDigits(buffer.get(start), buffer.get(start + 1));
+        int month = twoDigits(buffer.get(start + 3), buffer.get(start + 4));
+        int year = fourDigits(buffer.get(start + 6), buffer.get(start + 7), buffer.get(start + 8), buffer.get(start + 9));
+        if (day < 0 || month < 0 || year < 0 || !isValid(year, month, day)) {
+            return NOT_PARSED;
+        }
+        return epochDay(year, month, day);
+    }
+
+    /**
+     * Formats an epoch day as dd-MM-yyyy
+     *
+     * @param epochDay Days since 1970-01-01
+     * @return The formatted date
+     */
+    static String format(int epochDay) {
+        // Civil-from-days conversion (proleptic Gregorian calendar)
+        long z = epochDay + 719468L;
+        long era = Math.floorDiv(z, 146097);
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long shiftedMonth = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * shiftedMonth + 2) / 5 + 1);
+        int month = (int) (shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9);
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+        if (year < 0 || year > 9999) {
+            return LocalDate.ofEpochDay(epochDay).format(FORMAT);
+        }
+        char[] text = {
+            (char) ('0' + day / 10), (char) ('0' + day % 10), '-',
+            (char) ('0' + month / 10), (char) ('0' + month % 10), '-',
+            (char) ('0' + year / 1000), (char) ('0' + year / 100 % 10),
+            (char) ('0' + year / 10 % 10), (char) ('0' + year % 10)
+        };
+        return new String(text);
+    }
+
+    /**
+     * Days-from-civil conversion for a date that is already known to be valid
+     */
+    private static int epochDay(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    private static boolean isValid(int year, int month, int day) {
+        if (month < 1 || month > 12 || day < 1) {
+            return false;
+        }
+        int length;
+        if (month == 2) {
+            boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+            length = leap ? 29 : 28;
+        } else if (month == 4 || month == 6 || month == 9 || month == 11) {
+            length = 30;
+        } else {
+            length = 31;
+        }
+        return day <= length;
+    }
+
+    private static int twoDigits(int tens, int ones) {
+        if (tens < '0' || tens > '9' || ones < '0' || ones > '9') {
+            return -1;
+        }
+        return (tens - '0') * 10 + (ones - '0');
+    }
+
+    private static int fourDigits(int a, int b, int c, int d) {
+        int high = twoDigits(a, b);
+        int low = twoDigits(c, d);
+        return high < 0 || low < 0 ? -1 : high * 100 + low;
+    }
+}
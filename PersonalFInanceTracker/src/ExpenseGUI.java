@@ -1,10 +1,20 @@
 import java.awt.*;
+import java.awt.geom.AffineTransform;
 import java.awt.geom.Arc2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
 import javax.swing.*;
 import javax.swing.border.Border;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 
 public class ExpenseGUI {
     
@@ -22,6 +32,14 @@ public class ExpenseGUI {
     private static final Font HEADER_FONT = new Font("Segoe UI", Font.BOLD, 16);
     private static final Font BODY_FONT = new Font("Segoe UI", Font.PLAIN, 12);
     private static final Font BUTTON_FONT = new Font("Segoe UI", Font.BOLD, 12);
+
+    // Largest change the chart applies expense by expense, reading one category total per expense;
+    // a full refresh reads every category total, so beyond one expense per category it is cheaper
+    private static final int MAX_CHART_DELTA_EXPENSES = ExpenseCategory.values().length;
+
+    // Pause in typing after which the search box filters the table
+    private static final int SEARCH_DELAY_MS = 150;
+
     
     private ExpenseManager manager;
 
@@ -33,10 +51,28 @@ public class ExpenseGUI {
     private JTextArea descriptionArea;
     private JButton addButton, removeButton, viewButton;
     private JTable expenseTable;
-    private DefaultTableModel tableModel;
+    private ExpenseTableModel tableModel;
     private PieChartPanel pieChartPanel;
+    private TimeSeriesPanel timeSeriesPanel;
     private Map<ExpenseCategory, Double> expenseData;
 
+    // Description search over the table; searchText is the text the table is filtered by, "" for none
+    private JTextField searchField;
+    private JLabel searchStatus;
+    private Timer searchTimer;
+    private String searchText = "";
+
+    // Manager version the chart last showed; -1 until first drawn
+    private long chartVersion = -1;
+
+    // Status bar for background tasks; only one load, save or sort runs at a time
+    private JPanel statusBar;
+    private JLabel statusLabel;
+    private JProgressBar progressBar;
+    private JButton cancelButton;
+    private SwingWorker<?, ?> currentTask;
+    private final List<JMenuItem> taskItems = new ArrayList<>();
+
     /**
      * Constructor to create and initialize the modern GUI
      * 
@@ -74,6 +110,9 @@ public class ExpenseGUI {
         // Panel 4 - Modern chart panel
         panel4 = createChartPanel();
 
+        // From here on the table and chart follow the manager's changes, whoever makes them
+        manager.addChangeListener(this::expensesChanged);
+
         // Add all panels to the main content panel
         mainContentPanel.add(panel1);
         mainContentPanel.add(panel2);
@@ -93,6 +132,7 @@ public class ExpenseGUI {
         
         // Add scroll pane to the main frame
         mainFrame.add(scrollPane);
+        mainFrame.add(createStatusBar(), BorderLayout.SOUTH);
 
         // Create and add menu bar
         createMenuBar();
@@ -327,7 +367,13 @@ public class ExpenseGUI {
         sectionTitle.setFont(HEADER_FONT);
         sectionTitle.setForeground(TEXT_COLOR);
         sectionTitle.setBorder(BorderFactory.createEmptyBorder(0, 0, 10, 0));
-        tablePanel.add(sectionTitle, BorderLayout.NORTH);
+
+        // Title on the left, description search on the right
+        JPanel tableHeader = new JPanel(new BorderLayout());
+        tableHeader.setBackground(CARD_COLOR);
+        tableHeader.add(sectionTitle, BorderLayout.WEST);
+        tableHeader.add(createSearchPanel(), BorderLayout.EAST);
+        tablePanel.add(tableHeader, BorderLayout.NORTH);
 
         // Create modern table
         createModernTable(tablePanel);
@@ -336,18 +382,66 @@ public class ExpenseGUI {
     }
 
     /**
-     * Creates a modern styled table
+     * Creates the search box that filters the table by description as the user types
      */
-    private void createModernTable(JPanel parent) {
-        String[] columnNames = {"Date", "Amount", "Category", "Description"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
+    private JPanel createSearchPanel() {
+        JPanel searchPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 8, 0));
+        searchPanel.setBackground(CARD_COLOR);
+
+        searchStatus = new JLabel();
+        searchStatus.setFont(BODY_FONT);
+        searchStatus.setForeground(TEXT_COLOR);
+        searchPanel.add(searchStatus);
+
+        JLabel searchLabel = new JLabel("🔍 Search:");
+        searchLabel.setFont(BODY_FONT);
+        searchLabel.setForeground(TEXT_COLOR);
+        searchPanel.add(searchLabel);
+
+        searchField = new JTextField(20);
+        searchField.setFont(BODY_FONT);
+        searchField.setBorder(BorderFactory.createCompoundBorder(
+            BorderFactory.createLineBorder(new Color(200, 200, 200), 1),
+            BorderFactory.createEmptyBorder(3, 8, 3, 8)
+        ));
+        searchField.setToolTipText("Show only expenses whose description contains this text");
+        searchPanel.add(searchField);
+
+        // Each search takes milliseconds, but a burst of keystrokes only needs the last one
+        searchTimer = new Timer(SEARCH_DELAY_MS, e -> applySearch());
+        searchTimer.setRepeats(false);
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
             @Override
-            public boolean isCellEditable(int row, int column) {
-                return false; // Make table read-only
+            public void insertUpdate(DocumentEvent e) {
+                searchTimer.restart();
             }
-        };
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                searchTimer.restart();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                searchTimer.restart();
+            }
+        });
+        searchField.addActionListener(e -> {
+            searchTimer.stop();
+            applySearch(); // Enter searches at once
+        });
+        return searchPanel;
+    }
+
+    /**
+     * Creates a modern styled table
+     */
+    private void createModernTable(JPanel parent) {
+        // Cells are read from the manager's snapshot as they are painted; no rows are copied
+        tableModel = new ExpenseTableModel(manager.getSnapshot());
 
         expenseTable = new JTable(tableModel);
+        expenseTable.removeColumn(expenseTable.getColumnModel().getColumn(ExpenseTableModel.ID_COLUMN)); // Hidden, used for removal
         expenseTable.setFont(BODY_FONT);
         expenseTable.setRowHeight(25);
         expenseTable.setSelectionBackground(PRIMARY_COLOR);
@@ -389,13 +483,50 @@ public class ExpenseGUI {
         sectionTitle.setBorder(BorderFactory.createEmptyBorder(0, 0, 10, 0));
         chartPanel.add(sectionTitle, BorderLayout.NORTH);
 
-        // Create pie chart panel
+        // Pie chart on the left, spending over time on the right
+        JPanel chartsPanel = new JPanel(new GridLayout(1, 2, 20, 0));
+        chartsPanel.setBackground(CARD_COLOR);
         pieChartPanel = new PieChartPanel();
-        chartPanel.add(pieChartPanel, BorderLayout.CENTER);
+        chartsPanel.add(pieChartPanel);
+        chartsPanel.add(createTimeSeriesPanel());
+        chartPanel.add(chartsPanel, BorderLayout.CENTER);
 
         return chartPanel;
     }
 
+    /**
+     * Creates the spending-over-time chart with its category filter
+     */
+    private JPanel createTimeSeriesPanel() {
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.setBackground(CARD_COLOR);
+
+        JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 0));
+        controls.setBackground(CARD_COLOR);
+        JLabel title = new JLabel("📈 Spending over time");
+        title.setFont(BODY_FONT);
+        title.setForeground(TEXT_COLOR);
+        controls.add(title);
+
+        JComboBox<String> categoryFilter = new JComboBox<>();
+        categoryFilter.addItem("All categories");
+        for (ExpenseCategory category : ExpenseCategory.values()) {
+            categoryFilter.addItem(category.name());
+        }
+        categoryFilter.setFont(BODY_FONT);
+        categoryFilter.setBackground(Color.WHITE);
+        controls.add(categoryFilter);
+        panel.add(controls, BorderLayout.NORTH);
+
+        timeSeriesPanel = new TimeSeriesPanel();
+        categoryFilter.addActionListener(e -> {
+            int selected = categoryFilter.getSelectedIndex();
+            timeSeriesPanel.setCategory(selected <= 0 ? null : ExpenseCategory.values()[selected - 1]);
+        });
+        panel.add(timeSeriesPanel, BorderLayout.CENTER);
+        return panel;
+    }
+
     /**
      * Creates the menu bar with modern styling
      */
@@ -411,20 +542,21 @@ public class ExpenseGUI {
 
         JMenuItem saveItem = new JMenuItem("💾 Save Expenses to File");
         saveItem.setFont(BODY_FONT);
-        saveItem.addActionListener(e -> {
-            manager.saveExpensesToFile("Expenses.csv");
-            showMessage("✅ Expenses saved successfully!", SUCCESS_COLOR);
-        });
+        saveItem.addActionListener(e -> saveInBackground());
         fileMenu.add(saveItem);
+        taskItems.add(saveItem);
 
         JMenuItem loadItem = new JMenuItem("📂 Load Expenses from File");
         loadItem.setFont(BODY_FONT);
-        loadItem.addActionListener(e -> {
-            manager.loadExpensesFromFile("Expenses.csv");
-            updateTable();
-            showMessage("✅ Expenses loaded successfully!", SUCCESS_COLOR);
-        });
+        loadItem.addActionListener(e -> runInBackground("📂 Loading expenses...", progress -> {
+            if (new File("Expenses.dat").exists()) {
+                manager.loadSnapshot("Expenses.dat", progress);
+            } else {
+                manager.loadExpensesFromFileParallel("Expenses.csv", progress); // Ledger saved before snapshots existed
+            }
+        }, "✅ Expenses loaded successfully!"));
         fileMenu.add(loadItem);
+        taskItems.add(loadItem);
 
         // Add separator
         fileMenu.addSeparator();
@@ -441,35 +573,42 @@ public class ExpenseGUI {
 
         JMenuItem sortAmountAsc = new JMenuItem("💰 Sort by Amount (Low to High)");
         sortAmountAsc.setFont(BODY_FONT);
-        sortAmountAsc.addActionListener(e -> {
-            manager.sortExpenses("amount", "asc");
-            updateTable();
-        });
+        sortAmountAsc.addActionListener(e -> sortInBackground(SortSpec.by(SortSpec.Key.AMOUNT)));
         sortMenu.add(sortAmountAsc);
+        taskItems.add(sortAmountAsc);
 
         JMenuItem sortAmountDesc = new JMenuItem("💰 Sort by Amount (High to Low)");
         sortAmountDesc.setFont(BODY_FONT);
-        sortAmountDesc.addActionListener(e -> {
-            manager.sortExpenses("amount", "des");
-            updateTable();
-        });
+        sortAmountDesc.addActionListener(e -> sortInBackground(SortSpec.byDescending(SortSpec.Key.AMOUNT)));
         sortMenu.add(sortAmountDesc);
+        taskItems.add(sortAmountDesc);
 
         JMenuItem sortDateAsc = new JMenuItem("📅 Sort by Date (Oldest First)");
         sortDateAsc.setFont(BODY_FONT);
-        sortDateAsc.addActionListener(e -> {
-            manager.sortExpenses("date", "asc");
-            updateTable();
-        });
+        sortDateAsc.addActionListener(e -> sortInBackground(SortSpec.by(SortSpec.Key.DATE)));
         sortMenu.add(sortDateAsc);
+        taskItems.add(sortDateAsc);
 
         JMenuItem sortDateDesc = new JMenuItem("📅 Sort by Date (Newest First)");
         sortDateDesc.setFont(BODY_FONT);
-        sortDateDesc.addActionListener(e -> {
-            manager.sortExpenses("date", "des");
-            updateTable();
-        });
+        sortDateDesc.addActionListener(e -> sortInBackground(SortSpec.byDescending(SortSpec.Key.DATE)));
         sortMenu.add(sortDateDesc);
+        taskItems.add(sortDateDesc);
+
+        JMenuItem sortCategory = new JMenuItem("🗂️ Sort by Category, then Newest, then Amount");
+        sortCategory.setFont(BODY_FONT);
+        sortCategory.addActionListener(e -> sortInBackground(
+            SortSpec.by(SortSpec.Key.CATEGORY).thenDescending(SortSpec.Key.DATE).then(SortSpec.Key.AMOUNT)));
+        sortMenu.add(sortCategory);
+        taskItems.add(sortCategory);
+
+        sortMenu.addSeparator();
+
+        JMenuItem ledgerOrder = new JMenuItem("↩️ Ledger Order");
+        ledgerOrder.setFont(BODY_FONT);
+        ledgerOrder.addActionListener(e -> tableModel.setSnapshot(tableModel.getSnapshot().unsorted()));
+        sortMenu.add(ledgerOrder);
+        taskItems.add(ledgerOrder);
 
         menuBar.add(fileMenu);
         menuBar.add(sortMenu);
@@ -494,13 +633,13 @@ public class ExpenseGUI {
     private void addExpense() {
         try {
             // Validate and get input values
-            double amount = Double.parseDouble(amountField.getText().trim());
+            long amountCents = Money.toCents(amountField.getText()); // Exact; no rounding through a double
             ExpenseCategory category = (ExpenseCategory) categoryBox.getSelectedItem();
             String date = dateField.getText().trim();
             String description = descriptionArea.getText().trim();
 
             // Validate inputs
-            if (amount <= 0) {
+            if (amountCents <= 0) {
                 showMessage("❌ Amount must be positive!", ERROR_COLOR);
                 return;
             }
@@ -514,15 +653,11 @@ public class ExpenseGUI {
             }
 
             // Add expense to manager
-            manager.addExpense(amount, category, date, description);
+            manager.addExpense(Money.fromCents(amountCents), category, date, description);
             
-            // Clear form fields
+            // Clear form fields; the table and chart were updated by the change event
             clearForm();
             
-            // Update table and chart
-            updateTable();
-            updateChart();
-            
             showMessage("✅ Expense added successfully!", SUCCESS_COLOR);
             
         } catch (NumberFormatException e) {
@@ -543,26 +678,12 @@ public class ExpenseGUI {
         }
 
         try {
-            // Get the values from the table
-            String date = (String) tableModel.getValueAt(selectedRow, 0);
-            
-            // Parse amount (remove $ sign if present)
-            String amountStr = tableModel.getValueAt(selectedRow, 1).toString().replace("$", "");
-            double amount = Double.parseDouble(amountStr);
-            
-            // Get category directly from the table (it should be the enum name)
-            String categoryStr = (String) tableModel.getValueAt(selectedRow, 2);
-            ExpenseCategory category = ExpenseCategory.valueOf(categoryStr);
-            
-            String description = (String) tableModel.getValueAt(selectedRow, 3);
-            
-            // Remove from manager
-            boolean removed = manager.removeExpense(amount, category, date, description);
+            // Remove from manager by the ID kept in the hidden column
+            int modelRow = expenseTable.convertRowIndexToModel(selectedRow);
+            long id = (Long) tableModel.getValueAt(modelRow, ExpenseTableModel.ID_COLUMN);
+            boolean removed = manager.removeExpense(id);
             
             if (removed) {
-                // Remove from table
-                tableModel.removeRow(selectedRow);
-                updateChart();
                 showMessage("✅ Expense removed successfully!", SUCCESS_COLOR);
             } else {
                 showMessage("❌ Failed to remove expense!", ERROR_COLOR);
@@ -598,28 +719,102 @@ public class ExpenseGUI {
         
         if (result == JOptionPane.YES_OPTION) {
             manager.clearExpenses();
-            updateTable();
-            updateChart();
             showMessage("🗑️ All expenses cleared successfully!", SUCCESS_COLOR);
         }
     }
 
+    /**
+     * Brings the table and chart up to date with one change of the manager
+     * Runs on the thread that made the change, so it is handed to the event dispatch thread unless already there
+     */
+    private void expensesChanged(ExpenseChangeEvent event) {
+        if (SwingUtilities.isEventDispatchThread()) {
+            applyChange(event);
+        } else {
+            SwingUtilities.invokeLater(() -> applyChange(event));
+        }
+    }
+
+    private void applyChange(ExpenseChangeEvent event) {
+        if (searchText.isEmpty()) {
+            tableModel.update(manager.getSnapshot(), event);
+        } else {
+            updateTable(); // Any change can add or remove matches, so the search runs again (indexed, milliseconds)
+        }
+        timeSeriesPanel.refresh(); // O(pixels) whatever changed
+
+        if (event.getVersion() <= chartVersion) {
+            return; // Already drawn by a full refresh
+        }
+        boolean fewExpenses = event.getExpenses().size() == event.getCount() && event.getCount() <= MAX_CHART_DELTA_EXPENSES;
+        if (event.getVersion() != chartVersion + 1 || !fewExpenses) {
+            updateChart(); // O(categories) anyway, whatever the change
+            return;
+        }
+        chartVersion = event.getVersion();
+        for (Expense expense : event.getExpenses()) {
+            ExpenseCategory category = expense.getCategory();
+            double total = manager.getCategoryTotal(category);
+            if (total > 0) {
+                expenseData.put(category, total);
+            } else {
+                expenseData.remove(category); // Like getCategoryTotals, categories without expenses are left out
+            }
+        }
+        pieChartPanel.updateData(expenseData);
+        pieChartPanel.repaint();
+    }
+
     /**
      * Updates the table with current expense data
      */
     private void updateTable() {
-        // Clear existing data
-        tableModel.setRowCount(0);
-        
-        // Add all expenses to the table
-        for (Expense expense : manager.getExpenses()) {
-            Object[] row = {
-                expense.getDate(),
-                String.format("$%.2f", expense.getAmount()),
-                expense.getCategory().name(),
-                expense.getDescription()
-            };
-            tableModel.addRow(row);
+        ExpenseSnapshot shown = tableModel.getSnapshot();
+        if (manager.getVersion() != shown.getVersion()) {
+            // The table keeps its own search and order; one event, whatever changed
+            tableModel.setSnapshot(tableView(searchText, shown.getSortSpec()));
+            updateSearchStatus();
+        }
+    }
+
+    /**
+     * Filters the table to the search box's text, keeping the table's order
+     */
+    private void applySearch() {
+        String text = searchField.getText().trim();
+        if (text.equals(searchText)) {
+            return;
+        }
+        searchText = text;
+        tableModel.setSnapshot(tableView(searchText, tableModel.getSnapshot().getSortSpec()));
+        updateSearchStatus();
+    }
+
+    /**
+     * Gets the manager's current expenses as the table shows them; safe to call off the event dispatch thread
+     *
+     * @param search Only expenses whose description contains this are kept; "" keeps all
+     * @param order The table's order, or null for ledger order
+     */
+    private ExpenseSnapshot tableView(String search, SortSpec order) {
+        ExpenseSnapshot expenses = search.isEmpty() ? manager.getSnapshot() : manager.searchDescriptions(search);
+        return order == null ? expenses : expenses.sorted(order);
+    }
+
+    private void updateSearchStatus() {
+        ExpenseSnapshot shown = tableModel.getSnapshot();
+        searchStatus.setText(shown.isFiltered()
+            ? String.format("%,d of %,d expenses", shown.size(), manager.getExpenseCount()) : "");
+    }
+
+    /**
+     * Shows a snapshot a background task prepared, already in the order the table should have
+     */
+    private void showSnapshot(ExpenseSnapshot expenses) {
+        ExpenseSnapshot shown = tableModel.getSnapshot();
+        if (expenses.getVersion() != shown.getVersion() || !Objects.equals(expenses.getSortSpec(), shown.getSortSpec())) {
+            tableModel.setSnapshot(expenses);
+            updateSearchStatus();
         }
     }
 
@@ -627,17 +822,20 @@ public class ExpenseGUI {
      * Updates the pie chart with current expense data
      */
     private void updateChart() {
+        long version = manager.getVersion();
+        if (version == chartVersion) {
+            return; // Nothing changed since the chart was drawn
+        }
+        chartVersion = version;
         expenseData.clear();
         
-        // Calculate totals by category
-        for (Expense expense : manager.getExpenses()) {
-            ExpenseCategory category = expense.getCategory();
-            expenseData.put(category, expenseData.getOrDefault(category, 0.0) + expense.getAmount());
-        }
+        // Category totals are kept up to date by the manager, no need to walk the expenses
+        expenseData.putAll(manager.getCategoryTotals());
         
         // Update the pie chart
         pieChartPanel.updateData(expenseData);
         pieChartPanel.repaint();
+        timeSeriesPanel.refresh();
     }
 
     /**
@@ -659,27 +857,473 @@ public class ExpenseGUI {
         chartFrame.setVisible(true);
     }
 
+    // ========== BACKGROUND TASKS ==========
+
+    /**
+     * Creates the status bar that shows the progress of background tasks; hidden while idle
+     */
+    private JPanel createStatusBar() {
+        statusBar = new JPanel(new BorderLayout(10, 0));
+        statusBar.setBackground(CARD_COLOR);
+        statusBar.setBorder(BorderFactory.createEmptyBorder(5, 20, 5, 20));
+
+        statusLabel = new JLabel();
+        statusLabel.setFont(BODY_FONT);
+        statusLabel.setForeground(TEXT_COLOR);
+        statusBar.add(statusLabel, BorderLayout.WEST);
+
+        progressBar = new JProgressBar(0, 100);
+        progressBar.setStringPainted(true);
+        statusBar.add(progressBar, BorderLayout.CENTER);
+
+        cancelButton = new JButton("Cancel");
+        cancelButton.setFont(BUTTON_FONT);
+        cancelButton.addActionListener(e -> {
+            if (currentTask != null) {
+                currentTask.cancel(true);
+            }
+        });
+        statusBar.add(cancelButton, BorderLayout.EAST);
+
+        statusBar.setVisible(false);
+        return statusBar;
+    }
+
+    /**
+     * Runs a ledger operation off the event dispatch thread, then shows the result in the table
+     * 
+     * @param status The text shown while the task runs
+     * @param operation The manager call, e.g. a load or a sort; given a callback that takes the share
+     *                  done, from 0 to 1, to fill the progress bar, which stays indeterminate until then
+     * @param successMessage Shown when the operation and the table refresh finished
+     */
+    private void runInBackground(String status, Consumer<DoubleConsumer> operation, String successMessage) {
+        startTask(new LedgerTask(operation, searchText, tableModel.getSnapshot().getSortSpec(), successMessage), status, true);
+    }
+
+    /**
+     * Sorts the table's view on a worker thread; the ledger's own order, and so the saved file, stay as they are
+     */
+    private void sortInBackground(SortSpec order) {
+        startTask(new LedgerTask(progress -> { }, searchText, order, null), "🔄 Sorting expenses...", true);
+    }
+
+    /**
+     * Saves on the background saver thread and reports the outcome; a save cannot be cancelled
+     * halfway, since the snapshot file is replaced atomically once it is written
+     */
+    private void saveInBackground() {
+        startTask(new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() {
+                manager.saveSnapshot("Expenses.dat");
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                finishTask();
+                try {
+                    get();
+                    showMessage("✅ Expenses saved successfully!", SUCCESS_COLOR);
+                } catch (InterruptedException | ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    if (cause.getCause() != null) {
+                        cause = cause.getCause(); // saveSnapshot wraps the I/O error
+                    }
+                    showMessage("❌ Error saving expenses: " + cause.getMessage(), ERROR_COLOR);
+                }
+            }
+        }, "💾 Saving expenses...", false);
+    }
+
+    private void startTask(SwingWorker<?, ?> task, String status, boolean cancellable) {
+        if (currentTask != null) {
+            return; // Menu items are disabled meanwhile, so this only guards against double clicks
+        }
+        currentTask = task;
+        for (JMenuItem item : taskItems) {
+            item.setEnabled(false);
+        }
+        statusLabel.setText(status);
+        progressBar.setIndeterminate(true);
+        progressBar.setString("");
+        cancelButton.setEnabled(cancellable);
+        statusBar.setVisible(true);
+        mainFrame.revalidate();
+
+        task.addPropertyChangeListener(event -> {
+            if ("progress".equals(event.getPropertyName()) && task == currentTask) {
+                progressBar.setIndeterminate(false);
+                progressBar.setValue((Integer) event.getNewValue());
+                progressBar.setString(event.getNewValue() + "%");
+            }
+        });
+        task.execute();
+    }
+
+    /**
+     * Re-enables the menu items once the current task's worker thread has returned
+     */
+    private void finishTask() {
+        currentTask = null;
+        for (JMenuItem item : taskItems) {
+            item.setEnabled(true);
+        }
+        statusBar.setVisible(false);
+        mainFrame.revalidate();
+    }
+
+    /**
+     * Runs one manager operation on a worker thread and publishes the resulting snapshot there too,
+     * searched and sorted like the table, so the event dispatch thread only swaps the table over to it
+     * Cancelling abandons a load that is still parsing; an operation that already changed the
+     * ledger stays applied and the table catches up on its next refresh
+     * A cancelled task only ends once its worker thread has returned, so no second task can start
+     * while the first may still be changing the ledger
+     */
+    private class LedgerTask extends SwingWorker<ExpenseSnapshot, Void> {
+        private final Consumer<DoubleConsumer> operation;
+        private final String search;  // "" for all expenses
+        private final SortSpec order; // null for ledger order
+        private final String successMessage;
+
+        // Both only touched on the event dispatch thread; the task ends once both are set
+        private boolean returned;
+        private boolean cancelDone;
+
+        LedgerTask(Consumer<DoubleConsumer> operation, String search, SortSpec order, String successMessage) {
+            this.operation = operation;
+            this.search = search;
+            this.order = order;
+            this.successMessage = successMessage;
+        }
+
+        @Override
+        protected ExpenseSnapshot doInBackground() {
+            try {
+                operation.accept(fraction -> setProgress((int) Math.min(100, Math.round(fraction * 100))));
+                return tableView(search, order);
+            } finally {
+                SwingUtilities.invokeLater(this::workerReturned);
+            }
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled()) {
+                // done() runs as soon as cancel is called, while the operation may still be running
+                cancelDone = true;
+                if (returned) {
+                    finishCancelled();
+                } else {
+                    statusLabel.setText("⏳ Cancelling...");
+                    cancelButton.setEnabled(false);
+                }
+                return;
+            }
+            finishTask();
+            try {
+                ExpenseSnapshot expenses = get();
+                if (search.equals(searchText)) {
+                    showSnapshot(expenses);
+                } else {
+                    // The search changed while the task ran; show the result under the current one
+                    tableModel.setSnapshot(tableView(searchText, expenses.getSortSpec()));
+                    updateSearchStatus();
+                }
+                updateChart();
+                if (successMessage != null) {
+                    showMessage(successMessage, SUCCESS_COLOR);
+                }
+            } catch (InterruptedException | ExecutionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                showMessage("❌ Error: " + cause.getMessage(), ERROR_COLOR);
+            }
+        }
+
+        private void workerReturned() {
+            returned = true;
+            if (cancelDone) {
+                finishCancelled();
+            }
+        }
+
+        private void finishCancelled() {
+            finishTask();
+            showMessage("⚠️ Operation cancelled.", ERROR_COLOR);
+        }
+    }
+
+    // ========== TIME SERIES PANEL ==========
+    
+    /**
+     * Bar chart of spending over time, read from the manager's pre-aggregated buckets
+     * The resolution (day, week, month or year) is the finest that gives every bar at least
+     * MIN_BAR_WIDTH pixels, so drawing costs O(width) however many expenses there are.
+     * Scroll to zoom around the pointer, drag to pan, double-click to show everything again
+     */
+    private class TimeSeriesPanel extends JPanel {
+        private static final long serialVersionUID = 1L;
+
+        private static final int MIN_BAR_WIDTH = 3;
+        private static final int MIN_VISIBLE_DAYS = 7;
+        private static final int MAX_VISIBLE_DAYS = 100 * 366;
+        private static final double ZOOM_STEP = 1.25;
+
+        private static final int LEFT_MARGIN = 70;
+        private static final int RIGHT_MARGIN = 10;
+        private static final int TOP_MARGIN = 15;
+        private static final int BOTTOM_MARGIN = 25;
+
+        private ExpenseCategory category; // null for all categories
+        private boolean showAll = true;   // Follows everything recorded until the user zooms or pans
+        private int fromDay;
+        private int toDay;
+        private SpendingSeries series;
+        private int dragX;
+
+        public TimeSeriesPanel() {
+            setBackground(CARD_COLOR);
+            setToolTipText("Scroll to zoom, drag to pan, double-click to show all dates");
+
+            java.awt.event.MouseAdapter mouse = new java.awt.event.MouseAdapter() {
+                @Override
+                public void mouseWheelMoved(java.awt.event.MouseWheelEvent e) {
+                    zoom(e.getX(), Math.pow(ZOOM_STEP, e.getPreciseWheelRotation()));
+                }
+
+                @Override
+                public void mousePressed(java.awt.event.MouseEvent e) {
+                    dragX = e.getX();
+                }
+
+                @Override
+                public void mouseDragged(java.awt.event.MouseEvent e) {
+                    int days = (int) Math.round((double) (dragX - e.getX()) * visibleDays() / plotWidth());
+                    if (days != 0 && hasData()) {
+                        dragX = e.getX();
+                        showRange(fromDay + days, toDay + days);
+                    }
+                }
+
+                @Override
+                public void mouseClicked(java.awt.event.MouseEvent e) {
+                    if (e.getClickCount() == 2) {
+                        showAll = true;
+                        refresh();
+                    }
+                }
+            };
+            addMouseListener(mouse);
+            addMouseMotionListener(mouse);
+            addMouseWheelListener(mouse);
+            addComponentListener(new java.awt.event.ComponentAdapter() {
+                @Override
+                public void componentResized(java.awt.event.ComponentEvent e) {
+                    refresh(); // The bar count follows the width
+                }
+            });
+        }
+
+        public void setCategory(ExpenseCategory category) {
+            this.category = category;
+            refresh();
+        }
+
+        /**
+         * Reads the visible range again, after a change of the expenses, the range or the size
+         */
+        public void refresh() {
+            int maxBuckets = Math.max(1, plotWidth() / MIN_BAR_WIDTH);
+            if (showAll) {
+                series = manager.getSpendingSeries(category, maxBuckets);
+                fromDay = series.getFirstDay();
+                toDay = series.getLastDay();
+            } else {
+                series = manager.getSpendingSeries(category, fromDay, toDay, maxBuckets);
+            }
+            repaint();
+        }
+
+        private void zoom(int x, double factor) {
+            if (!hasData()) {
+                return;
+            }
+            int anchor = dayAt(x);
+            double days = Math.max(MIN_VISIBLE_DAYS, Math.min(MAX_VISIBLE_DAYS, visibleDays() * factor));
+            double share = (double) (anchor - fromDay) / visibleDays(); // Keeps the day under the pointer in place
+            int from = (int) Math.round(anchor - share * days);
+            showRange(from, from + (int) Math.round(days) - 1);
+        }
+
+        private void showRange(int from, int to) {
+            showAll = false;
+            fromDay = from;
+            toDay = to;
+            refresh();
+        }
+
+        private boolean hasData() {
+            return series != null && fromDay <= toDay;
+        }
+
+        private int visibleDays() {
+            return toDay - fromDay + 1;
+        }
+
+        private int plotWidth() {
+            return Math.max(1, getWidth() - LEFT_MARGIN - RIGHT_MARGIN);
+        }
+
+        private int dayAt(int x) {
+            return fromDay + (int) ((long) (x - LEFT_MARGIN) * visibleDays() / plotWidth());
+        }
+
+        private double xOf(int day) {
+            return LEFT_MARGIN + (double) (day - fromDay) * plotWidth() / visibleDays();
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            super.paintComponent(g);
+            if (series == null) {
+                refresh();
+            }
+            Graphics2D g2 = (Graphics2D) g;
+            g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            if (!hasData()) {
+                g2.setFont(HEADER_FONT);
+                g2.setColor(TEXT_COLOR);
+                g2.drawString("No expense data to display", LEFT_MARGIN, 80);
+                return;
+            }
+
+            int plotHeight = Math.max(1, getHeight() - TOP_MARGIN - BOTTOM_MARGIN);
+            int baseline = TOP_MARGIN + plotHeight;
+            double max = series.getMaxAmount();
+
+            // One bar per bucket, clipped to the visible range
+            g2.setColor(PRIMARY_COLOR);
+            for (int i = 0; i < series.size(); i++) {
+                double amount = series.getAmount(i);
+                if (amount <= 0) {
+                    continue;
+                }
+                double left = xOf(Math.max(series.getStartDay(i), fromDay));
+                double right = xOf(Math.min(series.getEndDay(i), toDay) + 1);
+                int height = (int) Math.round(amount / max * plotHeight);
+                g2.fillRect((int) left, baseline - height, Math.max(1, (int) right - (int) left - 1), height);
+            }
+
+            // Axes and labels
+            g2.setColor(TEXT_COLOR);
+            g2.drawLine(LEFT_MARGIN, TOP_MARGIN, LEFT_MARGIN, baseline);
+            g2.drawLine(LEFT_MARGIN, baseline, getWidth() - RIGHT_MARGIN, baseline);
+            g2.setFont(BODY_FONT);
+            FontMetrics metrics = g2.getFontMetrics();
+            String top = shortAmount(max);
+            g2.drawString(top, LEFT_MARGIN - 5 - metrics.stringWidth(top), TOP_MARGIN + metrics.getAscent());
+            g2.drawString("$0", LEFT_MARGIN - 5 - metrics.stringWidth("$0"), baseline);
+            int labelY = baseline + metrics.getAscent() + 5;
+            g2.drawString(ExpenseDates.format(fromDay), LEFT_MARGIN, labelY);
+            String last = ExpenseDates.format(toDay);
+            g2.drawString(last, getWidth() - RIGHT_MARGIN - metrics.stringWidth(last), labelY);
+            String resolution = "per " + series.getResolution().name().toLowerCase();
+            g2.drawString(resolution, LEFT_MARGIN + (plotWidth() - metrics.stringWidth(resolution)) / 2, labelY);
+        }
+
+        /**
+         * Formats an axis amount so that it fits the margin, e.g. $950, $12k or $1.3M
+         */
+        private String shortAmount(double amount) {
+            if (amount >= 1_000_000) {
+                return String.format("$%.1fM", amount / 1_000_000);
+            }
+            if (amount >= 10_000) {
+                return String.format("$%.0fk", amount / 1_000);
+            }
+            return String.format("$%.0f", amount);
+        }
+    }
+
     // ========== PIE CHART PANEL ==========
     
     /**
      * Modern PieChartPanel for displaying expense distribution
      */
     private class PieChartPanel extends JPanel {
+        // Slices at most; the smallest categories beyond that are merged into "Other", so every slice keeps its own color
+        private static final int MAX_SLICES = 8;
+
+        // Categories below this share of the total are merged into "Other" as well
+        private static final double MIN_SLICE_FRACTION = 0.02;
+
+        // Modern color palette
+        private final Color[] colors = {
+            new Color(52, 152, 219),   // Blue
+            new Color(46, 204, 113),   // Green
+            new Color(155, 89, 182),   // Purple
+            new Color(241, 196, 15),   // Yellow
+            new Color(231, 76, 60),    // Red
+            new Color(230, 126, 34),   // Orange
+            new Color(26, 188, 156),   // Teal
+            new Color(142, 68, 173)    // Dark Purple
+        };
+
         private Map<ExpenseCategory, Double> expenseData;
 
+        // The chart as last drawn; repaints from scrolling or hovering just copy it. Rebuilt when
+        // the data changes (dirty) or the panel's size or screen scale no longer matches it
+        private BufferedImage chartImage;
+        private boolean dirty = true;
+
         public PieChartPanel() {
             this.expenseData = new HashMap<>();
             setBackground(CARD_COLOR);
         }
 
         public void updateData(Map<ExpenseCategory, Double> data) {
+            if (data.equals(expenseData)) {
+                return; // Same totals, the cached image still shows them
+            }
             this.expenseData = new HashMap<>(data);
+            dirty = true;
         }
 
         @Override
         protected void paintComponent(Graphics g) {
             super.paintComponent(g);
-            drawPieChart((Graphics2D) g);
+            if (getWidth() <= 0 || getHeight() <= 0) {
+                return;
+            }
+
+            // Render at device resolution so the copy stays sharp on scaled (HiDPI) screens
+            AffineTransform deviceTransform = ((Graphics2D) g).getTransform();
+            int imageWidth = (int) Math.ceil(getWidth() * deviceTransform.getScaleX());
+            int imageHeight = (int) Math.ceil(getHeight() * deviceTransform.getScaleY());
+            if (dirty || chartImage == null
+                    || chartImage.getWidth() != imageWidth || chartImage.getHeight() != imageHeight) {
+                chartImage = renderChart(imageWidth, imageHeight, deviceTransform.getScaleX(), deviceTransform.getScaleY());
+                dirty = false;
+            }
+            g.drawImage(chartImage, 0, 0, getWidth(), getHeight(), null);
+        }
+
+        private BufferedImage renderChart(int imageWidth, int imageHeight, double scaleX, double scaleY) {
+            BufferedImage image = new BufferedImage(imageWidth, imageHeight, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g2 = image.createGraphics();
+            try {
+                g2.setColor(getBackground());
+                g2.fillRect(0, 0, imageWidth, imageHeight);
+                g2.scale(scaleX, scaleY);
+                g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+                drawPieChart(g2);
+            } finally {
+                g2.dispose();
+            }
+            return image;
         }
 
         private void drawPieChart(Graphics2D g2) {
@@ -691,30 +1335,18 @@ public class ExpenseGUI {
                 return;
             }
 
-            // Modern color palette
-            Color[] colors = {
-                new Color(52, 152, 219),   // Blue
-                new Color(46, 204, 113),   // Green
-                new Color(155, 89, 182),   // Purple
-                new Color(241, 196, 15),   // Yellow
-                new Color(231, 76, 60),    // Red
-                new Color(230, 126, 34),   // Orange
-                new Color(26, 188, 156),   // Teal
-                new Color(142, 68, 173)    // Dark Purple
-            };
-
             // Pie chart variables
             int x = 50;
             int y = 20;
             int width = 200;
             int height = 200;
-            int startAngle = 0;
+            double startAngle = 0;
             int colorIndex = 0;
 
-            // Draw pie chart
-            for (Map.Entry<ExpenseCategory, Double> entry : expenseData.entrySet()) {
-                double value = entry.getValue();
-                int arcAngle = (int) Math.round((value / total) * 360);
+            // Draw pie chart, largest slice first
+            for (Map.Entry<String, Double> slice : slices(total)) {
+                double value = slice.getValue();
+                double arcAngle = (value / total) * 360;
                 
                 g2.setColor(colors[colorIndex % colors.length]);
                 g2.fill(new Arc2D.Double(x, y, width, height, startAngle, arcAngle, Arc2D.PIE));
@@ -724,7 +1356,7 @@ public class ExpenseGUI {
                 g2.fillRect(300, legendY, 15, 15);
                 g2.setColor(TEXT_COLOR);
                 g2.setFont(BODY_FONT);
-                g2.drawString(entry.getKey().name() + ": $" + String.format("%.2f", value), 320, legendY + 12);
+                g2.drawString(slice.getKey() + ": $" + String.format("%.2f", value), 320, legendY + 12);
                 
                 startAngle += arcAngle;
                 colorIndex++;
@@ -735,5 +1367,35 @@ public class ExpenseGUI {
             g2.setColor(TEXT_COLOR);
             g2.drawString("Total: $" + String.format("%.2f", total), 50, 250);
         }
+
+        /**
+         * Orders the categories by amount and merges the tail into one "Other" slice: everything
+         * below MIN_SLICE_FRACTION of the total, and whatever does not fit into MAX_SLICES
+         * The OTHER category always goes into that slice, so the chart never shows two of them
+         */
+        private List<Map.Entry<String, Double>> slices(double total) {
+            List<Map.Entry<ExpenseCategory, Double>> categories = new ArrayList<>(expenseData.entrySet());
+            categories.removeIf(category -> category.getKey() == ExpenseCategory.OTHER);
+            categories.sort(Map.Entry.<ExpenseCategory, Double>comparingByValue().reversed());
+
+            List<Map.Entry<String, Double>> slices = new ArrayList<>(MAX_SLICES);
+            double other = expenseData.getOrDefault(ExpenseCategory.OTHER, 0.0);
+            boolean merging = false;
+            for (int i = 0; i < categories.size(); i++) {
+                Map.Entry<ExpenseCategory, Double> category = categories.get(i);
+                // The last category may take the slot of "Other" when there is nothing to merge
+                boolean fits = slices.size() < MAX_SLICES - 1 || (i == categories.size() - 1 && other == 0);
+                if (fits && !merging && category.getValue() >= total * MIN_SLICE_FRACTION) {
+                    slices.add(Map.entry(category.getKey().name(), category.getValue()));
+                } else {
+                    merging = true;
+                    other += category.getValue();
+                }
+            }
+            if (other > 0) {
+                slices.add(Map.entry("Other", other));
+            }
+            return slices;
+        }
     }
 }
\ No newline at end of file
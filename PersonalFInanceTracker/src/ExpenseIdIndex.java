@@ -0,0 +1,138 @@
+import java.util.Arrays;
+
+/**
+ * Hash index from expense ID to its row in the ExpenseStore.
+ *
+ * Open addressing with linear probing over two parallel primitive arrays,
+ * so there is no boxing and no entry object per expense. ID 0 is never
+ * assigned and marks an empty slot. Removal shifts the following entries of
+ * the probe run back instead of leaving deleted markers, so lookups never
+ * slow down after many removals.
+ */
+final class ExpenseIdIndex {
+
+    static final int MISSING = -1;
+
+    private static final int INITIAL_CAPACITY = 16; // Power of two
+    private static final long EMPTY = 0;
+
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private int[] rows = new int[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Gets the row of an ID
+     *
+     * @return The row, or MISSING if the ID is not indexed
+     */
+    int get(long id) {
+        int mask = keys.length - 1;
+        for (int slot = slotOf(id, mask); ; slot = (slot + 1) & mask) {
+            long key = keys[slot];
+            if (key == id) {
+                return rows[slot];
+            }
+            if (key == EMPTY) {
+                return MISSING;
+            }
+        }
+    }
+
+    /**
+     * Maps an ID to a row, replacing any previous row
+     */
+    void put(long id, int row) {
+        if (id == EMPTY) {
+            throw new IllegalArgumentException("Expense ID 0 is reserved");
+        }
+        if ((size + 1) * 4L > keys.length * 3L) {
+            resize(keys.length * 2);
+        }
+        int mask = keys.length - 1;
+        int slot = slotOf(id, mask);
+        while (keys[slot] != EMPTY && keys[slot] != id) {
+            slot = (slot + 1) & mask;
+        }
+        if (keys[slot] == EMPTY) {
+            keys[slot] = id;
+            size++;
+        }
+        rows[slot] = row;
+    }
+
+    /**
+     * Forgets an ID
+     *
+     * @return The row it was mapped to, or MISSING if it was not indexed
+     */
+    int remove(long id) {
+        int mask = keys.length - 1;
+        int slot = slotOf(id, mask);
+        while (keys[slot] != id) {
+            if (keys[slot] == EMPTY) {
+                return MISSING;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int row = rows[slot];
+
+        // Shift later entries of the run back so that no lookup stops early at the hole
+        int hole = slot;
+        for (int next = (hole + 1) & mask; keys[next] != EMPTY; next = (next + 1) & mask) {
+            int home = slotOf(keys[next], mask);
+            boolean movable = hole <= next ? (home <= hole || home > next) : (home <= hole && home > next);
+            if (movable) {
+                keys[hole] = keys[next];
+                rows[hole] = rows[next];
+                hole = next;
+            }
+        }
+        keys[hole] = EMPTY;
+        size--;
+        return row;
+    }
+
+    /**
+     * Drops every entry and sizes the table for the given number of IDs
+     */
+    void clear(int expected) {
+        int capacity = INITIAL_CAPACITY;
+        while (capacity * 3L < expected * 4L) {
+            capacity <<= 1;
+        }
+        if (capacity == keys.length) {
+            Arrays.fill(keys, EMPTY);
+        } else {
+            keys = new long[capacity];
+            rows = new int[capacity];
+        }
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldRows = rows;
+        keys = new long[capacity];
+        rows = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slotOf(oldKeys[i], mask);
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                rows[slot] = oldRows[i];
+            }
+        }
+    }
+
+    private static int slotOf(long id, int mask) {
+        long hash = id * 0x9E3779B97F4A7C15L; // Fibonacci hashing spreads sequential IDs
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
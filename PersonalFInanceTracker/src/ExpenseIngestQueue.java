@@ -0,0 +1,203 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Multi-producer queue that feeds expenses into an ExpenseManager in batches
+ * Producers such as bank-feed importers only append to a lock-free queue, so they never wait
+ * for each other or for the manager. One background thread drains the queue and hands each
+ * batch to ExpenseManager.addExpenses, which takes the manager's lock once per batch
+ */
+public class ExpenseIngestQueue implements AutoCloseable {
+
+    // Expenses handed to the manager per addExpenses call
+    public static final int DEFAULT_BATCH_SIZE = 8192;
+
+    // A partly filled batch is drained after at most this long
+    private static final long MAX_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+
+    private final ExpenseManager manager;
+    private final int batchSize;
+    private final ConcurrentLinkedQueue<Expense> queue = new ConcurrentLinkedQueue<>();
+    private final Thread drainer;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private volatile long processed; // Added or rejected; written by the drainer thread only
+    private volatile long added;
+    private volatile long rejected;
+    private volatile boolean closed;
+
+    // Flushing threads wait on this until the drainer has caught up with them
+    private final Object progress = new Object();
+
+    /**
+     * Creates a queue with the default batch size and starts its drainer thread
+     *
+     * @param manager The manager the expenses are added to
+     */
+    public ExpenseIngestQueue(ExpenseManager manager) {
+        this(manager, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Creates a queue and starts its drainer thread
+     *
+     * @param manager The manager the expenses are added to
+     * @param batchSize The largest number of expenses added in one step
+     * @throws IllegalArgumentException if manager is null or batchSize is not positive
+     */
+    public ExpenseIngestQueue(ExpenseManager manager, int batchSize) {
+        if (manager == null) {
+            throw new IllegalArgumentException("Manager cannot be null");
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.manager = manager;
+        this.batchSize = batchSize;
+        this.drainer = new Thread(this::drain, "expense-ingest");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    /**
+     * Queues one expense; never blocks, except that a submit racing close adds its expense itself
+     * The expense must not be changed afterwards, since it is read when its batch is drained
+     *
+     * @param expense The expense to add (cannot be null)
+     * @throws IllegalArgumentException if expense is null
+     * @throws IllegalStateException if the queue has been closed
+     */
+    public void submit(Expense expense) {
+        if (expense == null) {
+            throw new IllegalArgumentException("Expense cannot be null");
+        }
+        if (closed) {
+            throw new IllegalStateException("Ingest queue is closed");
+        }
+        queue.offer(expense);
+        if (submitted.incrementAndGet() - processed == batchSize) {
+            LockSupport.unpark(drainer); // A full batch is waiting
+        }
+        if (closed && !drainer.isAlive()) {
+            // Closed between the check above and the offer, and close may already have emptied the queue
+            drainRemaining();
+        }
+    }
+
+    /**
+     * Waits until every expense submitted before this call has been added or rejected
+     * Returns early if the calling thread is interrupted, leaving its interrupt flag set
+     */
+    public void flush() {
+        long target = submitted.get();
+        LockSupport.unpark(drainer);
+        synchronized (progress) {
+            while (processed < target && drainer.isAlive()) {
+                try {
+                    progress.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops accepting expenses, adds the ones still queued and stops the drainer thread
+     * Call once all producers are done; a submit racing the close is either added or fails
+     * with IllegalStateException, never lost
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(drainer);
+        try {
+            drainer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return; // The drainer is still running and will empty the queue itself
+        }
+        // A producer that saw the queue open may have offered after the drainer's last poll
+        drainRemaining();
+    }
+
+    /**
+     * @return The number of expenses added to the manager so far
+     */
+    public long getAddedCount() {
+        return added;
+    }
+
+    /**
+     * @return The number of expenses whose batch failed to be added
+     */
+    public long getRejectedCount() {
+        return rejected;
+    }
+
+    /**
+     * @return The number of submitted expenses not yet added or rejected
+     */
+    public long getPendingCount() {
+        return submitted.get() - processed;
+    }
+
+    private void drain() {
+        List<Expense> batch = new ArrayList<>(batchSize);
+        while (true) {
+            boolean stopping = closed; // Read before polling, so nothing submitted before close is left behind
+            Expense expense;
+            while (batch.size() < batchSize && (expense = queue.poll()) != null) {
+                batch.add(expense);
+            }
+            if (!batch.isEmpty()) {
+                addBatch(batch);
+                batch.clear();
+            } else if (stopping) {
+                break;
+            } else {
+                LockSupport.parkNanos(this, MAX_DELAY_NANOS);
+            }
+        }
+        synchronized (progress) {
+            progress.notifyAll(); // Nobody is left to wake flushing threads
+        }
+    }
+
+    /**
+     * Adds whatever producers racing close offered after the drainer stopped
+     * Both close and late producers call this, so the queue is emptied under the progress lock
+     */
+    private void drainRemaining() {
+        synchronized (progress) {
+            List<Expense> batch = new ArrayList<>();
+            Expense expense;
+            while ((expense = queue.poll()) != null) {
+                batch.add(expense);
+                if (batch.size() == batchSize || queue.isEmpty()) {
+                    addBatch(batch);
+                    batch.clear();
+                }
+            }
+        }
+    }
+
+    private void addBatch(List<Expense> batch) {
+        try {
+            manager.addExpenses(batch);
+            added += batch.size();
+        } catch (RuntimeException e) {
+            System.err.println("❌ Error adding " + batch.size() + " queued expenses: " + e.getMessage());
+            rejected += batch.size();
+        }
+        synchronized (progress) {
+            processed += batch.size();
+            progress.notifyAll();
+        }
+    }
+}
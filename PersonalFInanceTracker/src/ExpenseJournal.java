@@ -0,0 +1,357 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.DoubleConsumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of the changes made since the last snapshot of the ledger.
+ *
+ * The journal lives next to the snapshot file (Expenses.csv ->
+ * Expenses.csv.journal). Its first line names the snapshot it extends, by
+ * size and CRC32C; every following line is one record: an add or a remove
+ * carrying the row's fields, a clear, or a sort. Appending a record costs
+ * the size of that record, not the size of the ledger.
+ *
+ * Compaction runs in the background while records keep arriving. The new
+ * snapshot is written from a copy of the ledger; then the records appended
+ * since that copy are carried over into Expenses.csv.journal.next, headed by
+ * the new snapshot's token, before the snapshot is renamed into place and
+ * the next journal replaces the current one. If the process dies between
+ * the two renames, replay finds the next journal matching the snapshot and
+ * promotes it; if it dies before the snapshot rename, the next journal is
+ * stale and deleted. A record cut short by a crash is detected by its
+ * missing line terminator and dropped.
+ *
+ * Opening takes two steps, so that the ledger can read the journal without
+ * holding its lock: read() only reads, and open() then settles the files on
+ * disk and starts appending.
+ */
+class ExpenseJournal implements Closeable {
+
+    static final String SUFFIX = ".journal";
+    private static final String NEXT_SUFFIX = ".next";
+    private static final String HEADER_PREFIX = "# snapshot ";
+    private static final int PROGRESS_LINES = 1 << 16; // Records read between progress reports
+
+    /**
+     * Applies one replayed record; fields[0] is the record type
+     */
+    interface RecordHandler {
+        void apply(String[] fields);
+    }
+
+    private final Path snapshotFile;
+    private final Path journalFile;
+    private final Path nextFile;
+    private BufferedWriter writer;
+    private int records;
+
+    // What read() found, for open() to settle on disk
+    private boolean matched;
+    private boolean promoteNext;
+    private boolean tornTail;
+
+    /**
+     * Creates a journal for the given snapshot file; nothing is opened yet
+     *
+     * @param snapshotFile The snapshot the journal extends
+     */
+    ExpenseJournal(Path snapshotFile) {
+        this.snapshotFile = snapshotFile;
+        this.journalFile = snapshotFile.resolveSibling(snapshotFile.getFileName() + SUFFIX);
+        this.nextFile = journalFile.resolveSibling(journalFile.getFileName() + NEXT_SUFFIX);
+    }
+
+    Path getSnapshotFile() {
+        return snapshotFile;
+    }
+
+    /**
+     * Gets the number of records written since the last snapshot
+     * @return The record count
+     */
+    int getRecordCount() {
+        return records;
+    }
+
+    /**
+     * Reads the journal if it belongs to the current snapshot, without changing any file
+     * A next journal left by an interrupted compaction is read instead if it matches the snapshot,
+     * and a last record without line terminator is left out; open() settles both on disk
+     *
+     * @param handler Applies each record
+     * @param progress Receives the share of the journal read, from 0 to 1
+     * @return true if a journal matched the snapshot and was read, false if it was missing or stale
+     * @throws IOException if the journal cannot be read
+     */
+    boolean read(RecordHandler handler, DoubleConsumer progress) throws IOException {
+        String expectedHeader = HEADER_PREFIX + snapshotToken(snapshotFile);
+        // A compaction may have renamed its snapshot but not its journal before the process stopped
+        promoteNext = Files.exists(nextFile) && expectedHeader.equals(readHeader(nextFile));
+        Path file = promoteNext ? nextFile : journalFile;
+        matched = false;
+        records = 0;
+        if (!Files.exists(file)) {
+            return false;
+        }
+
+        tornTail = hasTornTail(file);
+        long size = Files.size(file);
+        long consumed = 0;
+        int lines = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String header = reader.readLine();
+            String line = reader.readLine();
+            if (!expectedHeader.equals(header) || (tornTail && line == null)) {
+                System.out.println("ℹ️ Journal " + journalFile + " belongs to an older snapshot. Ignoring it.");
+                return false;
+            }
+
+            // One line of lookahead, so that a torn last record is never applied
+            while (line != null) {
+                String next = reader.readLine();
+                if (next == null && tornTail) {
+                    break;
+                }
+                consumed += line.length() + 1;
+                if (!line.isEmpty()) {
+                    try {
+                        handler.apply(line.split(",", 6)); // The last field, the description, may contain commas
+                        records++;
+                    } catch (RuntimeException e) {
+                        System.err.println("⚠️ Skipping unreadable journal record: " + line + " (" + e.getMessage() + ")");
+                    }
+                }
+                if (++lines % PROGRESS_LINES == 0) {
+                    progress.accept(Math.min(1, (double) consumed / size));
+                }
+                line = next;
+            }
+        }
+        progress.accept(1);
+        matched = true;
+        return true;
+    }
+
+    /**
+     * Settles the files read() looked at and starts appending: after a successful read the next
+     * journal is promoted and an incomplete last record is cut off; otherwise a new, empty journal
+     * is started. Call with nobody else writing the journal or its snapshot
+     *
+     * @throws IOException if the journal cannot be moved, truncated or opened
+     */
+    void open() throws IOException {
+        if (Files.exists(nextFile)) {
+            if (promoteNext) {
+                Files.move(nextFile, journalFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } else {
+                Files.delete(nextFile);
+            }
+        }
+        if (!matched) {
+            reset();
+            return;
+        }
+        if (tornTail && dropTornTail()) {
+            System.err.println("⚠️ Dropped an incomplete journal record left by an interrupted write.");
+        }
+        openForAppend();
+    }
+
+    /**
+     * Continues appending to the existing journal after a successful replay
+     *
+     * @throws IOException if the journal cannot be opened
+     */
+    void openForAppend() throws IOException {
+        closeWriter();
+        writer = Files.newBufferedWriter(journalFile, StandardCharsets.UTF_8,
+                                         StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Starts an empty journal for the snapshot as it is on disk now
+     * Call after every snapshot write; the new journal replaces the old one atomically
+     *
+     * @throws IOException if the journal cannot be written
+     */
+    void reset() throws IOException {
+        closeWriter();
+        Path temp = journalFile.resolveSibling(journalFile.getFileName() + ".tmp");
+        String header = HEADER_PREFIX + snapshotToken(snapshotFile) + "\n";
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(ByteBuffer.wrap(header.getBytes(StandardCharsets.UTF_8)));
+            channel.force(true);
+        }
+        Files.move(temp, journalFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        records = 0;
+        openForAppend();
+    }
+
+    /**
+     * Gets the current length of the journal file, to mark where a snapshot copy was taken
+     *
+     * @return The journal length in bytes
+     * @throws IOException if the length cannot be read
+     */
+    long length() throws IOException {
+        return Files.size(journalFile);
+    }
+
+    /**
+     * Writes the journal that will follow a new snapshot: a header naming that snapshot and
+     * every record appended after the mark, forced to disk
+     * Call with no appends running, then rename the snapshot into place and call commitNext
+     *
+     * @param newSnapshotToken The snapshotToken of the new snapshot
+     * @param markOffset The journal length when the snapshot's copy of the ledger was taken
+     * @throws IOException if the next journal cannot be written
+     */
+    void prepareNext(String newSnapshotToken, long markOffset) throws IOException {
+        byte[] header = (HEADER_PREFIX + newSnapshotToken + "\n").getBytes(StandardCharsets.UTF_8);
+        try (FileChannel source = FileChannel.open(journalFile, StandardOpenOption.READ);
+             FileChannel target = FileChannel.open(nextFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                   StandardOpenOption.TRUNCATE_EXISTING)) {
+            target.write(ByteBuffer.wrap(header));
+            long position = markOffset;
+            long end = source.size();
+            while (position < end) {
+                position += source.transferTo(position, end - position, target);
+            }
+            target.force(true);
+        }
+    }
+
+    /**
+     * Replaces the journal with the one written by prepareNext
+     *
+     * @param recordsBeforeMark The record count when the snapshot's copy was taken; those records are in the snapshot now
+     * @throws IOException if the journal cannot be replaced
+     */
+    void commitNext(int recordsBeforeMark) throws IOException {
+        closeWriter();
+        Files.move(nextFile, journalFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        records -= recordsBeforeMark;
+        openForAppend();
+    }
+
+    /**
+     * Appends one record and hands it to the operating system
+     *
+     * @param record The comma-separated record, without line terminator
+     * @throws IOException if the record cannot be written
+     */
+    void append(String record) throws IOException {
+        if (writer == null) {
+            throw new IllegalStateException("Journal is not open");
+        }
+        writer.write(record);
+        writer.write('\n');
+        writer.flush();
+        records++;
+    }
+
+    /**
+     * Appends several records and hands them to the operating system together
+     *
+     * @param batch The comma-separated records, without line terminators
+     * @throws IOException if the records cannot be written
+     */
+    void appendAll(List<String> batch) throws IOException {
+        if (writer == null) {
+            throw new IllegalStateException("Journal is not open");
+        }
+        for (String record : batch) {
+            writer.write(record);
+            writer.write('\n');
+        }
+        writer.flush();
+        records += batch.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeWriter();
+    }
+
+    private void closeWriter() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+
+    private static String readHeader(Path file) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return reader.readLine();
+        }
+    }
+
+    /**
+     * @return Whether the last line of a file has no terminator
+     */
+    private static boolean hasTornTail(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer one = ByteBuffer.allocate(1);
+            return channel.size() > 0 && channel.read(one, channel.size() - 1) == 1 && one.get(0) != '\n';
+        }
+    }
+
+    /**
+     * Truncates a last line that has no terminator
+     *
+     * @return true if an incomplete record was removed
+     */
+    private boolean dropTornTail() throws IOException {
+        try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long end = channel.size();
+            ByteBuffer one = ByteBuffer.allocate(1);
+            long keep = end;
+            while (keep > 0) {
+                one.clear();
+                channel.read(one, keep - 1);
+                if (one.get(0) == '\n') {
+                    break;
+                }
+                keep--;
+            }
+            if (keep == end) {
+                return false;
+            }
+            channel.truncate(keep);
+            return true;
+        }
+    }
+
+    /**
+     * Identifies the snapshot contents by size and CRC32C
+     */
+    static String snapshotToken(Path snapshot) throws IOException {
+        if (!Files.exists(snapshot)) {
+            return "none";
+        }
+
+        CRC32C crc = new CRC32C();
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                long length = Math.min(1L << 30, size - position);
+                crc.update(channel.map(FileChannel.MapMode.READ_ONLY, position, length));
+                position += length;
+            }
+            return size + "-" + Long.toHexString(crc.getValue());
+        }
+    }
+}
@@ -1,22 +1,106 @@
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.DoubleConsumer;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
 
-public class ExpenseManager {
+public class ExpenseManager implements AutoCloseable {
 
-   
-    private List<Expense> expenses;
+    // Columnar storage; Expense objects are only built when a caller asks for them
+    private ExpenseStore store;
+
+    // Cumulative amounts by date, kept in step with the store for O(log n) range totals
+    private final DateRangeIndex dateIndex = new DateRangeIndex();
+
+    // Spending per day, week, month and year bucket, for time-series charts
+    private final SpendingPyramid spendingPyramid = new SpendingPyramid();
+
+    // Sum, count, minimum and maximum per month and category, for period reports; extremes lost to
+    // removals are refreshed by the next report, under its own monitor like descriptionIndex
+    private final RollupCube rollupCube = new RollupCube();
+
+    // Expense ID -> row, for O(1) lookup and removal by ID
+    private final ExpenseIdIndex idIndex = new ExpenseIdIndex();
+
+    // Trigram -> description dictionary ids, for substring search; catches up with the dictionary
+    // on each search, under its own monitor so that searches holding the read lock can share it
+    private final DescriptionIndex descriptionIndex = new DescriptionIndex();
+
+    // Running total (in cents) and count per category, indexed by ordinal
+    private final long[] categoryCents = new long[ExpenseCategory.values().length];
+    private final int[] categoryCounts = new int[ExpenseCategory.values().length];
+
+    // Guards the store, the indexes and the journal. Changes take the write lock, so they apply one at a
+    // time in a single order; scans take the read lock; O(1) aggregates read optimistically and only
+    // fall back to the read lock when a change got in between. The lock is not reentrant: public methods
+    // lock once and call the private helpers below, which expect the lock to be held
+    private final StampedLock lock = new StampedLock();
+
+    // Append-only log of changes since the last snapshot; null unless openJournal was called
+    private volatile ExpenseJournal journal;
+
+    // Bumped whenever the journal is replaced or reset, so a background compaction can tell that
+    // the journal position it marked no longer means anything
+    private long journalGeneration;
+    private boolean compactionQueued;
+
+    // Performs saves off the caller's thread; created on first use
+    private BackgroundSaver saver;
+
+    // Bumped by every change to the expenses; the snapshot handed out for the current version is kept
+    private long version;
+    private volatile ExpenseSnapshot snapshot;
+
+    // Whether successful adds, removes and clears are reported on System.out; errors are always reported
+    private volatile boolean verbose = true;
+
+    // Told about every change. Events are queued under the write lock, so the queue is in version
+    // order, and delivered after it is released by whichever changing thread gets to them first
+    private final List<ExpenseChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private final Queue<ExpenseChangeEvent> pendingChanges = new ConcurrentLinkedQueue<>();
+    private boolean dispatching; // Guarded by pendingChanges
+
+    // The journal is folded into a new snapshot once it has this many records and at least as many as the ledger has rows
+    private static final int MIN_COMPACTION_RECORDS = 10_000;
+
+    // Reads of the open journal that may be spoiled by changes before one is read under the write lock
+    private static final int MAX_JOURNAL_READS = 3;
+
+    // A description search looks its rows up by ID when they are fewer than one in this many; otherwise it scans
+    private static final int DESCRIPTION_LOOKUP_RATIO = 32;
 
    
     public ExpenseManager() {
-        this.expenses = new ArrayList<>();
+        this.store = new ExpenseStore();
     }
 
     // ========== EXPENSE MANAGEMENT METHODS ==========
@@ -28,31 +112,170 @@ public class ExpenseManager {
      * @param category The expense category 
      * @param date The expense date in dd-MM-yyyy format
      * @param description The expense description
+     * @return The ID of the new expense
      * @throws IllegalArgumentException if any parameter is invalid
      */
-    public void addExpense(double amount, ExpenseCategory category, String date, String description) {
+    public long addExpense(double amount, ExpenseCategory category, String date, String description) {
+        long id;
+        long stamp = lock.writeLock();
         try {
-            Expense newExpense = new Expense(amount, category, date, description);
-            expenses.add(newExpense);
-            System.out.println("✅ New expense added: $" + String.format("%.2f", amount) + 
-                             " for " + category + " on " + date);
+            id = store.add(amount, category, date, description);
+            indexLastRow();
+            journalRow("A", store.size() - 1);
+            version++;
+            queueAdded(store.size() - 1);
+            compactJournalIfDue();
         } catch (IllegalArgumentException e) {
             System.err.println("❌ Error adding expense: " + e.getMessage());
             throw e; // Re-throw to let caller handle
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        dispatchChanges();
+        if (verbose) {
+            System.out.println("✅ New expense added: $" + String.format("%.2f", amount) + 
+                             " for " + category + " on " + date);
         }
+        return id;
     }
 
     /**
      * Adds an existing expense object to the manager
      * 
+     * Only the field values are stored; later changes to the object are not seen by the manager
+     * 
      * @param expense The expense object to add (cannot be null)
-     * @throws IllegalArgumentException if expense is null
+     * @return The ID of the new expense; the ID carried by the object itself is ignored
+     * @throws IllegalArgumentException if expense is null or its date is not in dd-MM-yyyy format
+     */
+    public long addExpense(Expense expense) {
+        if (expense == null) {
+            throw new IllegalArgumentException("Expense cannot be null");
+        }
+        long id;
+        long stamp = lock.writeLock();
+        try {
+            id = store.add(expense);
+            indexLastRow();
+            journalRow("A", store.size() - 1);
+            version++;
+            queueAdded(store.size() - 1);
+            compactJournalIfDue();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        dispatchChanges();
+        return id;
+    }
+
+    /**
+     * Adds many expenses at once
+     * The expenses are copied into columns without the lock and appended in one step, so readers
+     * never see part of the batch and the cost per expense is a few array writes. Either all
+     * expenses are added or, if one of them is null, none
+     * 
+     * @param expenses The expenses to add, in order; later changes to the objects are not seen by the manager
+     * @return The number of expenses added; they get consecutive IDs in the given order
+     * @throws IllegalArgumentException if the collection or any of its expenses is null
+     */
+    public int addExpenses(Collection<? extends Expense> expenses) {
+        if (expenses == null) {
+            throw new IllegalArgumentException("Expenses cannot be null");
+        }
+        ExpenseStore batch = new ExpenseStore();
+        for (Expense expense : expenses) {
+            addToBatch(batch, expense);
+        }
+        return addBatch(batch);
+    }
+
+    /**
+     * Adds every expense of a stream at once, like addExpenses(Collection)
+     * 
+     * @param expenses The expenses to add, consumed in encounter order
+     * @return The number of expenses added
+     * @throws IllegalArgumentException if the stream or any of its expenses is null
      */
-    public void addExpense(Expense expense) {
+    public int addExpenses(Stream<? extends Expense> expenses) {
+        if (expenses == null) {
+            throw new IllegalArgumentException("Expenses cannot be null");
+        }
+        ExpenseStore batch = new ExpenseStore();
+        expenses.forEachOrdered(expense -> addToBatch(batch, expense));
+        return addBatch(batch);
+    }
+
+    private static void addToBatch(ExpenseStore batch, Expense expense) {
         if (expense == null) {
             throw new IllegalArgumentException("Expense cannot be null");
         }
-        expenses.add(expense);
+        batch.add(expense); // Already validated when the Expense was built
+    }
+
+    /**
+     * Appends a staged batch under the write lock and brings the indexes and the journal up to date
+     */
+    private int addBatch(ExpenseStore batch) {
+        int count = batch.size();
+        if (count == 0) {
+            return 0;
+        }
+
+        long stamp = lock.writeLock();
+        try {
+            appendBatches(Collections.singletonList(batch));
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        dispatchChanges();
+        if (verbose) {
+            System.out.println("✅ " + count + " expenses added.");
+        }
+        return count;
+    }
+
+    /**
+     * Appends staged batches in order, giving their rows consecutive new IDs, and brings the indexes
+     * and the journal up to date; the caller holds the write lock
+     */
+    private void appendBatches(List<ExpenseStore> batches) {
+        int count = 0;
+        for (ExpenseStore batch : batches) {
+            count += batch.liveCount();
+        }
+        if (count == 0) {
+            return;
+        }
+
+        int first = store.size();
+        boolean rebuild = count >= store.liveCount(); // One pass over everything beats count index updates
+        for (ExpenseStore batch : batches) {
+            store.appendAll(batch);
+        }
+        if (rebuild) {
+            rebuildIndexes(); // Squeezes out tombstones; the batches stay the last count rows
+            first = store.size() - count;
+        } else {
+            for (int row = first; row < store.size(); row++) {
+                indexRow(row);
+            }
+        }
+        journalRows("A", first, store.size());
+        version++;
+        if (!listeners.isEmpty()) {
+            // The staged rows are not needed any more, so they become the event's list under their new IDs
+            ExpenseStore added = batches.get(0);
+            if (batches.size() > 1) {
+                added = new ExpenseStore();
+                for (ExpenseStore batch : batches) {
+                    added.appendAll(batch);
+                }
+            }
+            added.renumber(store.id(store.size() - count) - 1);
+            pendingChanges.add(new ExpenseChangeEvent(ExpenseChangeEvent.Type.ADDED, version, store.liveCount() - count,
+                                                      count, new ExpenseSnapshot(added, version)));
+        }
+        compactJournalIfDue();
     }
 
     /**
@@ -65,52 +288,132 @@ public class ExpenseManager {
      * @return true if an expense was removed, false if no matching expense found
      */
     public boolean removeExpense(double amount, ExpenseCategory category, String date, String description) {
-        for (int i = 0; i < expenses.size(); i++) {
-            Expense e = expenses.get(i);
-            if (Double.compare(e.getAmount(), amount) == 0 &&
-                e.getCategory().equals(category) &&
-                e.getDate().equals(date) &&
-                e.getDescription().equals(description)) {
-                expenses.remove(i);
-                System.out.println("✅ Removed expense: " + e);
-                return true;
+        Expense removed = null;
+        if (category != null && date != null && description != null) {
+            long stamp = lock.writeLock();
+            try {
+                int row = store.find(Money.toCents(amount), category,
+                                     ExpenseDates.toEpochDay(date.trim()), Expense.normalizeDescription(description));
+                if (row >= 0) {
+                    removed = removeRow(row);
+                }
+            } catch (IllegalArgumentException e) {
+                removed = null; // An unparseable date cannot match a stored expense
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            dispatchChanges();
+        }
+
+        if (removed != null) {
+            if (verbose) {
+                System.out.println("✅ Removed expense: " + removed);
             }
+            return true;
         }
         System.out.println("❌ Expense not found.");
         return false;
     }
-    
+
+    /**
+     * Removes the expense with the given ID in O(1)
+     * The row is only marked as removed; the store squeezes such rows out once they pile up
+     * 
+     * @param id The ID returned by addExpense or carried by an Expense from getExpenses
+     * @return true if an expense was removed, false if no expense has that ID
+     */
+    public boolean removeExpense(long id) {
+        Expense removed = null;
+        long stamp = lock.writeLock();
+        try {
+            int row = idIndex.get(id);
+            if (row != ExpenseIdIndex.MISSING) {
+                removed = removeRow(row);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        dispatchChanges();
+
+        if (removed == null) {
+            System.out.println("❌ Expense not found.");
+            return false;
+        }
+        if (verbose) {
+            System.out.println("✅ Removed expense: " + removed);
+        }
+        return true;
+    }
+
+    /**
+     * Looks up an expense by ID in O(1)
+     * 
+     * @param id The expense ID
+     * @return A copy of the expense, or null if no expense has that ID
+     */
+    public Expense getExpenseById(long id) {
+        long stamp = lock.readLock();
+        try {
+            int row = idIndex.get(id);
+            return row == ExpenseIdIndex.MISSING ? null : store.get(row);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Removes one row and returns what it held; the caller holds the write lock
+     */
+    private Expense removeRow(int row) {
+        Expense removed = store.get(row);
+        int index = listeners.isEmpty() ? 0 : store.liveIndex(row);
+        journalRow("R", row);
+        unindexRow(row);
+        store.remove(row);
+        if (store.size() - store.liveCount() > store.liveCount()) {
+            compactStore(); // Mostly tombstones now; squeezing them out costs less than the removals did
+        }
+        version++;
+        queueChange(new ExpenseChangeEvent(ExpenseChangeEvent.Type.REMOVED, version, index, 1, List.of(removed)));
+        compactJournalIfDue();
+        return removed;
+    }
+
 
     // ========== EXPENSE ANALYSIS METHODS ==========
     
     /**
      * Calculates the total expenses within a specified date range
      * 
-     * @param startDate The start date in dd-MM-yyyy format
+     * @param startDate The start date in dd-MM-yyyy format; a day past the end of its month is clamped to the last day
      * @param endDate The end date in dd-MM-yyyy format
      * @return The total amount of expenses in the date range
      * @throws DateTimeParseException if date format is invalid
      */
     public double getTotalExpenses(String startDate, String endDate) {
         double total = 0;
-        DateTimeFormatter format = DateTimeFormatter.ofPattern("dd-MM-yyyy");
         
         try {
-            LocalDate start = LocalDate.parse(startDate, format);
-            LocalDate end = LocalDate.parse(endDate, format);
+            LocalDate start = LocalDate.parse(startDate, ExpenseDates.RANGE_FORMAT);
+            LocalDate end = LocalDate.parse(endDate, ExpenseDates.RANGE_FORMAT);
 
-            if (expenses == null || expenses.isEmpty()) {
-                System.out.println("ℹ️ No expenses available.");
-                return total;
+            boolean empty;
+            long cents = 0;
+            long stamp = lock.readLock();
+            try {
+                empty = store.liveCount() == 0;
+                if (!empty) {
+                    cents = dateIndex.totalCents((int) start.toEpochDay(), (int) end.toEpochDay());
+                }
+            } finally {
+                lock.unlockRead(stamp);
             }
 
-            for (Expense e : expenses) {
-                LocalDate expenseDate = LocalDate.parse(e.getDate(), format);
-                if ((expenseDate.isAfter(start) || expenseDate.isEqual(start)) && 
-                    (expenseDate.isBefore(end) || expenseDate.isEqual(end))) {
-                    total += e.getAmount();
-                }
+            if (empty) {
+                System.out.println("ℹ️ No expenses available.");
+                return total;
             }
+            total = Money.fromCents(cents);
         } catch (DateTimeParseException e) {
             System.err.println("❌ Invalid date format. Please use dd-MM-yyyy format.");
             throw e;
@@ -119,6 +422,36 @@ public class ExpenseManager {
         return total;
     }
 
+    /**
+     * Calculates the total expenses of one category within a specified date range
+     * 
+     * @param category The category to total
+     * @param startDate The start date in dd-MM-yyyy format; a day past the end of its month is clamped to the last day
+     * @param endDate The end date in dd-MM-yyyy format
+     * @return The total amount of that category's expenses in the date range
+     * @throws DateTimeParseException if date format is invalid
+     */
+    public double getTotalExpenses(ExpenseCategory category, String startDate, String endDate) {
+        if (category == null) {
+            throw new IllegalArgumentException("Category cannot be null");
+        }
+
+        try {
+            LocalDate start = LocalDate.parse(startDate, ExpenseDates.RANGE_FORMAT);
+            LocalDate end = LocalDate.parse(endDate, ExpenseDates.RANGE_FORMAT);
+            long stamp = lock.readLock();
+            try {
+                return Money.fromCents(dateIndex.totalCents(category.ordinal(),
+                                              (int) start.toEpochDay(), (int) end.toEpochDay()));
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        } catch (DateTimeParseException e) {
+            System.err.println("❌ Invalid date format. Please use dd-MM-yyyy format.");
+            throw e;
+        }
+    }
+
     /**
      * Filters expenses by a specific category
      * 
@@ -126,226 +459,1699 @@ public class ExpenseManager {
      * @return A list of expenses that match the specified category
      */
     public List<Expense> filterByCategory(ExpenseCategory category) {
-        List<Expense> filteredExpenses = new ArrayList<>();
-        for (Expense e : expenses) {
-            if (e.getCategory().equals(category)) {
-                filteredExpenses.add(e);
+        if (category == null) {
+            return new ArrayList<>();
+        }
+
+        long stamp = lock.readLock();
+        try {
+            int[] rows = store.rowsInCategory(category, categoryCounts[category.ordinal()]);
+            List<Expense> filteredExpenses = new ArrayList<>(rows.length);
+            for (int row : rows) {
+                filteredExpenses.add(store.get(row));
             }
+            return filteredExpenses;
+        } finally {
+            lock.unlockRead(stamp);
         }
-        return filteredExpenses;
     }
 
-    // ========== SORTING METHODS ==========
-    
     /**
-     * Sorts expenses by the specified criteria and order
+     * Gets the total amount spent in one category
+     * Served from a running total, so the cost does not depend on the number of expenses
      * 
-     * @param criteria The sorting criteria ("amount" or "date")
-     * @param order The sorting order ("asc" for ascending, "des" for descending)
-     * @throws IllegalArgumentException if criteria or order is invalid
+     * @param category The category to total
+     * @return The sum of that category's expense amounts
      */
-    public void sortExpenses(String criteria, String order) {
-        if (criteria == null || order == null) {
-            throw new IllegalArgumentException("Criteria and order cannot be null");
+    public double getCategoryTotal(ExpenseCategory category) {
+        if (category == null) {
+            throw new IllegalArgumentException("Category cannot be null");
         }
-        
-        DateTimeFormatter format = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+        return Money.fromCents(getCategoryTotalCents(category));
+    }
 
-        if (criteria.equalsIgnoreCase("amount")) {
-            if (order.equalsIgnoreCase("asc")) {
-                expenses.sort((e1, e2) -> Double.compare(e1.getAmount(), e2.getAmount()));
-            } else if (order.equalsIgnoreCase("des")) {
-                expenses.sort((e1, e2) -> Double.compare(e2.getAmount(), e1.getAmount()));
-            } else {
-                throw new IllegalArgumentException("Invalid order. Use 'asc' or 'des'");
-            }
-        } else if (criteria.equalsIgnoreCase("date")) {
-            if (order.equalsIgnoreCase("asc")) {
-                expenses.sort((e1, e2) -> {
-                    try {
-                        LocalDate d1 = LocalDate.parse(e1.getDate(), format);
-                        LocalDate d2 = LocalDate.parse(e2.getDate(), format);
-                        return d1.compareTo(d2);
-                    } catch (DateTimeParseException e) {
-                        System.err.println("❌ Error parsing date: " + e.getMessage());
-                        return 0;
-                    }
-                });
-            } else if (order.equalsIgnoreCase("des")) {
-                expenses.sort((e1, e2) -> {
-                    try {
-                        LocalDate d1 = LocalDate.parse(e1.getDate(), format);
-                        LocalDate d2 = LocalDate.parse(e2.getDate(), format);
-                        return d2.compareTo(d1);
-                    } catch (DateTimeParseException e) {
-                        System.err.println("❌ Error parsing date: " + e.getMessage());
-                        return 0;
-                    }
-                });
-            } else {
-                throw new IllegalArgumentException("Invalid order. Use 'asc' or 'des'");
-            }
-        } else {
-            throw new IllegalArgumentException("Invalid criteria. Use 'amount' or 'date'");
+    /**
+     * Gets the total amount spent in one category in cents, exactly
+     * 
+     * @param category The category to total
+     * @return The sum of that category's expense amounts in cents
+     */
+    public long getCategoryTotalCents(ExpenseCategory category) {
+        if (category == null) {
+            throw new IllegalArgumentException("Category cannot be null");
         }
+        int ordinal = category.ordinal();
+        return readOptimistically(() -> categoryCents[ordinal]);
     }
 
-    // ========== FILE I/O METHODS ==========
-    
     /**
-     * Saves all expenses to a CSV file
+     * Gets the number of expenses in one category
      * 
-     * @param fileName The name of the file to save to
-     * @throws IOException if there's an error writing to the file
+     * @param category The category to count
+     * @return The number of expenses in that category
      */
-    public void saveExpensesToFile(String fileName) {
-        if (fileName == null || fileName.trim().isEmpty()) {
-            throw new IllegalArgumentException("File name cannot be null or empty");
-        }
-        
-        try (PrintWriter writer = new PrintWriter(new File(fileName))) {
-            // Write CSV header
-            writer.println("amount,category,date,description");
-            
-            // Write each expense as a CSV line
-            for (Expense e : expenses) {
-                writer.println(e.getAmount() + "," + e.getCategory() + "," + 
-                             e.getDate() + "," + e.getDescription());
-            }
-            System.out.println("✅ Expenses successfully saved to " + fileName);
-        } catch (IOException e) {
-            System.err.println("❌ Error saving expenses to file: " + e.getMessage());
-            throw new RuntimeException("Failed to save expenses", e);
+    public int getCategoryCount(ExpenseCategory category) {
+        if (category == null) {
+            throw new IllegalArgumentException("Category cannot be null");
         }
+        int ordinal = category.ordinal();
+        return (int) readOptimistically(() -> categoryCounts[ordinal]);
     }
 
     /**
-     * Loads expenses from a CSV file
+     * Gets a snapshot of the total amount per category
+     * Only categories that currently have expenses are included
      * 
-     * @param fileName The name of the file to load from
-     * @throws IOException if there's an error reading the file
+     * @return A read-only map from category to total amount, in category order
      */
-    public void loadExpensesFromFile(String fileName) {
-        if (fileName == null || fileName.trim().isEmpty()) {
-            throw new IllegalArgumentException("File name cannot be null or empty");
-        }
-        
-        File file = new File(fileName);
-        if (!file.exists()) {
-            System.out.println("ℹ️ File " + fileName + " does not exist. Starting with empty expense list.");
-            return;
-        }
-        
-        try (BufferedReader reader = new BufferedReader(new FileReader(fileName))) {
-            String line;
-            expenses.clear(); // Clear existing expenses before loading
-            
-            // Skip header line if it exists
-            String firstLine = reader.readLine();
-            if (firstLine != null && firstLine.contains("amount,category,date,description")) {
-                System.out.println("ℹ️ Skipping CSV header...");
-            } else if (firstLine != null) {
-                // Process the first line if it's not a header
-                processExpenseLine(firstLine);
+    public Map<ExpenseCategory, Double> getCategoryTotals() {
+        long[] cents = new long[categoryCents.length];
+        int[] counts = new int[categoryCounts.length];
+        long stamp = lock.tryOptimisticRead();
+        System.arraycopy(categoryCents, 0, cents, 0, cents.length);
+        System.arraycopy(categoryCounts, 0, counts, 0, counts.length);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock(); // A change got in between; copy again without racing it
+            try {
+                System.arraycopy(categoryCents, 0, cents, 0, cents.length);
+                System.arraycopy(categoryCounts, 0, counts, 0, counts.length);
+            } finally {
+                lock.unlockRead(stamp);
             }
-            
-            // Process remaining lines
-            while ((line = reader.readLine()) != null) {
-                processExpenseLine(line);
+        }
+
+        Map<ExpenseCategory, Double> totals = new EnumMap<>(ExpenseCategory.class);
+        for (ExpenseCategory category : ExpenseCategory.values()) {
+            if (counts[category.ordinal()] > 0) {
+                totals.put(category, Money.fromCents(cents[category.ordinal()]));
             }
-            
-            System.out.println("✅ Expenses successfully loaded from " + fileName);
-        } catch (IOException e) {
-            System.err.println("❌ Error loading expenses from file: " + e.getMessage());
-            throw new RuntimeException("Failed to load expenses", e);
         }
+        return Collections.unmodifiableMap(totals);
     }
-    
+
     /**
-     * Helper method to process a single line from the CSV file
+     * Gets spending over time across everything recorded, at a resolution that fits the given number of buckets
      * 
-     * @param line The CSV line to process
+     * @param category The category to chart, or null for all categories
+     * @param maxBuckets The most buckets wanted, e.g. the chart's width in pixels
+     * @return The series; empty if there are no expenses
+     * @throws IllegalArgumentException if maxBuckets is not positive
      */
-    private void processExpenseLine(String line) {
-        if (line == null || line.trim().isEmpty()) {
-            return; // Skip empty lines
+    public SpendingSeries getSpendingSeries(ExpenseCategory category, int maxBuckets) {
+        if (maxBuckets <= 0) {
+            throw new IllegalArgumentException("Bucket count must be positive");
         }
-        
-        String[] parts = line.split(",", -1);
-        if (parts.length == 4) {
-            try {
-                double amount = Double.parseDouble(parts[0].trim());
-                ExpenseCategory category = ExpenseCategory.valueOf(parts[1].toUpperCase().trim());
-                String date = parts[2].trim();
-                String description = parts[3].trim();
-                
-                Expense loaded = new Expense(amount, category, date, description);
-                expenses.add(loaded);
-            } catch (NumberFormatException ex) {
-                System.err.println("⚠️ Invalid amount format: " + parts[0] + ". Skipping line...");
-            } catch (IllegalArgumentException ex) {
-                System.err.println("⚠️ Invalid category: " + parts[1] + ". Skipping line...");
+        long stamp = lock.readLock();
+        try {
+            if (spendingPyramid.firstDay() > spendingPyramid.lastDay()) {
+                return new SpendingSeries(TimeResolution.DAY, 0, -1, new int[1], new long[0]);
             }
-        } else {
-            System.err.println("⚠️ Invalid line format (expected 4 fields): " + line);
+            return spendingSeries(category, spendingPyramid.firstDay(), spendingPyramid.lastDay(), maxBuckets);
+        } finally {
+            lock.unlockRead(stamp);
         }
     }
 
-    // ========== UTILITY METHODS ==========
-    
     /**
-     * Clears all expenses from the manager
+     * Gets spending over a date range from the pre-aggregated buckets
+     * The resolution is the finest of day, week, month and year that needs at most maxBuckets
+     * buckets (year if none does), so the cost depends on maxBuckets and not on the number of expenses
+     * 
+     * @param category The category to chart, or null for all categories
+     * @param fromEpochDay The first day of the range, as days since 1970-01-01
+     * @param toEpochDay The last day of the range
+     * @param maxBuckets The most buckets wanted, e.g. the chart's width in pixels
+     * @return The series
+     * @throws IllegalArgumentException if the range is reversed or maxBuckets is not positive
      */
-    public void clearExpenses() {
-        expenses.clear();
-        System.out.println("✅ All expenses cleared.");
+    public SpendingSeries getSpendingSeries(ExpenseCategory category, int fromEpochDay, int toEpochDay, int maxBuckets) {
+        if (fromEpochDay > toEpochDay) {
+            throw new IllegalArgumentException("Start date must not be after end date");
+        }
+        if (maxBuckets <= 0) {
+            throw new IllegalArgumentException("Bucket count must be positive");
+        }
+        long stamp = lock.readLock();
+        try {
+            return spendingSeries(category, fromEpochDay, toEpochDay, maxBuckets);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private SpendingSeries spendingSeries(ExpenseCategory category, int fromDay, int toDay, int maxBuckets) {
+        return spendingPyramid.series(category == null ? -1 : category.ordinal(), fromDay, toDay, maxBuckets);
     }
 
     /**
-     * Gets a copy of all expenses for external access
-     * Returns a defensive copy to prevent external modification
+     * Gets the sum, count, minimum and maximum of spending per period and category
+     * Read from totals kept per month and category, so the cost depends on the number of months
+     * and not on the number of expenses
      * 
-     * @return A new list containing all expenses
+     * @param period Month, quarter or year
+     * @return One row per period from the first to the last with expenses, one column per category
+     *         (by ordinal); no rows if there are no expenses
+     * @throws IllegalArgumentException if period is null
      */
-    public List<Expense> getExpenses() {
-        return new ArrayList<>(expenses);
+    public SpendingRollup getRollup(ReportPeriod period) {
+        return rollup(period, false);
     }
 
     /**
-     * Prints all expenses in a formatted manner
+     * Gets the sum, count, minimum and maximum of spending per period and category group
+     * 
+     * @param period Month, quarter or year
+     * @return One row per period from the first to the last with expenses, one column per
+     *         CategoryGroup (by ordinal); no rows if there are no expenses
+     * @throws IllegalArgumentException if period is null
+     * @see #getRollup(ReportPeriod)
      */
-    public void printAllExpenses() {
-        if (expenses.isEmpty()) {
-            System.out.println("ℹ️ No expenses to display.");
-            return;
+    public SpendingRollup getGroupRollup(ReportPeriod period) {
+        return rollup(period, true);
+    }
+
+    private SpendingRollup rollup(ReportPeriod period, boolean byGroup) {
+        if (period == null) {
+            throw new IllegalArgumentException("Report period cannot be null");
         }
-        
-        System.out.println("📋 Total expenses: " + expenses.size());
-        System.out.println("=" + "=".repeat(50));
-        
-        for (int i = 0; i < expenses.size(); i++) {
-            System.out.println("[" + (i + 1) + "] " + expenses.get(i));
+        long stamp = lock.readLock();
+        try {
+            synchronized (rollupCube) {
+                if (rollupCube.hasStaleExtremes()) {
+                    rollupCube.refreshExtremes(store); // Only after removals took out a minimum or maximum
+                }
+                return rollupCube.rollup(period, byGroup);
+            }
+        } finally {
+            lock.unlockRead(stamp);
         }
     }
-    
+
+    // ========== QUERY METHODS ==========
+
     /**
-     * Gets the total number of expenses
+     * Streams the expenses matching a query, in ledger order
+     * The stream reads the current snapshot lazily: rows are tested as the stream is consumed and
+     * an Expense is only built for a match. No lock is held meanwhile, so later changes to the
+     * manager neither block nor show up in it
      * 
-     * @return The number of expenses in the manager
+     * @param query The conditions
+     * @return A sequential stream of the matching expenses
+     * @throws IllegalArgumentException if query is null
      */
-    public int getExpenseCount() {
-        return expenses.size();
+    public Stream<Expense> query(ExpenseQuery query) {
+        return planQuery(query).stream();
     }
-    
+
     /**
-     * Gets the total amount of all expenses
+     * Computes count, sum, min, max and average of the amounts matching a query over the stored
+     * columns, without building Expense objects
+     * Scans run in parallel on the common fork/join pool; amounts are summed in cents, so the
+     * result is exact and does not depend on the number of threads
      * 
-     * @return The sum of all expense amounts
+     * @param query The conditions
+     * @return The aggregate
+     * @throws IllegalArgumentException if query is null
      */
-    public double getTotalAmount() {
-        return expenses.stream()
-                      .mapToDouble(Expense::getAmount)
-                      .sum();
+    public ExpenseAggregate aggregate(ExpenseQuery query) {
+        return planQuery(query).aggregate(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Totals the amounts matching a query
+     * Queries on categories and dates only are answered from the running category totals and the
+     * date index without looking at any row; others are scanned like aggregate
+     * 
+     * @param query The conditions
+     * @return The total amount
+     * @throws IllegalArgumentException if query is null
+     */
+    public double sum(ExpenseQuery query) {
+        if (query == null) {
+            throw new IllegalArgumentException("Query cannot be null");
+        }
+        if (query.hasAmountRange() || query.description() != null || query.ids() != null) {
+            return aggregate(query).getSum();
+        }
+        long stamp = lock.readLock();
+        try {
+            long cents = 0;
+            if (!query.hasCategories()) {
+                cents = dateIndex.totalCents(query.fromDay(), query.toDay());
+            } else {
+                for (int ordinal = 0; ordinal < categoryCents.length; ordinal++) {
+                    if (query.matchesCategory(ordinal)) {
+                        cents += query.hasDateRange()
+                            ? dateIndex.totalCents(ordinal, query.fromDay(), query.toDay())
+                            : categoryCents[ordinal];
+                    }
+                }
+            }
+            return Money.fromCents(cents);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Counts the expenses matching a query
+     * Queries on categories only are answered from the running category counts; others are scanned like aggregate
+     * 
+     * @param query The conditions
+     * @return The number of matching expenses
+     * @throws IllegalArgumentException if query is null
+     */
+    public long count(ExpenseQuery query) {
+        if (query == null) {
+            throw new IllegalArgumentException("Query cannot be null");
+        }
+        if (query.hasDateRange() || query.hasAmountRange() || query.description() != null || query.ids() != null) {
+            return aggregate(query).getCount();
+        }
+        return readOptimistically(() -> {
+            long count = 0;
+            for (int ordinal = 0; ordinal < categoryCounts.length; ordinal++) {
+                if (query.matchesCategory(ordinal)) {
+                    count += categoryCounts[ordinal];
+                }
+            }
+            return count;
+        });
+    }
+
+    /**
+     * Finds the expenses whose description contains a text, ignoring case
+     * The text is looked up in a trigram index of the distinct descriptions, so only descriptions
+     * sharing its trigrams are compared, and the matching rows are then picked out of one pass over
+     * the description column
+     * 
+     * @param text The text to look for, e.g. "netflix"
+     * @return A view of the current snapshot holding just the matches, in ledger order
+     * @throws IllegalArgumentException if text is null or empty
+     */
+    public ExpenseSnapshot searchDescriptions(String text) {
+        return select(ExpenseQuery.builder().descriptionContains(text).build());
+    }
+
+    /**
+     * Finds the expenses with a word in the description that starts with a text, ignoring case
+     * Words are separated by anything but letters and digits; looked up like searchDescriptions
+     * 
+     * @param prefix The start of the word, e.g. "net" for "Netflix"
+     * @return A view of the current snapshot holding just the matches, in ledger order
+     * @throws IllegalArgumentException if prefix is null or empty
+     */
+    public ExpenseSnapshot searchDescriptionWords(String prefix) {
+        return select(ExpenseQuery.builder().descriptionWordStartsWith(prefix).build());
+    }
+
+    /**
+     * Describes how query, stream and aggregate would run a query: the access path and the order
+     * the conditions are tested in
+     * 
+     * @param query The conditions
+     * @return A multi-line description of the plan
+     * @throws IllegalArgumentException if query is null
+     */
+    public String explain(ExpenseQuery query) {
+        return query + "\n" + planQuery(query);
+    }
+
+    /**
+     * Runs a query into a view of the snapshot it was planned on
+     */
+    private ExpenseSnapshot select(ExpenseQuery query) {
+        QueryPlan plan = planQuery(query);
+        int[] matches = new int[16];
+        int count = 0;
+        PrimitiveIterator.OfInt rows = plan.rows();
+        while (rows.hasNext()) {
+            if (count == matches.length) {
+                matches = Arrays.copyOf(matches, count * 2);
+            }
+            matches[count++] = rows.nextInt();
+        }
+        return plan.snapshot().select(Arrays.copyOf(matches, count));
+    }
+
+    /**
+     * Plans a query against the current snapshot, using the live indexes for the access path and
+     * the selectivity estimates
+     */
+    private QueryPlan planQuery(ExpenseQuery query) {
+        if (query == null) {
+            throw new IllegalArgumentException("Query cannot be null");
+        }
+        ExpenseSnapshot current = getSnapshot();
+        int[] lookupRows = null;
+        QueryPlan.Filter lookup = null;
+        double categoryShare = 1;
+        double dateShare = 1;
+        byte[] indexedDescriptions = null;
+        double descriptionShare = 1;
+        long stamp = lock.readLock();
+        try {
+            // Until the next change the live rows are numbered exactly like the snapshot's, and
+            // its dictionary is the store's (after a clear or reload it no longer is)
+            boolean indexesMatch = version == current.getVersion();
+            int live = store.liveCount();
+            if (query.ids() != null && indexesMatch) {
+                lookupRows = rowsOf(query.ids());
+                lookup = QueryPlan.Filter.ID;
+            }
+
+            if (query.descriptionNeedle() != null && indexesMatch) {
+                int textCount = current.rows().descriptionCount();
+                long matching = 0;
+                long[] matchingIds = null;
+                int[] texts;
+                synchronized (descriptionIndex) {
+                    descriptionIndex.catchUp(store);
+                    texts = descriptionIndex.find(store, query.descriptionNeedle(), query.descriptionWordStart(), textCount);
+                    for (int text : texts) {
+                        matching += descriptionIndex.liveCount(text);
+                    }
+                    // A hash lookup per match beats reading the whole description column only for a few matches
+                    if (lookupRows == null && matching * DESCRIPTION_LOOKUP_RATIO < live) {
+                        matchingIds = descriptionIndex.expenseIds(texts);
+                    }
+                }
+                descriptionShare = live == 0 ? 0 : (double) matching / live;
+                if (matchingIds != null) {
+                    lookupRows = rowsOf(matchingIds);
+                    lookup = QueryPlan.Filter.DESCRIPTION;
+                } else {
+                    // The scan tests each row's description id against a table instead of its text
+                    indexedDescriptions = new byte[textCount];
+                    Arrays.fill(indexedDescriptions, (byte) 2);
+                    for (int text : texts) {
+                        indexedDescriptions[text] = 1;
+                    }
+                }
+            }
+
+            if (live > 0 && query.hasCategories()) {
+                long matching = 0;
+                for (int ordinal = 0; ordinal < categoryCounts.length; ordinal++) {
+                    if (query.matchesCategory(ordinal)) {
+                        matching += categoryCounts[ordinal];
+                    }
+                }
+                categoryShare = (double) matching / live;
+            }
+            long totalCents = dateIndex.totalCents(Integer.MIN_VALUE, Integer.MAX_VALUE);
+            if (totalCents > 0 && query.hasDateRange()) {
+                dateShare = (double) dateIndex.totalCents(query.fromDay(), query.toDay()) / totalCents;
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        return new QueryPlan(query, current, lookupRows, lookup, categoryShare, dateShare,
+                             indexedDescriptions, descriptionShare);
+    }
+
+    /**
+     * Looks up the rows of expense IDs, skipping IDs that are not in the ledger (any more); the caller holds the lock
+     *
+     * @return The rows, ascending
+     */
+    private int[] rowsOf(long[] ids) {
+        int[] found = new int[ids.length];
+        int count = 0;
+        for (long id : ids) {
+            int row = idIndex.get(id);
+            if (row != ExpenseIdIndex.MISSING) {
+                found[count++] = row;
+            }
+        }
+        int[] rows = Arrays.copyOf(found, count);
+        Arrays.sort(rows);
+        return rows;
+    }
+
+    // ========== SORTING METHODS ==========
+    
+    /**
+     * Gets all expenses in the given order without changing the ledger's own order
+     * The sort runs on the current snapshot without holding the lock, so other readers and writers
+     * are not held up, and views sorted differently (such as a table's) do not affect each other
+     * 
+     * @param spec The order, e.g. SortSpec.by(SortSpec.Key.CATEGORY).thenDescending(SortSpec.Key.DATE).then(SortSpec.Key.AMOUNT)
+     * @return A sorted view of the current snapshot
+     * @throws IllegalArgumentException if spec is null
+     */
+    public ExpenseSnapshot getSortedExpenses(SortSpec spec) {
+        if (spec == null) {
+            throw new IllegalArgumentException("Sort spec cannot be null");
+        }
+        return getSnapshot().sorted(spec);
+    }
+
+    /**
+     * Gets the first k expenses in an order, e.g. the 20 largest, without sorting or reordering anything
+     * 
+     * @param k How many expenses to return at most
+     * @param order The order, e.g. SortSpec.byDescending(SortSpec.Key.AMOUNT) for the largest first
+     * @return A view of the current snapshot holding those expenses in that order
+     * @throws IllegalArgumentException if k is negative or order is null
+     */
+    public ExpenseSnapshot topK(int k, SortSpec order) {
+        return topK(k, order, null);
+    }
+
+    /**
+     * Gets the first k expenses matching a query in an order, e.g. the 20 largest this quarter
+     * Unlike sortExpenses, nothing is sorted and the ledger keeps its order: the matches are streamed
+     * through bounded heaps of k expenses, one per range of the snapshot on the common fork/join
+     * pool, in O(n log k) at worst. Ties keep ledger order, so the result is the start of
+     * getSortedExpenses(order) restricted to the query
+     * 
+     * @param k How many expenses to return at most
+     * @param order The order, e.g. SortSpec.byDescending(SortSpec.Key.AMOUNT) for the largest first
+     * @param filter The conditions, or null for all expenses
+     * @return A view of the current snapshot holding those expenses in that order
+     * @throws IllegalArgumentException if k is negative or order is null
+     */
+    public ExpenseSnapshot topK(int k, SortSpec order, ExpenseQuery filter) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k cannot be negative");
+        }
+        if (order == null) {
+            throw new IllegalArgumentException("Sort order cannot be null");
+        }
+        QueryPlan plan = planQuery(filter != null ? filter : ExpenseQuery.builder().build());
+        return plan.snapshot().ranked(plan.top(k, order, ForkJoinPool.commonPool()), order);
+    }
+
+    /**
+     * Sorts expenses by the specified criteria and order
+     * This reorders the ledger itself, which is journaled and saved in that order; to only
+     * look at the expenses in some order use getSortedExpenses
+     * 
+     * @param criteria The sorting criteria ("amount" or "date")
+     * @param order The sorting order ("asc" for ascending, "des" for descending)
+     * @throws IllegalArgumentException if criteria or order is invalid
+     */
+    public void sortExpenses(String criteria, String order) {
+        if (criteria == null || order == null) {
+            throw new IllegalArgumentException("Criteria and order cannot be null");
+        }
+        
+        boolean byAmount = criteria.equalsIgnoreCase("amount");
+        if (!byAmount && !criteria.equalsIgnoreCase("date")) {
+            throw new IllegalArgumentException("Invalid criteria. Use 'amount' or 'date'");
+        }
+
+        boolean descending;
+        if (order.equalsIgnoreCase("asc")) {
+            descending = false;
+        } else if (order.equalsIgnoreCase("des")) {
+            descending = true;
+        } else {
+            throw new IllegalArgumentException("Invalid order. Use 'asc' or 'des'");
+        }
+
+        long stamp = lock.writeLock();
+        try {
+            sortRows(byAmount, descending);
+            journalRecord("S," + criteria.toLowerCase() + "," + order.toLowerCase());
+            version++;
+            queueChange(ExpenseChangeEvent.whole(ExpenseChangeEvent.Type.REORDERED, version, store.liveCount()));
+            compactJournalIfDue();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        dispatchChanges();
+    }
+
+    /**
+     * Reorders the rows; the caller holds the write lock
+     */
+    private void sortRows(boolean byAmount, boolean descending) {
+        compactStore();
+        SortSpec.Key key = byAmount ? SortSpec.Key.AMOUNT : SortSpec.Key.DATE;
+        SortSpec spec = descending ? SortSpec.byDescending(key) : SortSpec.by(key);
+        store.reorder(ExpenseSorter.sort(store, null, spec)); // Stable, like List.sort
+        reindexIds();
+    }
+
+    // ========== FILE I/O METHODS ==========
+    
+    /**
+     * Saves all expenses to a CSV file and waits until it is on disk
+     * If the file is the snapshot of the open journal, the journal is compacted into it instead
+     * 
+     * @param fileName The name of the file to save to
+     * @throws IOException if there's an error writing to the file
+     */
+    public void saveExpensesToFile(String fileName) {
+        awaitSave(saveExpensesToFileAsync(fileName));
+    }
+
+    /**
+     * Saves all expenses to a CSV file on the background saver thread
+     * The file is written to a temporary file and renamed into place once it is on disk; a burst of
+     * requests for the same file is merged into one write. Changes made after this call may or may
+     * not be included, but a later request always includes them
+     * 
+     * @param fileName The name of the file to save to
+     * @return A future that completes when the file is durable, or completes exceptionally if the write fails
+     */
+    public CompletableFuture<Void> saveExpensesToFileAsync(String fileName) {
+        if (fileName == null || fileName.trim().isEmpty()) {
+            throw new IllegalArgumentException("File name cannot be null or empty");
+        }
+        return saver().submit(Paths.get(fileName), true);
+    }
+
+    /**
+     * Writes the CSV header and one line per expense, then forces the file to disk
+     */
+    private static void writeCsv(ExpenseStore source, Path file) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(file.toFile());
+             PrintWriter writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)))) {
+            // Write CSV header
+            writer.println("amount,category,date,description");
+            
+            // Write each expense as a CSV line
+            for (int row = 0; row < source.size(); row++) {
+                writer.println(csvRow(source, row));
+            }
+
+            writer.flush();
+            if (writer.checkError()) {
+                throw new IOException("Could not write " + file);
+            }
+            out.getFD().sync();
+        }
+    }
+
+    /**
+     * Formats one stored row as amount,category,date,description
+     */
+    private static String csvRow(ExpenseStore source, int row) {
+        return Money.format(source.amountCents(row)) + "," + source.category(row) + "," +
+               ExpenseDates.format(source.epochDay(row)) + "," + source.description(row);
+    }
+
+    /**
+     * Loads expenses from a CSV file
+     * 
+     * @param fileName The name of the file to load from
+     * @throws RuntimeException if there's an error reading the file; the current expenses are kept
+     * @throws CancellationException if the calling thread is interrupted before the loaded expenses are swapped in
+     */
+    public void loadExpensesFromFile(String fileName) {
+        if (fileName == null || fileName.trim().isEmpty()) {
+            throw new IllegalArgumentException("File name cannot be null or empty");
+        }
+        if (isJournalSnapshot(fileName)) {
+            openJournal(fileName); // Snapshot alone would miss the journaled changes
+            return;
+        }
+        
+        File file = new File(fileName);
+        if (!file.exists()) {
+            System.out.println("ℹ️ File " + fileName + " does not exist. Starting with empty expense list.");
+            return;
+        }
+        
+        // Parsed without the lock; the loaded expenses replace the existing ones in one step
+        ExpenseStore loaded = new ExpenseStore();
+        try (BufferedReader reader = new BufferedReader(new FileReader(fileName))) {
+            String line;
+            
+            // Skip header line if it exists
+            String firstLine = reader.readLine();
+            if (firstLine != null && firstLine.contains("amount,category,date,description")) {
+                System.out.println("ℹ️ Skipping CSV header...");
+            } else if (firstLine != null) {
+                // Process the first line if it's not a header
+                processExpenseLine(firstLine, loaded);
+            }
+            
+            // Process remaining lines
+            while ((line = reader.readLine()) != null) {
+                processExpenseLine(line, loaded);
+            }
+            
+            System.out.println("✅ Expenses successfully loaded from " + fileName);
+        } catch (IOException e) {
+            System.err.println("❌ Error loading expenses from file: " + e.getMessage());
+            throw new RuntimeException("Failed to load expenses", e);
+        }
+
+        // Replace existing expenses only once the whole file parsed
+        checkNotCancelled(fileName);
+        replaceStore(loaded, true);
+    }
+    
+    /**
+     * Loads expenses from a CSV file by memory-mapping it and parsing the bytes in place
+     * Produces the same expenses as loadExpensesFromFile without the per-line String garbage,
+     * which matters for very large ledgers
+     *
+     * @param fileName The name of the file to load from
+     * @throws RuntimeException if there's an error reading the file; the current expenses are kept
+     * @throws CancellationException if the calling thread is interrupted before the loaded expenses are swapped in
+     */
+    public void loadExpensesFromFileMapped(String fileName) {
+        if (fileName == null || fileName.trim().isEmpty()) {
+            throw new IllegalArgumentException("File name cannot be null or empty");
+        }
+        if (isJournalSnapshot(fileName)) {
+            openJournal(fileName); // Snapshot alone would miss the journaled changes
+            return;
+        }
+
+        File file = new File(fileName);
+        if (!file.exists()) {
+            System.out.println("ℹ️ File " + fileName + " does not exist. Starting with empty expense list.");
+            return;
+        }
+
+        ExpenseStore loaded = new ExpenseStore();
+        try {
+            new MappedExpenseReader(loaded::addCents, System.err::println).read(file.toPath());
+            System.out.println("✅ Expenses successfully loaded from " + fileName);
+        } catch (IOException e) {
+            System.err.println("❌ Error loading expenses from file: " + e.getMessage());
+            throw new RuntimeException("Failed to load expenses", e);
+        }
+
+        // Replace existing expenses only once the whole file parsed
+        checkNotCancelled(fileName);
+        replaceStore(loaded, true);
+    }
+
+    /**
+     * Loads expenses from a CSV file using all available cores
+     * The file is split into line-aligned chunks that are parsed in parallel and merged
+     * back in file order. Rejected lines are summarised per chunk instead of printed one by one
+     *
+     * @param fileName The name of the file to load from
+     * @return A report with per-chunk row and error counts
+     * @throws CancellationException if the calling thread is interrupted before the loaded expenses are swapped in
+     */
+    public LoadReport loadExpensesFromFileParallel(String fileName) {
+        return loadExpensesFromFileParallel(fileName, fraction -> { });
+    }
+
+    /**
+     * Loads expenses from a CSV file using all available cores, reporting how far parsing got
+     *
+     * @param fileName The name of the file to load from
+     * @param progress Receives the share of the file parsed, from 0 to 1, as chunks finish; called
+     *                 from the parsing threads, one call at a time
+     * @return A report with per-chunk row and error counts
+     * @throws CancellationException if the calling thread is interrupted before the loaded expenses are swapped in
+     */
+    public LoadReport loadExpensesFromFileParallel(String fileName, DoubleConsumer progress) {
+        if (fileName == null || fileName.trim().isEmpty()) {
+            throw new IllegalArgumentException("File name cannot be null or empty");
+        }
+        if (isJournalSnapshot(fileName)) {
+            return openJournal(fileName, progress); // Snapshot alone would miss the journaled changes
+        }
+
+        LoadReport report = new LoadReport(fileName);
+        File file = new File(fileName);
+        if (!file.exists()) {
+            System.out.println("ℹ️ File " + fileName + " does not exist. Starting with empty expense list.");
+            return report;
+        }
+
+        // Replace existing expenses only once the whole file parsed
+        ExpenseStore loaded = readCsvParallel(file, report, progress);
+        checkNotCancelled(fileName);
+        replaceStore(loaded, true);
+        return report;
+    }
+
+    /**
+     * Parses a CSV file on all cores; needs no lock
+     */
+    private static ExpenseStore readCsvParallel(File file, LoadReport report, DoubleConsumer progress) {
+        try {
+            ExpenseStore loaded = new ParallelExpenseLoader().load(file.toPath(), report, progress);
+            report.printErrors();
+            System.out.println("✅ Expenses successfully loaded from " + file + " (" + report.getRowsLoaded()
+                             + " loaded, " + report.getRowsRejected() + " skipped)");
+            return loaded;
+        } catch (IOException e) {
+            checkNotCancelled(file.toString()); // An interrupt closes the channel being read
+            System.err.println("❌ Error loading expenses from file: " + e.getMessage());
+            throw new RuntimeException("Failed to load expenses", e);
+        }
+    }
+
+    /**
+     * Imports every CSV file of a directory, or every file matching a glob, into the current expenses
+     * Unlike the load methods nothing is cleared: the files are read and parsed concurrently, one task
+     * per file, and their expenses are then appended in file name order in one step. The expenses of
+     * each file get one consecutive range of IDs, which the report maps back to the file. A file that
+     * cannot be read is reported and skipped; the others are still imported
+     *
+     * @param directoryOrGlob A directory (its *.csv files are imported) or a glob such as ledgers/2024-??/account-*.csv
+     * @return A report with each file's loaded and rejected rows and ID range
+     * @throws IllegalArgumentException if directoryOrGlob is null or empty
+     */
+    public ImportReport importExpenses(String directoryOrGlob) {
+        if (directoryOrGlob == null || directoryOrGlob.trim().isEmpty()) {
+            throw new IllegalArgumentException("Directory or glob cannot be null or empty");
+        }
+
+        MultiFileImporter importer = new MultiFileImporter();
+        List<Path> files;
+        try {
+            files = MultiFileImporter.resolve(directoryOrGlob.trim());
+        } catch (IOException e) {
+            System.err.println("❌ Error listing files for " + directoryOrGlob + ": " + e.getMessage());
+            throw new RuntimeException("Failed to import expenses", e);
+        }
+        if (files.isEmpty()) {
+            System.out.println("ℹ️ No files match " + directoryOrGlob + ". Nothing imported.");
+            return new ImportReport(directoryOrGlob, Collections.emptyList());
+        }
+
+        List<MultiFileImporter.ParsedFile> parsed = importer.parseAll(files); // No lock while parsing
+
+        List<ExpenseStore> batches = new ArrayList<>(parsed.size());
+        List<ImportReport.FileImport> imports = new ArrayList<>(parsed.size());
+        long stamp = lock.writeLock();
+        try {
+            long nextId = store.lastId() + 1;
+            for (MultiFileImporter.ParsedFile file : parsed) {
+                int rows = file.rows == null ? 0 : file.rows.liveCount();
+                imports.add(new ImportReport.FileImport(file.report, file.error, nextId, nextId + rows - 1));
+                if (rows > 0) {
+                    batches.add(file.rows);
+                }
+                nextId += rows;
+            }
+            appendBatches(batches);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        dispatchChanges();
+
+        ImportReport report = new ImportReport(directoryOrGlob, imports);
+        report.printErrors();
+        System.out.println("✅ Imported " + report.getRowsLoaded() + " expenses from " + files.size() + " files ("
+                         + report.getRowsRejected() + " skipped, " + report.getFailedFileCount() + " files failed)");
+        return report;
+    }
+
+    /**
+     * Abandons a load whose thread was interrupted while the file was parsed, e.g. a cancelled
+     * background task, before it replaces the current expenses; the interrupt flag stays set
+     */
+    private static void checkNotCancelled(String fileName) {
+        if (Thread.currentThread().isInterrupted()) {
+            System.out.println("ℹ️ Loading " + fileName + " was cancelled. Expenses are unchanged.");
+            throw new CancellationException("Loading " + fileName + " was cancelled");
+        }
+    }
+
+    /**
+     * Swaps a freshly loaded store in for the current one and rebuilds the indexes around it
+     *
+     * @param renumber Whether the loaded rows get new IDs following the current ones; false keeps the IDs a snapshot persisted
+     */
+    private void replaceStore(ExpenseStore loaded, boolean renumber) {
+        long stamp = lock.writeLock();
+        try {
+            if (renumber) {
+                loaded.renumber(store.lastId()); // IDs keep counting up across loads
+            }
+            store = loaded;
+            rebuildIndexes();
+            version++;
+            queueChange(ExpenseChangeEvent.whole(ExpenseChangeEvent.Type.BULK_LOADED, version, store.liveCount()));
+            snapshotIfJournaled();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        dispatchChanges();
+    }
+
+    /**
+     * Saves all expenses as a binary snapshot, the default on-disk state, and waits until it is on disk
+     * The snapshot is written to a temporary file and renamed over the old one, so a crash
+     * never leaves a half-written snapshot behind. CSV stays available through saveExpensesToFile
+     * 
+     * @param fileName The name of the snapshot file, e.g. Expenses.dat
+     */
+    public void saveSnapshot(String fileName) {
+        awaitSave(saveSnapshotAsync(fileName));
+    }
+
+    /**
+     * Saves all expenses as a binary snapshot on the background saver thread
+     * Works like saveExpensesToFileAsync; if the file is the snapshot of the open journal, the
+     * journal is compacted into it while edits keep being journaled
+     * 
+     * @param fileName The name of the snapshot file, e.g. Expenses.dat
+     * @return A future that completes when the snapshot is durable, or completes exceptionally if the write fails
+     */
+    public CompletableFuture<Void> saveSnapshotAsync(String fileName) {
+        if (fileName == null || fileName.trim().isEmpty()) {
+            throw new IllegalArgumentException("File name cannot be null or empty");
+        }
+        return saver().submit(Paths.get(fileName), false);
+    }
+
+    /**
+     * Performs one save on the background saver thread
+     * Only copying the ledger and switching journals happen under the manager's lock; the
+     * file itself is written while edits continue. Returns only once a file was written, so the
+     * saver never reports a save that did not happen
+     */
+    private void writeInBackground(Path file, boolean csv) throws IOException {
+        while (!writeOnce(file, csv)) {
+            // The journal changed while the copy was written; copy the ledger again
+        }
+    }
+
+    /**
+     * Copies the ledger and writes it to the file, compacting the open journal into it if the file
+     * is the journal's snapshot
+     *
+     * @return false if nothing was written because the journal was closed, reopened or compacted meanwhile
+     */
+    private boolean writeOnce(Path file, boolean csv) throws IOException {
+        ExpenseStore copy;
+        ExpenseJournal compacting;
+        long generation;
+        long markOffset = 0;
+        int markRecords = 0;
+        long stamp = lock.readLock(); // Journal appends happen under the write lock, so the mark is exact
+        try {
+            copy = store.copy(); // Tombstones are squeezed out of the copy below, outside the lock
+            compacting = isJournalSnapshot(file.toString()) ? journal : null;
+            generation = journalGeneration;
+            if (compacting != null) {
+                csv = isCsvFile(file);
+                markOffset = compacting.length();
+                markRecords = compacting.getRecordCount();
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+
+        copy.compact();
+        Path temp = file.resolveSibling(file.getFileName() + ".saving.tmp"); // Only the saver thread uses this name
+        try {
+            if (csv) {
+                writeCsv(copy, temp);
+            } else {
+                ExpenseSnapshotFile.write(copy, temp);
+            }
+
+            if (compacting == null) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                System.out.println("✅ Expenses successfully saved to " + file + " (" + copy.size() + " expenses)");
+                return true;
+            }
+
+            String token = ExpenseJournal.snapshotToken(temp);
+            stamp = lock.writeLock();
+            try {
+                if (journal != compacting || journalGeneration != generation) {
+                    // Closed, reopened or compacted meanwhile: this copy misses changes journaled after it was
+                    // taken. The next try copies again, and writes plainly if no journal is open any more
+                    return false;
+                }
+                compacting.prepareNext(token, markOffset);
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                compacting.commitNext(markRecords);
+                journalGeneration++;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            System.out.println("✅ Journal compacted into " + file + " (" + copy.size() + " expenses)");
+            return true;
+        } finally {
+            Files.deleteIfExists(temp);
+            stamp = lock.writeLock();
+            try {
+                compactionQueued = false;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /**
+     * Closes the journal, waits for pending background saves and stops the saver thread
+     * Call when the manager is no longer needed, e.g. after an import or in tests; otherwise the
+     * saver's thread and JVM shutdown hook keep it reachable until the JVM exits. The manager
+     * stays usable: a later save starts a new saver thread
+     */
+    @Override
+    public void close() {
+        closeJournal(); // First, so no compaction is queued behind the saves being waited for
+        BackgroundSaver closing;
+        synchronized (this) {
+            closing = saver;
+            saver = null;
+        }
+        if (closing != null) {
+            closing.close(); // Outside the monitor: queued saves take the lock, and changes may be waiting for the monitor under it
+        }
+    }
+
+    private synchronized BackgroundSaver saver() {
+        if (saver == null) {
+            saver = new BackgroundSaver(this::writeInBackground);
+        }
+        return saver;
+    }
+
+    /**
+     * Waits for a save and reports its failure the way synchronous saves always have
+     */
+    private static void awaitSave(CompletableFuture<Void> save) {
+        try {
+            save.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IllegalArgumentException) {
+                throw (IllegalArgumentException) cause;
+            }
+            throw new RuntimeException("Failed to save expenses", cause);
+        }
+    }
+
+    /**
+     * Loads expenses from a binary snapshot written by saveSnapshot
+     * The columns are copied in bulk straight into the store; nothing is parsed per row
+     * 
+     * @param fileName The name of the snapshot file
+     * @return A report with the number of rows loaded
+     * @throws CancellationException if the calling thread is interrupted before the loaded expenses are swapped in
+     */
+    public LoadReport loadSnapshot(String fileName) {
+        return loadSnapshot(fileName, fraction -> { });
+    }
+
+    /**
+     * Loads expenses from a binary snapshot written by saveSnapshot, reporting how far reading got
+     *
+     * @param fileName The name of the snapshot file
+     * @param progress Receives the share of the file read, from 0 to 1, on the calling thread; for the
+     *                 snapshot of the open journal, the share of the snapshot and journal, see openJournal
+     * @return A report with the number of rows loaded
+     * @throws CancellationException if the calling thread is interrupted before the loaded expenses are swapped in
+     */
+    public LoadReport loadSnapshot(String fileName, DoubleConsumer progress) {
+        if (fileName == null || fileName.trim().isEmpty()) {
+            throw new IllegalArgumentException("File name cannot be null or empty");
+        }
+        if (isJournalSnapshot(fileName)) {
+            return openJournal(fileName, progress); // Snapshot alone would miss the journaled changes
+        }
+
+        LoadReport report = new LoadReport(fileName);
+        File file = new File(fileName);
+        if (!file.exists()) {
+            System.out.println("ℹ️ File " + fileName + " does not exist. Starting with empty expense list.");
+            return report;
+        }
+
+        // Replace existing expenses only once the whole snapshot was read and verified
+        ExpenseStore loaded = readSnapshot(file, report, progress);
+        checkNotCancelled(fileName);
+        replaceStore(loaded, false);
+        return report;
+    }
+
+    /**
+     * Reads and verifies a binary snapshot; needs no lock
+     */
+    private static ExpenseStore readSnapshot(File file, LoadReport report, DoubleConsumer progress) {
+        try {
+            ExpenseStore loaded = ExpenseSnapshotFile.read(file.toPath(), progress);
+            LoadReport.ChunkReport chunk = new LoadReport.ChunkReport(0, 0, file.length());
+            chunk.rowsLoaded(loaded.size());
+            report.addChunk(chunk);
+            System.out.println("✅ Expenses successfully loaded from snapshot " + file + " ("
+                             + loaded.size() + " loaded)");
+            return loaded;
+        } catch (IOException e) {
+            checkNotCancelled(file.toString()); // An interrupt closes the channel being read
+            System.err.println("❌ Error loading snapshot: " + e.getMessage());
+            throw new RuntimeException("Failed to load snapshot", e);
+        }
+    }
+
+    /**
+     * Helper method to process a single line from the CSV file
+     * 
+     * @param line The CSV line to process
+     * @param target The store the expense is added to
+     */
+    private static void processExpenseLine(String line, ExpenseStore target) {
+        if (line == null || line.trim().isEmpty()) {
+            return; // Skip empty lines
+        }
+        
+        String[] parts = line.split(",", -1);
+        if (parts.length == 4) {
+            long amountCents;
+            ExpenseCategory category;
+            try {
+                amountCents = Money.toCents(parts[0]);
+                category = ExpenseCategory.valueOf(parts[1].toUpperCase().trim());
+            } catch (NumberFormatException ex) {
+                System.err.println("⚠️ Invalid amount format: " + parts[0] + ". Skipping line...");
+                return;
+            } catch (IllegalArgumentException ex) {
+                System.err.println("⚠️ Invalid category: " + parts[1] + ". Skipping line...");
+                return;
+            }
+
+            try {
+                target.addCents(amountCents, category, Expense.parseDate(parts[2]), parts[3].trim());
+            } catch (IllegalArgumentException ex) {
+                System.err.println("⚠️ Invalid expense (" + ex.getMessage() + "): " + line + ". Skipping line...");
+            }
+        } else {
+            System.err.println("⚠️ Invalid line format (expected 4 fields): " + line);
+        }
+    }
+
+    // ========== JOURNAL METHODS ==========
+
+    /**
+     * Opens a ledger in journal mode
+     * Loads the snapshot file (if it exists), replays the changes journaled since it was written,
+     * and from then on appends every add, remove, clear and sort to the journal instead of
+     * rewriting the whole file. The journal is compacted into a new snapshot from time to time
+     * The snapshot is kept in the binary snapshot format, unless its name ends in .csv
+     * 
+     * @param fileName The snapshot file, e.g. Expenses.dat (the journal is fileName + ".journal")
+     * @return The report of the snapshot load
+     * @throws CancellationException if the calling thread is interrupted before the loaded expenses are swapped in
+     */
+    public LoadReport openJournal(String fileName) {
+        return openJournal(fileName, fraction -> { });
+    }
+
+    /**
+     * Opens a ledger in journal mode, reporting how far reading got
+     * The snapshot is read and the journal replayed into a new store without holding the lock, so
+     * the current expenses stay readable meanwhile; the new store is swapped in at the end. If the
+     * file is the journal already open and the ledger changed while it was read, it is read again
+     *
+     * @param fileName The snapshot file, e.g. Expenses.dat (the journal is fileName + ".journal")
+     * @param progress Receives the share of the snapshot and journal read, from 0 to 1; called
+     *                 from the parsing threads for a CSV snapshot, one call at a time
+     * @return The report of the snapshot load
+     * @throws CancellationException if the calling thread is interrupted before the loaded expenses are swapped in
+     */
+    public LoadReport openJournal(String fileName, DoubleConsumer progress) {
+        if (fileName == null || fileName.trim().isEmpty()) {
+            throw new IllegalArgumentException("File name cannot be null or empty");
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            boolean reopening;
+            long seenGeneration;
+            long seenVersion;
+            long stamp = lock.readLock();
+            try {
+                reopening = isJournalSnapshot(fileName);
+                seenGeneration = journalGeneration;
+                seenVersion = version;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+
+            if (reopening && attempt > MAX_JOURNAL_READS) {
+                // The open journal keeps changing under the reads; read it once more with writers held off
+                JournalLoad loaded;
+                stamp = lock.writeLock();
+                try {
+                    loaded = readJournal(fileName, progress);
+                    checkNotCancelled(fileName);
+                    installJournal(loaded);
+                } finally {
+                    lock.unlockWrite(stamp);
+                }
+                dispatchChanges();
+                return loaded.report;
+            }
+
+            JournalLoad loaded = readJournal(fileName, progress);
+            checkNotCancelled(fileName);
+            stamp = lock.writeLock();
+            try {
+                if (reopening != isJournalSnapshot(fileName)
+                        || (reopening && (journalGeneration != seenGeneration || version != seenVersion))) {
+                    continue; // Journaled to, compacted, opened or closed while it was read
+                }
+                installJournal(loaded);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            dispatchChanges();
+            return loaded.report;
+        }
+    }
+
+    /**
+     * A snapshot read and its journal replayed, ready to be swapped in
+     */
+    private static final class JournalLoad {
+        final ExpenseJournal journal;
+        final LoadReport report;
+        final ExpenseStore store;
+        final boolean snapshotFound;
+        final boolean idsPersisted;
+
+        JournalLoad(ExpenseJournal journal, LoadReport report, ExpenseStore store, boolean snapshotFound,
+                    boolean idsPersisted) {
+            this.journal = journal;
+            this.report = report;
+            this.store = store;
+            this.snapshotFound = snapshotFound;
+            this.idsPersisted = idsPersisted;
+        }
+    }
+
+    /**
+     * Reads the snapshot and replays the journal into a new store; needs no lock
+     */
+    private static JournalLoad readJournal(String fileName, DoubleConsumer progress) {
+        ExpenseJournal opened = new ExpenseJournal(Paths.get(fileName));
+        LoadReport report = new LoadReport(fileName);
+        File file = new File(fileName);
+        boolean snapshotFound = file.exists();
+        boolean idsPersisted = !isCsvFile(opened.getSnapshotFile());
+        ExpenseStore loaded = new ExpenseStore();
+        try {
+            // Progress is shared between the snapshot and the journal by their sizes
+            Path journalFile = Paths.get(fileName + ExpenseJournal.SUFFIX);
+            long journalBytes = Files.exists(journalFile) ? Files.size(journalFile) : 0;
+            double snapshotShare = (double) file.length() / Math.max(1, file.length() + journalBytes);
+            DoubleConsumer snapshotProgress = fraction -> progress.accept(fraction * snapshotShare);
+            if (!snapshotFound) {
+                System.out.println("ℹ️ File " + fileName + " does not exist. Starting with empty expense list.");
+            } else if (ExpenseSnapshotFile.isSnapshot(opened.getSnapshotFile())) {
+                loaded = readSnapshot(file, report, snapshotProgress);
+            } else {
+                loaded = readCsvParallel(file, report, snapshotProgress);
+            }
+
+            if (opened.read(new JournalReplay(loaded, idsPersisted),
+                            fraction -> progress.accept(snapshotShare + fraction * (1 - snapshotShare)))) {
+                System.out.println("✅ Replayed " + opened.getRecordCount() + " journal records");
+            }
+            progress.accept(1);
+        } catch (IOException e) {
+            checkNotCancelled(fileName); // An interrupt closes the channel being read
+            System.err.println("❌ Error opening journal: " + e.getMessage());
+            throw new RuntimeException("Failed to open journal", e);
+        }
+        return new JournalLoad(opened, report, loaded, snapshotFound, idsPersisted);
+    }
+
+    /**
+     * Swaps a journal load in for the current expenses and starts journaling to it
+     */
+    private void installJournal(JournalLoad loaded) {
+        closeJournalLocked();
+        try {
+            loaded.journal.open();
+        } catch (IOException e) {
+            System.err.println("❌ Error opening journal: " + e.getMessage());
+            throw new RuntimeException("Failed to open journal", e);
+        }
+        if (!loaded.idsPersisted) {
+            loaded.store.renumber(store.lastId()); // IDs keep counting up across loads
+        } else if (!loaded.snapshotFound) {
+            loaded.store.setLastId(Math.max(loaded.store.lastId(), store.lastId())); // Nothing persisted the count
+        }
+        store = loaded.store;
+        rebuildIndexes();
+        journal = loaded.journal;
+        journalGeneration++;
+        version++;
+        queueChange(ExpenseChangeEvent.whole(ExpenseChangeEvent.Type.BULK_LOADED, version, store.liveCount()));
+    }
+
+    /**
+     * Writes a new snapshot of all expenses and starts an empty journal for it
+     * Waits for the snapshot to be on disk; use saveSnapshotAsync with the snapshot file to compact
+     * without waiting
+     */
+    public void compactJournal() {
+        ExpenseJournal current = journal;
+        if (current == null) {
+            throw new IllegalStateException("No journal is open");
+        }
+        awaitSave(saver().submit(current.getSnapshotFile(), isCsvFile(current.getSnapshotFile())));
+    }
+
+    /**
+     * Compacts on the calling thread, for bulk loads: the journal describes the state before the
+     * load, so no edit may be journaled until the loaded state is the snapshot
+     */
+    private void compactJournalNow() {
+        compactStore();
+        Path snapshot = journal.getSnapshotFile();
+        Path temp = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+        try {
+            if (isCsvFile(snapshot)) {
+                writeCsv(store, temp);
+            } else {
+                ExpenseSnapshotFile.write(store, temp);
+            }
+            Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            journal.reset();
+            journalGeneration++;
+            System.out.println("✅ Journal compacted into " + snapshot);
+        } catch (IOException e) {
+            System.err.println("❌ Error compacting journal: " + e.getMessage());
+            throw new RuntimeException("Failed to compact journal", e);
+        }
+    }
+
+    /**
+     * Stops journaling; the snapshot and journal stay on disk for the next openJournal
+     */
+    public void closeJournal() {
+        long stamp = lock.writeLock();
+        try {
+            closeJournalLocked();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void closeJournalLocked() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            System.err.println("❌ Error closing journal: " + e.getMessage());
+        }
+        journal = null;
+        journalGeneration++;
+    }
+
+    private void journalRow(String type, int row) {
+        if (journal != null) {
+            journalRecord(type + "," + store.id(row) + "," + csvRow(store, row));
+        }
+    }
+
+    /**
+     * Journals the rows from first (inclusive) to end (exclusive) with a single flush
+     */
+    private void journalRows(String type, int first, int end) {
+        if (journal == null) {
+            return;
+        }
+        List<String> records = new ArrayList<>(end - first);
+        for (int row = first; row < end; row++) {
+            records.add(type + "," + store.id(row) + "," + csvRow(store, row));
+        }
+        try {
+            journal.appendAll(records);
+        } catch (IOException e) {
+            System.err.println("❌ Error writing journal: " + e.getMessage());
+            throw new RuntimeException("Failed to write journal", e);
+        }
+    }
+
+    private void journalRecord(String record) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.append(record);
+        } catch (IOException e) {
+            System.err.println("❌ Error writing journal: " + e.getMessage());
+            throw new RuntimeException("Failed to write journal", e);
+        }
+    }
+
+    private void compactJournalIfDue() {
+        if (journal != null && !compactionQueued
+                && journal.getRecordCount() >= Math.max(MIN_COMPACTION_RECORDS, store.liveCount())) {
+            compactionQueued = true;
+            Path snapshot = journal.getSnapshotFile();
+            saver().submit(snapshot, isCsvFile(snapshot)); // Failures are logged; the journal keeps growing until one succeeds
+        }
+    }
+
+    /**
+     * After a bulk load the old journal no longer applies, so the loaded state becomes the new snapshot
+     */
+    private void snapshotIfJournaled() {
+        if (journal != null) {
+            compactJournalNow();
+        }
+    }
+
+    private static boolean isCsvFile(Path file) {
+        return file.getFileName().toString().toLowerCase().endsWith(".csv");
+    }
+
+    private boolean isJournalSnapshot(String fileName) {
+        return journal != null && Paths.get(fileName).toAbsolutePath().normalize()
+                                       .equals(journal.getSnapshotFile().toAbsolutePath().normalize());
+    }
+
+    // ========== INDEX MAINTENANCE ==========
+
+    /**
+     * Adds the most recently appended row to every index
+     */
+    private void indexLastRow() {
+        indexRow(store.size() - 1);
+    }
+
+    /**
+     * Adds one live row to every index
+     */
+    private void indexRow(int row) {
+        idIndex.put(store.id(row), row);
+        descriptionIndex.addRow(store.descriptionId(row), store.id(row));
+        int category = store.categoryOrdinal(row);
+        long cents = store.amountCents(row);
+        dateIndex.add(store.epochDay(row), category, cents);
+        spendingPyramid.add(store.epochDay(row), category, cents);
+        rollupCube.add(store.epochDay(row), category, cents);
+        categoryCents[category] += cents;
+        categoryCounts[category]++;
+    }
+
+    /**
+     * Takes a row out of every index; call before removing it from the store
+     */
+    private void unindexRow(int row) {
+        idIndex.remove(store.id(row));
+        descriptionIndex.removeRow(store.descriptionId(row));
+        int category = store.categoryOrdinal(row);
+        long cents = store.amountCents(row);
+        dateIndex.remove(store.epochDay(row), category, cents);
+        spendingPyramid.remove(store.epochDay(row), category, cents);
+        rollupCube.remove(store.epochDay(row), category, cents);
+        categoryCents[category] -= cents;
+        categoryCounts[category]--;
+    }
+
+    /**
+     * Rebuilds every index from the store in one pass, after a bulk load
+     */
+    private void rebuildIndexes() {
+        store.compact();
+        reindexIds();
+        descriptionIndex.clear(); // The store's dictionary is a new one
+        dateIndex.rebuild(store);
+        spendingPyramid.rebuild(store);
+        rollupCube.rebuild(store);
+        Arrays.fill(categoryCents, 0);
+        Arrays.fill(categoryCounts, 0);
+        for (int row = 0; row < store.size(); row++) {
+            int category = store.categoryOrdinal(row);
+            categoryCents[category] += store.amountCents(row);
+            categoryCounts[category]++;
+        }
+    }
+
+    /**
+     * Maps every ID to its row again, after rows have moved
+     */
+    private void reindexIds() {
+        idIndex.clear(store.size());
+        for (int row = 0; row < store.size(); row++) {
+            idIndex.put(store.id(row), row);
+        }
+    }
+
+    /**
+     * Squeezes removed rows out of the store before a scan that numbers rows, or once they outnumber the live ones
+     * Runs at most once per batch of removals, so removal itself stays O(1) amortized
+     */
+    private void compactStore() {
+        if (store.compact()) {
+            reindexIds();
+        }
+    }
+
+    // ========== CHANGE EVENTS ==========
+
+    /**
+     * Registers a listener for the changes made from now on
+     * Each add, bulk add, import, remove, sort, load and clear produces exactly one event, so a
+     * listener can apply it as a delta instead of re-reading all expenses
+     *
+     * @param listener The listener (cannot be null); registering it twice delivers every event twice
+     * @throws IllegalArgumentException if listener is null
+     */
+    public void addChangeListener(ExpenseChangeListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+        listeners.add(listener);
+    }
+
+    /**
+     * Unregisters a listener; events already queued may still reach it
+     *
+     * @param listener The listener to remove
+     * @return true if it was registered
+     */
+    public boolean removeChangeListener(ExpenseChangeListener listener) {
+        return listeners.remove(listener);
+    }
+
+    /**
+     * Queues the event for an expense just added at the given row; the caller holds the write lock
+     */
+    private void queueAdded(int row) {
+        if (!listeners.isEmpty()) {
+            pendingChanges.add(new ExpenseChangeEvent(ExpenseChangeEvent.Type.ADDED, version, store.liveCount() - 1, 1,
+                                                      List.of(store.get(row))));
+        }
+    }
+
+    /**
+     * Queues an event for delivery once the write lock is released; the caller holds it
+     */
+    private void queueChange(ExpenseChangeEvent event) {
+        if (!listeners.isEmpty()) {
+            pendingChanges.add(event);
+        }
+    }
+
+    /**
+     * Delivers the queued events in order; called without the lock after every change
+     * A listener that changes the manager itself gets that event after the current one has reached
+     * every listener, since the outer loop delivers it
+     */
+    private void dispatchChanges() {
+        if (pendingChanges.isEmpty()) {
+            return;
+        }
+        synchronized (pendingChanges) {
+            if (dispatching) {
+                return;
+            }
+            dispatching = true;
+            try {
+                ExpenseChangeEvent event;
+                while ((event = pendingChanges.poll()) != null) {
+                    for (ExpenseChangeListener listener : listeners) {
+                        try {
+                            listener.expensesChanged(event);
+                        } catch (RuntimeException e) {
+                            System.err.println("❌ Error in expense listener: " + e.getMessage());
+                        }
+                    }
+                }
+            } finally {
+                dispatching = false;
+            }
+        }
+    }
+
+    // ========== UTILITY METHODS ==========
+    
+    /**
+     * Clears all expenses from the manager
+     */
+    public void clearExpenses() {
+        long stamp = lock.writeLock();
+        try {
+            int cleared = store.liveCount();
+            clearState();
+            version++;
+            queueChange(ExpenseChangeEvent.whole(ExpenseChangeEvent.Type.CLEARED, version, cleared));
+            journalRecord("C");
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        dispatchChanges();
+        if (verbose) {
+            System.out.println("✅ All expenses cleared.");
+        }
+    }
+
+    /**
+     * Turns the success messages of adds, removes and clears on or off
+     * Bulk producers switch them off so that console output does not dominate the cost of an add
+     * 
+     * @param verbose true to print them (the default), false to stay quiet; errors are printed either way
+     */
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+
+    /**
+     * @return Whether success messages are printed
+     */
+    public boolean isVerbose() {
+        return verbose;
+    }
+
+    /**
+     * Empties the store and every index
+     */
+    private void clearState() {
+        store.clear();
+        dateIndex.clear();
+        spendingPyramid.clear();
+        rollupCube.clear();
+        descriptionIndex.clear();
+        idIndex.clear(0);
+        Arrays.fill(categoryCents, 0);
+        Arrays.fill(categoryCounts, 0);
+    }
+
+    /**
+     * Gets all expenses for external access
+     * Returns the same immutable snapshot as getSnapshot, so repeated calls do not copy the ledger
+     * 
+     * @return An unmodifiable list of all expenses; later changes to the manager do not show up in it
+     */
+    public List<Expense> getExpenses() {
+        return getSnapshot();
+    }
+
+    /**
+     * Gets an immutable, consistent view of all expenses at the current version
+     * While nothing changes every call returns the same snapshot without locking. After a change the
+     * next call publishes a new one that shares all unchanged storage with the previous ones
+     * 
+     * @return The snapshot for the current version
+     */
+    public ExpenseSnapshot getSnapshot() {
+        long stamp = lock.tryOptimisticRead();
+        ExpenseSnapshot current = snapshot;
+        long currentVersion = version;
+        if (lock.validate(stamp) && current != null && current.getVersion() == currentVersion) {
+            return current;
+        }
+
+        stamp = lock.writeLock(); // Publishing compacts the store and marks its chunks shared
+        try {
+            if (snapshot == null || snapshot.getVersion() != version) {
+                compactStore();
+                snapshot = new ExpenseSnapshot(store.shareCopy(), version);
+            }
+            return snapshot;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Gets the current version of the expenses, which changes with every add, remove, sort, load and clear
+     * Cheap enough to poll: a caller holding a snapshot of the same version has seen everything
+     * 
+     * @return The version
+     */
+    public long getVersion() {
+        return readOptimistically(() -> version);
+    }
+
+    /**
+     * Prints all expenses in a formatted manner
+     */
+    public void printAllExpenses() {
+        List<Expense> expenses = getExpenses(); // Printed without holding the lock
+        if (expenses.isEmpty()) {
+            System.out.println("ℹ️ No expenses to display.");
+            return;
+        }
+        
+        System.out.println("📋 Total expenses: " + expenses.size());
+        System.out.println("=" + "=".repeat(50));
+        
+        for (int i = 0; i < expenses.size(); i++) {
+            System.out.println("[" + (i + 1) + "] " + expenses.get(i));
+        }
+    }
+    
+    /**
+     * Gets the total number of expenses
+     * 
+     * @return The number of expenses in the manager
+     */
+    public int getExpenseCount() {
+        return (int) readOptimistically(() -> store.liveCount());
+    }
+    
+    /**
+     * Gets the total amount of all expenses
+     * 
+     * @return The sum of all expense amounts
+     */
+    public double getTotalAmount() {
+        return Money.fromCents(getTotalAmountCents());
+    }
+
+    /**
+     * Gets the total amount of all expenses in cents
+     * Served from the running category totals, which are kept in cents, so it is exact and its
+     * cost does not depend on the number of expenses
+     * 
+     * @return The sum of all expense amounts in cents
+     */
+    public long getTotalAmountCents() {
+        return readOptimistically(() -> {
+            long total = 0;
+            for (long cents : categoryCents) {
+                total += cents;
+            }
+            return total;
+        });
+    }
+
+    /**
+     * Runs a short read without locking and returns its result if no change got in meanwhile,
+     * otherwise runs it again under the read lock; readers never hold up writers this way
+     * Only for reads of fixed-size fields, which cannot fail when they race a change
+     */
+    private long readOptimistically(LongSupplier read) {
+        long stamp = lock.tryOptimisticRead();
+        long value = read.getAsLong();
+        if (lock.validate(stamp)) {
+            return value;
+        }
+        stamp = lock.readLock();
+        try {
+            return read.getAsLong();
+        } finally {
+            lock.unlockRead(stamp);
+        }
     }
 
 }
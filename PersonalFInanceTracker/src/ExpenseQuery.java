@@ -0,0 +1,320 @@
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.Predicate;
+
+/**
+ * Conditions an expense must meet, combined with AND
+ * Build one with ExpenseQuery.builder() and run it with ExpenseManager.query, aggregate, sum or count;
+ * explain shows how the manager would run it
+ */
+public final class ExpenseQuery {
+
+    private final int categoryMask;         // Bit per category ordinal; 0 means any category
+    private final int fromDay;
+    private final int toDay;
+    private final long minCents;
+    private final long maxCents;
+    private final Predicate<String> description; // null means any description
+    private final String descriptionText;        // For explain
+    private final String descriptionNeedle;      // Text the description index can look up, or null
+    private final boolean descriptionWordStart;
+    private final long[] ids;                    // Sorted; null means any ID
+
+    private ExpenseQuery(Builder builder) {
+        this.categoryMask = builder.categoryMask;
+        this.fromDay = builder.fromDay;
+        this.toDay = builder.toDay;
+        this.minCents = builder.minCents;
+        this.maxCents = builder.maxCents;
+        this.description = builder.description;
+        this.descriptionText = builder.descriptionText;
+        this.descriptionNeedle = builder.descriptionNeedle;
+        this.descriptionWordStart = builder.descriptionWordStart;
+        this.ids = builder.ids;
+    }
+
+    /**
+     * Starts a query that matches every expense until conditions are added
+     *
+     * @return A new builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    // ========== CONDITIONS, FOR THE PLANNER ==========
+
+    boolean hasCategories() {
+        return categoryMask != 0;
+    }
+
+    boolean matchesCategory(int ordinal) {
+        return categoryMask == 0 || (categoryMask & (1 << ordinal)) != 0;
+    }
+
+    int categoryMask() {
+        return categoryMask;
+    }
+
+    boolean hasDateRange() {
+        return fromDay != Integer.MIN_VALUE || toDay != Integer.MAX_VALUE;
+    }
+
+    int fromDay() {
+        return fromDay;
+    }
+
+    int toDay() {
+        return toDay;
+    }
+
+    boolean hasAmountRange() {
+        return minCents != Long.MIN_VALUE || maxCents != Long.MAX_VALUE;
+    }
+
+    long minCents() {
+        return minCents;
+    }
+
+    long maxCents() {
+        return maxCents;
+    }
+
+    Predicate<String> description() {
+        return description;
+    }
+
+    /**
+     * @return The text the description must contain, or null if the description test is a predicate
+     */
+    String descriptionNeedle() {
+        return descriptionNeedle;
+    }
+
+    boolean descriptionWordStart() {
+        return descriptionWordStart;
+    }
+
+    long[] ids() {
+        return ids;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("expenses");
+        String separator = " where ";
+        if (hasCategories()) {
+            StringBuilder names = new StringBuilder();
+            for (ExpenseCategory category : ExpenseCategory.values()) {
+                if (matchesCategory(category.ordinal())) {
+                    names.append(names.length() == 0 ? "" : ", ").append(category);
+                }
+            }
+            text.append(separator).append("category in (").append(names).append(')');
+            separator = " and ";
+        }
+        if (hasDateRange()) {
+            text.append(separator).append("date between ")
+                .append(fromDay == Integer.MIN_VALUE ? "start" : ExpenseDates.format(fromDay)).append(" and ")
+                .append(toDay == Integer.MAX_VALUE ? "end" : ExpenseDates.format(toDay));
+            separator = " and ";
+        }
+        if (hasAmountRange()) {
+            text.append(separator).append("amount between ")
+                .append(minCents == Long.MIN_VALUE ? "any" : String.format("%.2f", Money.fromCents(minCents)))
+                .append(" and ")
+                .append(maxCents == Long.MAX_VALUE ? "any" : String.format("%.2f", Money.fromCents(maxCents)));
+            separator = " and ";
+        }
+        if (description != null) {
+            text.append(separator).append("description ").append(descriptionText);
+            separator = " and ";
+        }
+        if (ids != null) {
+            text.append(separator).append("id in ").append(ids.length).append(" ids");
+        }
+        return text.toString();
+    }
+
+    /**
+     * Collects the conditions of a query; calling a method again replaces that condition
+     */
+    public static final class Builder {
+        private int categoryMask;
+        private int fromDay = Integer.MIN_VALUE;
+        private int toDay = Integer.MAX_VALUE;
+        private long minCents = Long.MIN_VALUE;
+        private long maxCents = Long.MAX_VALUE;
+        private Predicate<String> description;
+        private String descriptionText;
+        private String descriptionNeedle;
+        private boolean descriptionWordStart;
+        private long[] ids;
+
+        private Builder() {
+        }
+
+        /**
+         * Matches expenses in any of the given categories
+         *
+         * @param categories The categories (at least one, none null)
+         * @return This builder
+         * @throws IllegalArgumentException if no category is given or one is null
+         */
+        public Builder categories(ExpenseCategory... categories) {
+            if (categories == null || categories.length == 0) {
+                throw new IllegalArgumentException("At least one category is required");
+            }
+            return categories(Arrays.asList(categories));
+        }
+
+        /**
+         * Matches expenses in any of the given categories
+         *
+         * @param categories The categories (at least one, none null)
+         * @return This builder
+         * @throws IllegalArgumentException if no category is given or one is null
+         */
+        public Builder categories(Collection<ExpenseCategory> categories) {
+            if (categories == null || categories.isEmpty()) {
+                throw new IllegalArgumentException("At least one category is required");
+            }
+            int mask = 0;
+            for (ExpenseCategory category : categories) {
+                if (category == null) {
+                    throw new IllegalArgumentException("Category cannot be null");
+                }
+                mask |= 1 << category.ordinal();
+            }
+            categoryMask = mask;
+            return this;
+        }
+
+        /**
+         * Matches expenses dated within a range, both ends included
+         *
+         * @param startDate The first date in dd-MM-yyyy format, or null for no lower bound
+         * @param endDate The last date in dd-MM-yyyy format, or null for no upper bound
+         * @return This builder
+         * @throws IllegalArgumentException if a date is invalid or the range is reversed
+         */
+        public Builder dateRange(String startDate, String endDate) {
+            return dayRange(startDate == null ? Integer.MIN_VALUE : ExpenseDates.toEpochDay(startDate.trim()),
+                            endDate == null ? Integer.MAX_VALUE : ExpenseDates.toEpochDay(endDate.trim()));
+        }
+
+        /**
+         * Matches expenses dated within a range of epoch days, both ends included
+         *
+         * @param fromEpochDay The first day, as days since 1970-01-01
+         * @param toEpochDay The last day
+         * @return This builder
+         * @throws IllegalArgumentException if the range is reversed
+         */
+        public Builder dayRange(int fromEpochDay, int toEpochDay) {
+            if (fromEpochDay > toEpochDay) {
+                throw new IllegalArgumentException("Start date must not be after end date");
+            }
+            fromDay = fromEpochDay;
+            toDay = toEpochDay;
+            return this;
+        }
+
+        /**
+         * Matches expenses whose amount lies within a range, both ends included
+         *
+         * @param minAmount The smallest amount
+         * @param maxAmount The largest amount
+         * @return This builder
+         * @throws IllegalArgumentException if the range is reversed
+         */
+        public Builder amountRange(double minAmount, double maxAmount) {
+            if (minAmount > maxAmount) {
+                throw new IllegalArgumentException("Minimum amount must not exceed maximum amount");
+            }
+            minCents = Money.toCents(minAmount);
+            maxCents = Money.toCents(maxAmount);
+            return this;
+        }
+
+        /**
+         * Matches expenses whose description contains the given text, ignoring case
+         *
+         * @param text The text to look for
+         * @return This builder
+         * @throws IllegalArgumentException if text is null or empty
+         */
+        public Builder descriptionContains(String text) {
+            if (text == null || text.isEmpty()) {
+                throw new IllegalArgumentException("Text cannot be null or empty");
+            }
+            description = d -> DescriptionIndex.test(d, text, false);
+            descriptionText = "contains '" + text + "'";
+            descriptionNeedle = text;
+            descriptionWordStart = false;
+            return this;
+        }
+
+        /**
+         * Matches expenses with a word in the description that starts with the given text, ignoring case
+         * Words are separated by anything but letters and digits, so "net" matches "Netflix" and
+         * "TV-Netflix" but not "Internet"
+         *
+         * @param prefix The start of the word
+         * @return This builder
+         * @throws IllegalArgumentException if prefix is null or empty
+         */
+        public Builder descriptionWordStartsWith(String prefix) {
+            if (prefix == null || prefix.isEmpty()) {
+                throw new IllegalArgumentException("Prefix cannot be null or empty");
+            }
+            description = d -> DescriptionIndex.test(d, prefix, true);
+            descriptionText = "has a word starting with '" + prefix + "'";
+            descriptionNeedle = prefix;
+            descriptionWordStart = true;
+            return this;
+        }
+
+        /**
+         * Matches expenses whose description passes a test
+         * The test runs once per distinct description, not once per expense
+         *
+         * @param test The test
+         * @return This builder
+         * @throws IllegalArgumentException if test is null
+         */
+        public Builder descriptionMatches(Predicate<String> test) {
+            if (test == null) {
+                throw new IllegalArgumentException("Test cannot be null");
+            }
+            description = test;
+            descriptionText = "matches a predicate";
+            descriptionNeedle = null;
+            return this;
+        }
+
+        /**
+         * Matches the expenses with the given IDs
+         *
+         * @param expenseIds The IDs
+         * @return This builder
+         * @throws IllegalArgumentException if no ID is given
+         */
+        public Builder ids(long... expenseIds) {
+            if (expenseIds == null || expenseIds.length == 0) {
+                throw new IllegalArgumentException("At least one ID is required");
+            }
+            long[] sorted = expenseIds.clone();
+            Arrays.sort(sorted);
+            ids = sorted;
+            return this;
+        }
+
+        /**
+         * @return The query
+         */
+        public ExpenseQuery build() {
+            return new ExpenseQuery(this);
+        }
+    }
+}
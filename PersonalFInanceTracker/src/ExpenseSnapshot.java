@@ -0,0 +1,183 @@
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Immutable view of all expenses at one version of an ExpenseManager
+ * The view shares its storage with the manager instead of copying it, so taking one is cheap,
+ * and later changes to the manager never show up in it. Every get builds a detached Expense
+ * from the stored columns
+ * A snapshot can be viewed in another order with sorted, which leaves the manager's own order alone
+ * Searches such as ExpenseManager.searchDescriptions return a view of just some of its expenses;
+ * sorted and unsorted keep to those
+ */
+public final class ExpenseSnapshot extends AbstractList<Expense> implements RandomAccess {
+
+    private final ExpenseStore rows; // Compacted and never written to again
+    private final long version;
+    private final int[] selection;   // Rows in this view, ascending, or null for all rows
+    private final int[] order;       // Row shown at each position, or null for the selection in ledger order
+    private final SortSpec sortSpec;
+    private volatile ZoneMap zoneMap; // Built by the first query that scans this snapshot
+
+    ExpenseSnapshot(ExpenseStore rows, long version) {
+        this(rows, version, null, null, null);
+    }
+
+    private ExpenseSnapshot(ExpenseStore rows, long version, int[] selection, int[] order, SortSpec sortSpec) {
+        this.rows = rows;
+        this.version = version;
+        this.selection = selection;
+        this.order = order;
+        this.sortSpec = sortSpec;
+    }
+
+    /**
+     * Gets the same expenses in another order
+     * Only a permutation of row numbers is computed (a radix sort over the stored columns); the
+     * expenses are shared, not copied. Neither the manager nor other views see the new order
+     * 
+     * @param spec The order, e.g. SortSpec.by(SortSpec.Key.CATEGORY).thenDescending(SortSpec.Key.DATE)
+     * @return A view of this snapshot's expenses in that order; ties keep ledger order
+     * @throws IllegalArgumentException if spec is null
+     */
+    public ExpenseSnapshot sorted(SortSpec spec) {
+        if (spec == null) {
+            throw new IllegalArgumentException("Sort spec cannot be null");
+        }
+        return new ExpenseSnapshot(rows, version, selection, ExpenseSorter.sort(rows, selection, spec), spec);
+    }
+
+    /**
+     * Gets the same expenses in ledger order, the order the manager keeps them in
+     * @return This snapshot if it is not sorted, otherwise an unsorted view
+     */
+    public ExpenseSnapshot unsorted() {
+        return order == null ? this : new ExpenseSnapshot(rows, version, selection, null, null);
+    }
+
+    /**
+     * @return Whether this view shows only some of the snapshot's expenses
+     */
+    public boolean isFiltered() {
+        return selection != null;
+    }
+
+    /**
+     * Gets a view of just the given rows, in ledger order
+     *
+     * @param ascendingRows Row numbers of the stored rows, ascending
+     */
+    ExpenseSnapshot select(int[] ascendingRows) {
+        return new ExpenseSnapshot(rows, version, ascendingRows, null, null);
+    }
+
+    /**
+     * Gets a view of just the given rows, already in the order of a sort spec
+     *
+     * @param rowsInOrder Row numbers of the stored rows, in spec order
+     */
+    ExpenseSnapshot ranked(int[] rowsInOrder, SortSpec spec) {
+        int[] ascendingRows = rowsInOrder.clone();
+        Arrays.sort(ascendingRows);
+        return new ExpenseSnapshot(rows, version, ascendingRows, rowsInOrder, spec);
+    }
+
+    /**
+     * @return The order this view was sorted into, or null for ledger order
+     */
+    public SortSpec getSortSpec() {
+        return sortSpec;
+    }
+
+    /**
+     * Gets the manager version this snapshot shows
+     * Compare it with ExpenseManager.getVersion to tell whether anything changed since
+     * @return The version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    public Expense get(int index) {
+        return rows.get(row(index));
+    }
+
+    // Single fields read straight from the columns, for callers such as table models that
+    // would otherwise build an Expense per cell
+
+    /**
+     * @param index The position in this snapshot
+     * @return The ID of the expense at that position
+     */
+    public long getId(int index) {
+        return rows.id(row(index));
+    }
+
+    /**
+     * @param index The position in this snapshot
+     * @return The amount of the expense at that position
+     */
+    public double getAmount(int index) {
+        return Money.fromCents(getAmountCents(index));
+    }
+
+    long getAmountCents(int index) {
+        return rows.amountCents(row(index));
+    }
+
+    /**
+     * @param index The position in this snapshot
+     * @return The category of the expense at that position
+     */
+    public ExpenseCategory getCategory(int index) {
+        return rows.category(row(index));
+    }
+
+    /**
+     * @param index The position in this snapshot
+     * @return The date of the expense at that position, as days since 1970-01-01
+     */
+    public int getEpochDay(int index) {
+        return rows.epochDay(row(index));
+    }
+
+    /**
+     * @param index The position in this snapshot
+     * @return The description of the expense at that position
+     */
+    public String getDescription(int index) {
+        return rows.description(row(index));
+    }
+
+    @Override
+    public int size() {
+        return selection == null ? rows.size() : selection.length;
+    }
+
+    /**
+     * Gets the stored rows, numbered in ledger order whatever order this view is in
+     */
+    ExpenseStore rows() {
+        return rows;
+    }
+
+    /**
+     * Gets the per-chunk summary of the rows, building it on first use
+     */
+    ZoneMap zoneMap() {
+        ZoneMap zones = zoneMap;
+        if (zones == null) {
+            zones = new ZoneMap(rows); // Two threads may both build it; either result is the same
+            zoneMap = zones;
+        }
+        return zones;
+    }
+
+    private int row(int index) {
+        Objects.checkIndex(index, size());
+        return order != null ? order[index] : selection != null ? selection[index] : index;
+    }
+}
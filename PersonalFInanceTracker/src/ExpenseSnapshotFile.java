@@ -0,0 +1,388 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.DoubleConsumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary snapshot of an ExpenseStore, the default on-disk state of the ledger.
+ *
+ * The file mirrors the store's columns, so loading it is a handful of bulk
+ * buffer copies instead of parsing text line by line. Layout (little-endian):
+ *
+ *   header   magic "EXPSNAP\0", int version, int rows, int descriptions,
+ *            int reserved, long string table bytes, long CRC32C of the body,
+ *            long highest expense ID handed out
+ *   body     long[rows] expense IDs, long[rows] amounts in cents,
+ *            int[rows] epoch days, byte[rows] category ordinals,
+ *            int[rows] description ids, int[descriptions] UTF-8 lengths,
+ *            then the UTF-8 description bytes
+ *
+ * Version 1 files have no ID column or highest ID (a 40-byte header); their
+ * rows get IDs 1..rows when read.
+ *
+ * CSV stays the import/export format; see ExpenseManager.saveExpensesToFile.
+ */
+final class ExpenseSnapshotFile {
+
+    static final int VERSION = 2;
+    static final String EXTENSION = ".dat";
+
+    private static final byte[] MAGIC = {'E', 'X', 'P', 'S', 'N', 'A', 'P', 0};
+    private static final int HEADER_SIZE = 48;
+    private static final int HEADER_SIZE_V1 = 40;
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final ExpenseCategory[] CATEGORIES = ExpenseCategory.values();
+
+    private ExpenseSnapshotFile() {
+    }
+
+    /**
+     * Checks whether a file starts with the snapshot magic
+     *
+     * @param file The file to check
+     * @return true if the file is a binary snapshot
+     * @throws IOException if the file cannot be read
+     */
+    static boolean isSnapshot(Path file) throws IOException {
+        if (!Files.isRegularFile(file) || Files.size(file) < MAGIC.length) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(MAGIC.length);
+            while (magic.hasRemaining() && channel.read(magic) >= 0) {
+                // Keep reading until the magic is complete
+            }
+            return !magic.hasRemaining() && Arrays.equals(magic.array(), MAGIC);
+        }
+    }
+
+    /**
+     * Writes the store to a file and forces it to disk
+     *
+     * @param store The rows to write; must be compacted
+     * @param file The target file; replaced if it exists
+     * @throws IOException if the file cannot be written
+     */
+    static void write(ExpenseStore store, Path file) throws IOException {
+        if (store.hasTombstones()) {
+            throw new IllegalStateException("Compact the store before writing a snapshot");
+        }
+        int rows = store.size();
+        List<byte[]> texts = new ArrayList<>(store.descriptionCount());
+        long stringBytes = 0;
+        for (int id = 0; id < store.descriptionCount(); id++) {
+            byte[] text = store.descriptionText(id).getBytes(StandardCharsets.UTF_8);
+            texts.add(text);
+            stringBytes += text.length;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            Output out = new Output(channel);
+            channel.position(HEADER_SIZE); // Header goes in last, once the checksum is known
+
+            for (int c = 0; c < store.chunkCount(); c++) {
+                out.putLongs(store.idChunk(c), store.rowsInChunk(c));
+            }
+            for (int c = 0; c < store.chunkCount(); c++) {
+                out.putLongs(store.amountChunk(c), store.rowsInChunk(c));
+            }
+            for (int c = 0; c < store.chunkCount(); c++) {
+                out.putInts(store.dayChunk(c), store.rowsInChunk(c));
+            }
+            for (int c = 0; c < store.chunkCount(); c++) {
+                out.putBytes(store.categoryChunk(c), 0, store.rowsInChunk(c));
+            }
+            for (int c = 0; c < store.chunkCount(); c++) {
+                out.putInts(store.descriptionChunk(c), store.rowsInChunk(c));
+            }
+            for (byte[] text : texts) {
+                out.ensure(Integer.BYTES);
+                out.buffer.putInt(text.length);
+            }
+            for (byte[] text : texts) {
+                out.putBytes(text, 0, text.length);
+            }
+            out.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.put(MAGIC).putInt(VERSION).putInt(rows).putInt(texts.size()).putInt(0)
+                  .putLong(stringBytes).putLong(out.crc.getValue()).putLong(store.lastId()).flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Reads a snapshot into a new store
+     *
+     * @param file The snapshot file
+     * @return The loaded rows
+     * @throws IOException if the file cannot be read, is not a snapshot, has an unsupported
+     *         version or fails its checksum
+     */
+    static ExpenseStore read(Path file) throws IOException {
+        return read(file, fraction -> { });
+    }
+
+    /**
+     * Reads a snapshot into a new store
+     *
+     * @param file The snapshot file
+     * @param progress Receives the share of the file read, from 0 to 1, after every buffer refill
+     * @return The loaded rows
+     * @throws IOException if the file cannot be read, is not a snapshot, has an unsupported
+     *         version or fails its checksum
+     */
+    static ExpenseStore read(Path file, DoubleConsumer progress) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE_V1).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Keep reading until the header is complete
+            }
+            header.flip();
+            byte[] magic = new byte[MAGIC.length];
+            if (header.remaining() == HEADER_SIZE_V1) {
+                header.get(magic);
+            }
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException(file + " is not an expense snapshot");
+            }
+            int version = header.getInt();
+            if (version != 1 && version != VERSION) {
+                throw new IOException(file + " has snapshot version " + version + ", expected at most " + VERSION);
+            }
+            int rows = header.getInt();
+            int descriptionCount = header.getInt();
+            header.getInt(); // Reserved
+            long stringBytes = header.getLong();
+            long expectedCrc = header.getLong();
+            long lastId = rows;
+            if (version >= 2) {
+                ByteBuffer tail = ByteBuffer.allocate(HEADER_SIZE - HEADER_SIZE_V1).order(ByteOrder.LITTLE_ENDIAN);
+                while (tail.hasRemaining() && channel.read(tail) >= 0) {
+                    // Keep reading until the header is complete
+                }
+                lastId = tail.flip().remaining() == Long.BYTES ? tail.getLong() : -1;
+            }
+
+            int headerSize = version >= 2 ? HEADER_SIZE : HEADER_SIZE_V1;
+            int bytesPerRow = version >= 2 ? 25 : 17;
+            long expectedSize = headerSize + (long) bytesPerRow * rows + 4L * descriptionCount + stringBytes;
+            if (rows < 0 || descriptionCount < 0 || channel.size() != expectedSize) {
+                throw new IOException(file + " is truncated or corrupt (" + channel.size() + " bytes, expected "
+                                      + expectedSize + ")");
+            }
+
+            Input in = new Input(channel, progress);
+            ExpenseStore store = new ExpenseStore();
+            store.allocate(rows);
+            for (int c = 0; c < store.chunkCount(); c++) {
+                if (version >= 2) {
+                    in.getLongs(store.idChunk(c), store.rowsInChunk(c));
+                } else {
+                    long[] ids = store.idChunk(c);
+                    for (int o = 0; o < store.rowsInChunk(c); o++) {
+                        ids[o] = ((long) c << ExpenseStore.CHUNK_SHIFT) + o + 1;
+                    }
+                }
+            }
+            for (int c = 0; c < store.chunkCount(); c++) {
+                in.getLongs(store.amountChunk(c), store.rowsInChunk(c));
+            }
+            for (int c = 0; c < store.chunkCount(); c++) {
+                in.getInts(store.dayChunk(c), store.rowsInChunk(c));
+            }
+            for (int c = 0; c < store.chunkCount(); c++) {
+                in.getBytes(store.categoryChunk(c), 0, store.rowsInChunk(c));
+            }
+            for (int c = 0; c < store.chunkCount(); c++) {
+                in.getInts(store.descriptionChunk(c), store.rowsInChunk(c));
+            }
+
+            int[] lengths = new int[descriptionCount];
+            in.getInts(lengths, descriptionCount);
+            List<String> descriptions = new ArrayList<>(descriptionCount);
+            byte[] scratch = new byte[256];
+            for (int length : lengths) {
+                if (length > scratch.length) {
+                    scratch = new byte[Math.max(length, scratch.length * 2)];
+                }
+                in.getBytes(scratch, 0, length);
+                descriptions.add(new String(scratch, 0, length, StandardCharsets.UTF_8));
+            }
+
+            if (in.crc.getValue() != expectedCrc) {
+                throw new IOException(file + " failed its checksum");
+            }
+            checkReferences(store, descriptionCount, lastId, file);
+            store.setDescriptions(descriptions);
+            store.setLastId(lastId);
+            return store;
+        }
+    }
+
+    // ========== INTERNALS ==========
+
+    /**
+     * Rejects category ordinals and description ids that point outside their tables, and IDs
+     * outside 1..lastId
+     * A passing checksum only proves the file is what was written, not that the writer was right
+     */
+    private static void checkReferences(ExpenseStore store, int descriptionCount, long lastId, Path file)
+            throws IOException {
+        for (int c = 0; c < store.chunkCount(); c++) {
+            long[] ids = store.idChunk(c);
+            byte[] categories = store.categoryChunk(c);
+            int[] descriptionIds = store.descriptionChunk(c);
+            int rows = store.rowsInChunk(c);
+            for (int o = 0; o < rows; o++) {
+                if (ids[o] <= ExpenseStore.TOMBSTONE || ids[o] > lastId
+                        || categories[o] < 0 || categories[o] >= CATEGORIES.length
+                        || descriptionIds[o] < 0 || descriptionIds[o] >= descriptionCount) {
+                    throw new IOException(file + " refers to an unknown ID, category or description in row "
+                                          + ((c << ExpenseStore.CHUNK_SHIFT) + o));
+                }
+            }
+        }
+    }
+
+    /**
+     * Buffered channel writer that checksums everything it writes
+     */
+    private static final class Output {
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        final CRC32C crc = new CRC32C();
+        private final FileChannel channel;
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void putLongs(long[] values, int count) throws IOException {
+            int done = 0;
+            while (done < count) {
+                ensure(Long.BYTES);
+                int n = Math.min(count - done, buffer.remaining() / Long.BYTES);
+                buffer.asLongBuffer().put(values, done, n);
+                buffer.position(buffer.position() + n * Long.BYTES);
+                done += n;
+            }
+        }
+
+        void putInts(int[] values, int count) throws IOException {
+            int done = 0;
+            while (done < count) {
+                ensure(Integer.BYTES);
+                int n = Math.min(count - done, buffer.remaining() / Integer.BYTES);
+                buffer.asIntBuffer().put(values, done, n);
+                buffer.position(buffer.position() + n * Integer.BYTES);
+                done += n;
+            }
+        }
+
+        void putBytes(byte[] values, int offset, int count) throws IOException {
+            int done = 0;
+            while (done < count) {
+                ensure(1);
+                int n = Math.min(count - done, buffer.remaining());
+                buffer.put(values, offset + done, n);
+                done += n;
+            }
+        }
+
+        void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            crc.update(buffer.duplicate());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Buffered channel reader that checksums everything it reads
+     */
+    private static final class Input {
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        final CRC32C crc = new CRC32C();
+        private final FileChannel channel;
+        private final DoubleConsumer progress;
+
+        Input(FileChannel channel, DoubleConsumer progress) {
+            this.channel = channel;
+            this.progress = progress;
+            buffer.limit(0);
+        }
+
+        void getLongs(long[] values, int count) throws IOException {
+            int done = 0;
+            while (done < count) {
+                require(Long.BYTES);
+                int n = Math.min(count - done, buffer.remaining() / Long.BYTES);
+                buffer.asLongBuffer().get(values, done, n);
+                buffer.position(buffer.position() + n * Long.BYTES);
+                done += n;
+            }
+        }
+
+        void getInts(int[] values, int count) throws IOException {
+            int done = 0;
+            while (done < count) {
+                require(Integer.BYTES);
+                int n = Math.min(count - done, buffer.remaining() / Integer.BYTES);
+                buffer.asIntBuffer().get(values, done, n);
+                buffer.position(buffer.position() + n * Integer.BYTES);
+                done += n;
+            }
+        }
+
+        void getBytes(byte[] values, int offset, int count) throws IOException {
+            int done = 0;
+            while (done < count) {
+                require(1);
+                int n = Math.min(count - done, buffer.remaining());
+                buffer.get(values, offset + done, n);
+                done += n;
+            }
+        }
+
+        /**
+         * Refills the buffer until at least the given number of bytes is available
+         */
+        private void require(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+            buffer.compact();
+            while (buffer.position() < bytes) {
+                int start = buffer.position();
+                int read = channel.read(buffer);
+                if (read < 0) {
+                    throw new IOException("Unexpected end of snapshot");
+                }
+                crc.update(buffer.duplicate().flip().position(start));
+            }
+            buffer.flip();
+            progress.accept((double) channel.position() / channel.size());
+        }
+    }
+}
@@ -0,0 +1,154 @@
+import java.util.Arrays;
+
+/**
+ * Computes the order of a store's rows for a SortSpec with an LSD radix sort.
+ *
+ * No comparator is involved: each key is turned into a non-negative long
+ * per row (the offset from the smallest value, or from the largest when
+ * descending; descriptions become their rank in the sorted dictionary), and
+ * the row order is counting-sorted on that long eleven bits at a time, least
+ * significant key first. Every pass is stable, so rows equal on a more
+ * significant key stay in the order the less significant keys gave them, and
+ * rows equal on all keys keep their row order. A pass whose digit is the same
+ * for every row is skipped, so a date key spanning a few years takes one or
+ * two passes and a category key one.
+ *
+ * The cost is O(rows × passes) with sequential array access; the store is
+ * only read, so sorting a snapshot needs no lock.
+ */
+final class ExpenseSorter {
+
+    private static final int DIGIT_BITS = 11;
+    private static final int RADIX = 1 << DIGIT_BITS;
+    private static final int DIGIT_MASK = RADIX - 1;
+
+    private ExpenseSorter() {
+    }
+
+    /**
+     * Sorts the rows of a store that has no tombstones
+     *
+     * @param selection The rows to sort, ascending, or null for all of them
+     * @return The row numbers in sorted order
+     */
+    static int[] sort(ExpenseStore rows, int[] selection, SortSpec spec) {
+        int size = selection == null ? rows.size() : selection.length;
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = selection == null ? i : selection[i];
+        }
+        if (size < 2) {
+            return order;
+        }
+
+        long[] keys = new long[size];
+        long[] keyBuffer = new long[size];
+        int[] orderBuffer = new int[size];
+        int[] counts = new int[RADIX + 1];
+        for (int k = spec.getKeys().size() - 1; k >= 0; k--) {
+            int bits = gatherKey(rows, spec.getKeys().get(k), spec.isDescending(k), order, keys);
+            for (int shift = 0; shift < bits; shift += DIGIT_BITS) {
+                if (!countingPass(keys, order, keyBuffer, orderBuffer, counts, shift)) {
+                    continue; // Every row has the same digit here
+                }
+                long[] sortedKeys = keyBuffer;
+                keyBuffer = keys;
+                keys = sortedKeys;
+                int[] sortedOrder = orderBuffer;
+                orderBuffer = order;
+                order = sortedOrder;
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Fills keys[i] with the key of row order[i], shifted to start at 0
+     *
+     * @return The number of significant bits of the largest key
+     */
+    private static int gatherKey(ExpenseStore rows, SortSpec.Key key, boolean descending, int[] order, long[] keys) {
+        int[] descriptionRanks = key == SortSpec.Key.DESCRIPTION ? descriptionRanks(rows) : null;
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < order.length; i++) {
+            int row = order[i];
+            long value;
+            switch (key) {
+                case DATE:
+                    value = rows.epochDay(row);
+                    break;
+                case AMOUNT:
+                    value = rows.amountCents(row);
+                    break;
+                case CATEGORY:
+                    value = rows.categoryOrdinal(row);
+                    break;
+                case DESCRIPTION:
+                    value = descriptionRanks[rows.descriptionId(row)];
+                    break;
+                default:
+                    value = rows.id(row);
+                    break;
+            }
+            keys[i] = value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+
+        long base = descending ? max : min;
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = descending ? base - keys[i] : keys[i] - base;
+        }
+        return 64 - Long.numberOfLeadingZeros(max - min);
+    }
+
+    /**
+     * Ranks the description dictionary alphabetically; equal texts share a rank
+     */
+    private static int[] descriptionRanks(ExpenseStore rows) {
+        int count = rows.descriptionCount();
+        String[] texts = new String[count];
+        Integer[] ids = new Integer[count];
+        for (int id = 0; id < count; id++) {
+            texts[id] = rows.descriptionText(id);
+            ids[id] = id;
+        }
+        Arrays.sort(ids, (a, b) -> texts[a].compareTo(texts[b])); // Once per distinct text, not per row
+
+        int[] ranks = new int[count];
+        int rank = 0;
+        for (int i = 0; i < count; i++) {
+            if (i > 0 && !texts[ids[i]].equals(texts[ids[i - 1]])) {
+                rank++;
+            }
+            ranks[ids[i]] = rank;
+        }
+        return ranks;
+    }
+
+    /**
+     * Stable counting sort of keys and order by one digit into the buffers
+     *
+     * @return false, leaving the buffers untouched, if every key has the same digit
+     */
+    private static boolean countingPass(long[] keys, int[] order, long[] keyBuffer, int[] orderBuffer,
+                                        int[] counts, int shift) {
+        Arrays.fill(counts, 0);
+        for (long key : keys) {
+            counts[(int) ((key >>> shift) & DIGIT_MASK) + 1]++;
+        }
+        for (int digit = 1; digit <= RADIX; digit++) {
+            if (counts[digit] == keys.length) {
+                return false;
+            }
+            counts[digit] += counts[digit - 1];
+        }
+        for (int i = 0; i < keys.length; i++) {
+            int target = counts[(int) ((keys[i] >>> shift) & DIGIT_MASK)]++;
+            keyBuffer[target] = keys[i];
+            orderBuffer[target] = order[i];
+        }
+        return true;
+    }
+}
@@ -0,0 +1,699 @@
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Column-oriented storage behind ExpenseManager.
+ *
+ * Instead of one Expense object per row, every field lives in its own
+ * primitive column: amounts in cents (long), dates as epoch days (int),
+ * categories as enum ordinals (byte) and descriptions as ids into a
+ * dictionary of distinct texts (int). That is 17 bytes per row plus one
+ * String per distinct description, and scans touch only the columns they
+ * need.
+ *
+ * Columns grow in fixed-size chunks, so adding rows never copies the data
+ * already stored. Expense objects are only created by get(), when a caller
+ * actually asks for one.
+ *
+ * Every row carries a stable ID (long), assigned in ascending order when the
+ * row is added and never reused. Removing a row only overwrites its ID with
+ * TOMBSTONE in O(1); compact() squeezes the tombstones out later in one pass.
+ * Row-by-row scans see tombstoned rows, so callers compact first.
+ *
+ * shareCopy() hands out a copy in O(number of chunks) that shares every
+ * chunk with this store. A chunk stays shared until one side is about to
+ * write to it; that side then copies just that chunk, so a copy that is
+ * only read never costs more than the chunk references.
+ */
+final class ExpenseStore {
+
+    static final int CHUNK_SHIFT = 12;
+    static final int CHUNK_SIZE = 1 << CHUNK_SHIFT; // 4096 rows per chunk
+    static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    static final long TOMBSTONE = 0; // ID of a removed row; real IDs start at 1
+
+    private static final ExpenseCategory[] CATEGORIES = ExpenseCategory.values();
+
+    private long[][] ids = new long[0][];            // Stable expense ID, or TOMBSTONE
+    private long[][] amounts = new long[0][];        // Amount in cents
+    private int[][] days = new int[0][];             // Date as days since 1970-01-01
+    private byte[][] categories = new byte[0][];     // ExpenseCategory ordinal
+    private int[][] descriptionIds = new int[0][];   // Index into descriptions
+    private int chunkCount;                          // Chunks allocated in every column
+    private int size;                                // Rows including tombstones
+    private int tombstones;
+    private int[] tombstoneTree;                     // Tombstones per chunk as a Fenwick tree, built by liveIndex
+    private long lastId;                             // Highest ID handed out so far
+    private BitSet sharedChunks = new BitSet();      // Column chunks another store may still read
+
+    // Dictionary of distinct descriptions, chunked like the columns; the lookup is built on first use
+    private String[][] descriptions = new String[0][];
+    private int descriptionCount;
+    private BitSet sharedDescriptionChunks = new BitSet();
+    private Map<String, Integer> descriptionLookup = new HashMap<>();
+
+    // ========== WRITING ==========
+
+    /**
+     * Validates and appends one row
+     *
+     * @return The new row's ID
+     * @throws IllegalArgumentException if any field is invalid (same rules as the Expense constructor,
+     *         plus an amount of at least one cent)
+     */
+    long add(double amount, ExpenseCategory category, String date, String description) {
+        Expense.validate(amount, category, description);
+        return add(amount, category, Expense.parseDate(date), description);
+    }
+
+    /**
+     * Validates and appends one row whose date is already an epoch day
+     *
+     * @return The new row's ID
+     * @throws IllegalArgumentException if any field is invalid
+     */
+    long add(double amount, ExpenseCategory category, int epochDay, String description) {
+        return add(lastId + 1, amount, category, epochDay, description);
+    }
+
+    /**
+     * Validates and appends one row under a given ID, when replaying a journal
+     * IDs handed out later continue above it
+     *
+     * @return The ID
+     * @throws IllegalArgumentException if any field is invalid
+     */
+    long add(long id, double amount, ExpenseCategory category, int epochDay, String description) {
+        Expense.validate(amount, category, description);
+        return addCents(id, Money.toCents(amount), category, epochDay, description);
+    }
+
+    /**
+     * Validates and appends one row whose amount is already in cents, as parsed from text
+     *
+     * @return The new row's ID
+     * @throws IllegalArgumentException if any field is invalid
+     */
+    long addCents(long amountCents, ExpenseCategory category, int epochDay, String description) {
+        return addCents(lastId + 1, amountCents, category, epochDay, description);
+    }
+
+    /**
+     * Validates and appends one row in cents under a given ID, when replaying a journal
+     *
+     * @return The ID
+     * @throws IllegalArgumentException if any field is invalid
+     */
+    long addCents(long id, long amountCents, ExpenseCategory category, int epochDay, String description) {
+        Expense.validateCents(amountCents, category, description);
+        if (id == TOMBSTONE) {
+            throw new IllegalArgumentException("Expense ID 0 is reserved");
+        }
+        append(id, amountCents, epochDay, category.ordinal(), internDescription(Expense.normalizeDescription(description)));
+        lastId = Math.max(lastId, id);
+        return id;
+    }
+
+    /**
+     * Appends the fields of an existing expense under a new ID
+     *
+     * @return The new row's ID
+     */
+    long add(Expense expense) {
+        return addCents(expense.getAmountCents(), expense.getCategory(), expense.getEpochDay(), expense.getDescription());
+    }
+
+    /**
+     * Appends every live row of another store, keeping their order and giving them new IDs
+     * Column data is block-copied; only description ids are translated into this dictionary
+     */
+    void appendAll(ExpenseStore other) {
+        other.compact();
+        int[] remap = new int[other.descriptionCount];
+        for (int i = 0; i < remap.length; i++) {
+            remap[i] = internDescription(other.descriptionText(i));
+        }
+
+        ensureCapacity(size + other.size);
+        unshare(size, size + other.size);
+        for (int i = 0; i < other.size; i++) {
+            int row = size + i;
+            ids[row >>> CHUNK_SHIFT][row & CHUNK_MASK] = ++lastId;
+        }
+        copyRows(other.amounts, 0, amounts, size, other.size);
+        copyRows(other.days, 0, days, size, other.size);
+        copyRows(other.categories, 0, categories, size, other.size);
+        for (int i = 0; i < other.size; i++) {
+            int row = size + i;
+            descriptionIds[row >>> CHUNK_SHIFT][row & CHUNK_MASK] = remap[other.descriptionId(i)];
+        }
+        size += other.size;
+    }
+
+    /**
+     * Replaces the contents with the given number of zeroed rows and an empty dictionary
+     * Used by bulk readers, which then fill the chunks directly and call setDescriptions and setLastId
+     */
+    void allocate(int rows) {
+        clear();
+        ensureCapacity(rows);
+        size = rows;
+    }
+
+    /**
+     * Gives the rows consecutive IDs starting after the given one
+     * Used when a freshly parsed store replaces the ledger, so that IDs never go backwards
+     */
+    void renumber(long afterId) {
+        compact();
+        unshare(0, size);
+        for (int row = 0; row < size; row++) {
+            ids[row >>> CHUNK_SHIFT][row & CHUNK_MASK] = afterId + row + 1;
+        }
+        lastId = afterId + size;
+    }
+
+    /**
+     * Sets the highest ID handed out so far, after a bulk read
+     */
+    void setLastId(long id) {
+        lastId = id;
+    }
+
+    /**
+     * Installs the description dictionary the description ids refer to
+     */
+    void setDescriptions(List<String> texts) {
+        descriptions = new String[0][];
+        descriptionCount = 0;
+        sharedDescriptionChunks = new BitSet();
+        descriptionLookup = new HashMap<>();
+        for (String text : texts) {
+            descriptionLookup.putIfAbsent(text, descriptionCount);
+            appendDescription(text);
+        }
+    }
+
+    /**
+     * Removes one row in O(1) by turning it into a tombstone
+     * The row keeps its place until compact() runs
+     */
+    void remove(int row) {
+        checkRow(row);
+        if (id(row) != TOMBSTONE) {
+            unshare(row, row + 1);
+            ids[row >>> CHUNK_SHIFT][row & CHUNK_MASK] = TOMBSTONE;
+            tombstones++;
+            if (tombstoneTree != null) {
+                countTombstone(row >>> CHUNK_SHIFT);
+            }
+        }
+    }
+
+    /**
+     * Moves the live rows together, keeping their order, and drops the tombstones
+     *
+     * @return true if any row moved, so row numbers have changed
+     */
+    boolean compact() {
+        if (tombstones == 0) {
+            return false;
+        }
+        int target = 0;
+        while (id(target) != TOMBSTONE) {
+            target++; // Rows before the first tombstone stay where they are
+        }
+        unshare(target, size);
+        for (int row = target; row < size; row++) {
+            long id = id(row);
+            if (id == TOMBSTONE) {
+                continue;
+            }
+            if (target != row) {
+                int c = target >>> CHUNK_SHIFT;
+                int o = target & CHUNK_MASK;
+                ids[c][o] = id;
+                amounts[c][o] = amountCents(row);
+                days[c][o] = epochDay(row);
+                categories[c][o] = (byte) categoryOrdinal(row);
+                descriptionIds[c][o] = descriptionId(row);
+            }
+            target++;
+        }
+        size = target;
+        tombstones = 0;
+        tombstoneTree = null;
+        return true;
+    }
+
+    /**
+     * Removes all rows and forgets every description
+     * IDs keep counting from where they were, so an ID is never reused
+     */
+    void clear() {
+        ids = new long[0][];
+        amounts = new long[0][];
+        days = new int[0][];
+        categories = new byte[0][];
+        descriptionIds = new int[0][];
+        chunkCount = 0;
+        size = 0;
+        tombstones = 0;
+        tombstoneTree = null;
+        sharedChunks = new BitSet();
+        descriptions = new String[0][];
+        descriptionCount = 0;
+        sharedDescriptionChunks = new BitSet();
+        descriptionLookup = new HashMap<>();
+    }
+
+    /**
+     * Rearranges the rows so that new row i is the old row order[i]
+     *
+     * @param order A permutation of 0..size-1
+     */
+    void reorder(int[] order) {
+        long[][] newIds = new long[chunkCount][];
+        long[][] newAmounts = new long[chunkCount][];
+        int[][] newDays = new int[chunkCount][];
+        byte[][] newCategories = new byte[chunkCount][];
+        int[][] newDescriptionIds = new int[chunkCount][];
+        for (int c = 0; c < chunkCount; c++) {
+            newIds[c] = new long[CHUNK_SIZE];
+            newAmounts[c] = new long[CHUNK_SIZE];
+            newDays[c] = new int[CHUNK_SIZE];
+            newCategories[c] = new byte[CHUNK_SIZE];
+            newDescriptionIds[c] = new int[CHUNK_SIZE];
+        }
+
+        for (int i = 0; i < size; i++) {
+            int from = order[i];
+            int c = i >>> CHUNK_SHIFT;
+            int o = i & CHUNK_MASK;
+            newIds[c][o] = id(from);
+            newAmounts[c][o] = amountCents(from);
+            newDays[c][o] = epochDay(from);
+            newCategories[c][o] = categories[from >>> CHUNK_SHIFT][from & CHUNK_MASK];
+            newDescriptionIds[c][o] = descriptionId(from);
+        }
+
+        ids = newIds;
+        amounts = newAmounts;
+        days = newDays;
+        categories = newCategories;
+        descriptionIds = newDescriptionIds;
+        sharedChunks = new BitSet();
+        tombstoneTree = null;
+    }
+
+    /**
+     * Creates an independent copy of all rows and the dictionary
+     * Column data is block-copied, so this costs a memory copy of the columns and nothing per row
+     */
+    ExpenseStore copy() {
+        ExpenseStore copy = new ExpenseStore();
+        copy.ensureCapacity(size);
+        copyRows(ids, 0, copy.ids, 0, size);
+        copyRows(amounts, 0, copy.amounts, 0, size);
+        copyRows(days, 0, copy.days, 0, size);
+        copyRows(categories, 0, copy.categories, 0, size);
+        copyRows(descriptionIds, 0, copy.descriptionIds, 0, size);
+        copy.size = size;
+        copy.tombstones = tombstones;
+        copy.lastId = lastId;
+        copy.ensureDescriptionCapacity(descriptionCount);
+        copyRows(descriptions, 0, copy.descriptions, 0, descriptionCount);
+        copy.descriptionCount = descriptionCount;
+        copy.descriptionLookup = null;
+        return copy;
+    }
+
+    /**
+     * Creates a copy that shares every chunk with this store, in O(number of chunks)
+     * Whichever store writes to a shared chunk first copies that chunk, so neither ever sees the
+     * other's later changes. The copy can be read from other threads while this store keeps changing
+     */
+    ExpenseStore shareCopy() {
+        ExpenseStore copy = new ExpenseStore();
+        copy.ids = Arrays.copyOf(ids, chunkCount);
+        copy.amounts = Arrays.copyOf(amounts, chunkCount);
+        copy.days = Arrays.copyOf(days, chunkCount);
+        copy.categories = Arrays.copyOf(categories, chunkCount);
+        copy.descriptionIds = Arrays.copyOf(descriptionIds, chunkCount);
+        copy.chunkCount = chunkCount;
+        copy.size = size;
+        copy.tombstones = tombstones;
+        copy.lastId = lastId;
+        sharedChunks.set(0, chunkCount);
+        copy.sharedChunks.set(0, chunkCount);
+
+        int textChunks = (descriptionCount + CHUNK_MASK) >>> CHUNK_SHIFT;
+        copy.descriptions = Arrays.copyOf(descriptions, textChunks);
+        copy.descriptionCount = descriptionCount;
+        copy.descriptionLookup = null;
+        sharedDescriptionChunks.set(0, textChunks);
+        copy.sharedDescriptionChunks.set(0, textChunks);
+        return copy;
+    }
+
+    // ========== READING ==========
+
+    /**
+     * Gets the number of rows, including tombstones
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Gets the number of rows that have not been removed
+     */
+    int liveCount() {
+        return size - tombstones;
+    }
+
+    boolean hasTombstones() {
+        return tombstones > 0;
+    }
+
+    /**
+     * Gets the position a row will have once the tombstones are squeezed out
+     * O(1) while there are none, which is the usual case right after a snapshot; otherwise the
+     * tombstones of the chunks before the row's come from a Fenwick tree in O(log chunks), and only
+     * the row's own chunk is scanned. The tree is built on first use and kept up by remove
+     */
+    int liveIndex(int row) {
+        if (tombstones == 0) {
+            return row;
+        }
+        int chunk = row >>> CHUNK_SHIFT;
+        if (tombstoneTree == null || tombstoneTree.length <= chunkCount) {
+            buildTombstoneTree();
+        }
+        int removed = 0;
+        for (int i = chunk; i > 0; i -= i & -i) {
+            removed += tombstoneTree[i]; // Node i covers chunks up to i - 1
+        }
+        long[] chunkIds = ids[chunk];
+        for (int o = 0; o < (row & CHUNK_MASK); o++) {
+            if (chunkIds[o] == TOMBSTONE) {
+                removed++;
+            }
+        }
+        return row - removed;
+    }
+
+    long lastId() {
+        return lastId;
+    }
+
+    long id(int row) {
+        return ids[row >>> CHUNK_SHIFT][row & CHUNK_MASK];
+    }
+
+    long amountCents(int row) {
+        return amounts[row >>> CHUNK_SHIFT][row & CHUNK_MASK];
+    }
+
+    int epochDay(int row) {
+        return days[row >>> CHUNK_SHIFT][row & CHUNK_MASK];
+    }
+
+    int categoryOrdinal(int row) {
+        return categories[row >>> CHUNK_SHIFT][row & CHUNK_MASK];
+    }
+
+    ExpenseCategory category(int row) {
+        return CATEGORIES[categoryOrdinal(row)];
+    }
+
+    int descriptionId(int row) {
+        return descriptionIds[row >>> CHUNK_SHIFT][row & CHUNK_MASK];
+    }
+
+    String description(int row) {
+        return descriptionText(descriptionId(row));
+    }
+
+    int descriptionCount() {
+        return descriptionCount;
+    }
+
+    String descriptionText(int descriptionId) {
+        return descriptions[descriptionId >>> CHUNK_SHIFT][descriptionId & CHUNK_MASK];
+    }
+
+    // Raw chunk access for bulk readers and writers; rows past rowsInChunk are unused
+    int chunkCount() {
+        return chunkCount;
+    }
+
+    int rowsInChunk(int chunk) {
+        return Math.min(CHUNK_SIZE, size - (chunk << CHUNK_SHIFT));
+    }
+
+    long[] idChunk(int chunk) {
+        return ids[chunk];
+    }
+
+    long[] amountChunk(int chunk) {
+        return amounts[chunk];
+    }
+
+    int[] dayChunk(int chunk) {
+        return days[chunk];
+    }
+
+    byte[] categoryChunk(int chunk) {
+        return categories[chunk];
+    }
+
+    int[] descriptionChunk(int chunk) {
+        return descriptionIds[chunk];
+    }
+
+    /**
+     * Builds an Expense view of one row
+     * The view is a detached copy; changing it does not change the store
+     */
+    Expense get(int row) {
+        checkRow(row);
+        return new Expense(id(row), amountCents(row), category(row), epochDay(row), description(row));
+    }
+
+    /**
+     * Finds the first live row whose fields all match
+     *
+     * @return The row index, or -1 if no row matches
+     */
+    int find(long cents, ExpenseCategory category, int day, String description) {
+        Integer boxedId = lookup().get(description);
+        if (boxedId == null) {
+            return -1;
+        }
+
+        int id = boxedId;
+        int ordinal = category.ordinal();
+        for (int c = 0; c < chunkCount; c++) {
+            int rows = rowsInChunk(c);
+            long[] chunkAmounts = amounts[c];
+            int[] chunkDays = days[c];
+            byte[] chunkCategories = categories[c];
+            int[] chunkDescriptions = descriptionIds[c];
+            long[] chunkIds = ids[c];
+            for (int o = 0; o < rows; o++) {
+                if (chunkAmounts[o] == cents && chunkDays[o] == day && chunkCategories[o] == ordinal
+                        && chunkDescriptions[o] == id && chunkIds[o] != TOMBSTONE) {
+                    return (c << CHUNK_SHIFT) + o;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Collects the live rows of one category
+     *
+     * @param expectedCount How many rows are expected to match, used to size the result
+     * @return The matching row indexes in storage order
+     */
+    int[] rowsInCategory(ExpenseCategory category, int expectedCount) {
+        int ordinal = category.ordinal();
+        int[] matches = new int[Math.max(16, expectedCount)];
+        int count = 0;
+        for (int c = 0; c < chunkCount; c++) {
+            byte[] chunk = categories[c];
+            long[] chunkIds = ids[c];
+            int rows = rowsInChunk(c);
+            for (int o = 0; o < rows; o++) {
+                if (chunk[o] == ordinal && chunkIds[o] != TOMBSTONE) {
+                    if (count == matches.length) {
+                        matches = Arrays.copyOf(matches, count * 2);
+                    }
+                    matches[count++] = (c << CHUNK_SHIFT) + o;
+                }
+            }
+        }
+        return Arrays.copyOf(matches, count);
+    }
+
+    // ========== INTERNALS ==========
+
+    private void append(long id, long cents, int day, int categoryOrdinal, int descriptionId) {
+        ensureCapacity(size + 1);
+        unshare(size, size + 1);
+        int c = size >>> CHUNK_SHIFT;
+        int o = size & CHUNK_MASK;
+        ids[c][o] = id;
+        amounts[c][o] = cents;
+        days[c][o] = day;
+        categories[c][o] = (byte) categoryOrdinal;
+        descriptionIds[c][o] = descriptionId;
+        size++;
+    }
+
+    private int internDescription(String description) {
+        Map<String, Integer> lookup = lookup();
+        Integer id = lookup.get(description);
+        if (id == null) {
+            id = descriptionCount;
+            appendDescription(description);
+            lookup.put(description, id);
+        }
+        return id;
+    }
+
+    private void appendDescription(String description) {
+        ensureDescriptionCapacity(descriptionCount + 1);
+        int c = descriptionCount >>> CHUNK_SHIFT;
+        if (sharedDescriptionChunks.get(c)) {
+            descriptions[c] = descriptions[c].clone();
+            sharedDescriptionChunks.clear(c);
+        }
+        descriptions[c][descriptionCount & CHUNK_MASK] = description;
+        descriptionCount++;
+    }
+
+    /**
+     * Gets the description lookup, building it if this store was created by copy or shareCopy
+     */
+    private Map<String, Integer> lookup() {
+        if (descriptionLookup == null) {
+            descriptionLookup = new HashMap<>();
+            for (int i = 0; i < descriptionCount; i++) {
+                descriptionLookup.putIfAbsent(descriptionText(i), i);
+            }
+        }
+        return descriptionLookup;
+    }
+
+    private void ensureDescriptionCapacity(int count) {
+        int needed = (count + CHUNK_MASK) >>> CHUNK_SHIFT;
+        if (needed > descriptions.length) {
+            int length = Math.max(needed, descriptions.length * 2);
+            descriptions = Arrays.copyOf(descriptions, length);
+        }
+        for (int c = needed - 1; c >= 0 && descriptions[c] == null; c--) {
+            descriptions[c] = new String[CHUNK_SIZE];
+        }
+    }
+
+    /**
+     * Gives this store its own copy of every shared chunk holding rows from fromRow (inclusive) to toRow (exclusive)
+     * Must run before those rows are written
+     */
+    private void unshare(int fromRow, int toRow) {
+        if (fromRow >= toRow) {
+            return;
+        }
+        int last = (toRow - 1) >>> CHUNK_SHIFT;
+        for (int c = sharedChunks.nextSetBit(fromRow >>> CHUNK_SHIFT); c >= 0 && c <= last; c = sharedChunks.nextSetBit(c + 1)) {
+            ids[c] = ids[c].clone();
+            amounts[c] = amounts[c].clone();
+            days[c] = days[c].clone();
+            categories[c] = categories[c].clone();
+            descriptionIds[c] = descriptionIds[c].clone();
+            sharedChunks.clear(c);
+        }
+    }
+
+    /**
+     * Counts the tombstones of every chunk into a Fenwick tree with room for all allocated chunks
+     */
+    private void buildTombstoneTree() {
+        int[] tree = new int[ids.length + 1];
+        for (int row = 0; row < size; row++) {
+            if (id(row) == TOMBSTONE) {
+                tree[(row >>> CHUNK_SHIFT) + 1]++;
+            }
+        }
+        for (int i = 1; i < tree.length; i++) {
+            int parent = i + (i & -i);
+            if (parent < tree.length) {
+                tree[parent] += tree[i];
+            }
+        }
+        tombstoneTree = tree;
+    }
+
+    private void countTombstone(int chunk) {
+        if (chunk + 1 >= tombstoneTree.length) {
+            tombstoneTree = null; // Columns grew past the tree; the next liveIndex rebuilds it
+            return;
+        }
+        for (int i = chunk + 1; i < tombstoneTree.length; i += i & -i) {
+            tombstoneTree[i]++;
+        }
+    }
+
+    private void ensureCapacity(int rows) {
+        int needed = (rows + CHUNK_MASK) >>> CHUNK_SHIFT;
+        if (needed <= chunkCount) {
+            return;
+        }
+
+        if (needed > amounts.length) {
+            int length = Math.max(needed, amounts.length * 2);
+            ids = Arrays.copyOf(ids, length);
+            amounts = Arrays.copyOf(amounts, length);
+            days = Arrays.copyOf(days, length);
+            categories = Arrays.copyOf(categories, length);
+            descriptionIds = Arrays.copyOf(descriptionIds, length);
+        }
+        for (int c = chunkCount; c < needed; c++) {
+            ids[c] = new long[CHUNK_SIZE];
+            amounts[c] = new long[CHUNK_SIZE];
+            days[c] = new int[CHUNK_SIZE];
+            categories[c] = new byte[CHUNK_SIZE];
+            descriptionIds[c] = new int[CHUNK_SIZE];
+        }
+        chunkCount = needed;
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of range for " + size + " rows");
+        }
+    }
+
+    /**
+     * Copies count rows of one column between (possibly the same) chunked arrays
+     * Copying towards lower row numbers within the same column is safe
+     */
+    private static void copyRows(Object[] source, int sourceRow, Object[] target, int targetRow, int count) {
+        while (count > 0) {
+            int sourceOffset = sourceRow & CHUNK_MASK;
+            int targetOffset = targetRow & CHUNK_MASK;
+            int n = Math.min(count, CHUNK_SIZE - Math.max(sourceOffset, targetOffset));
+            System.arraycopy(source[sourceRow >>> CHUNK_SHIFT], sourceOffset,
+                             target[targetRow >>> CHUNK_SHIFT], targetOffset, n);
+            sourceRow += n;
+            targetRow += n;
+            count -= n;
+        }
+    }
+}
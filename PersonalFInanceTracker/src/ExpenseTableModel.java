@@ -0,0 +1,144 @@
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Table model that reads its cells straight from an ExpenseSnapshot.
+ *
+ * No row objects are built: JTable only asks for the cells it paints, and
+ * each one is read from the snapshot's columns when asked. Dates and
+ * amounts are the only cells that need formatting; their text is cached by
+ * value, so scrolling over the same dates and amounts formats nothing.
+ * Replacing the snapshot fires a single event, however many rows changed.
+ * Only used on the event dispatch thread.
+ */
+final class ExpenseTableModel extends AbstractTableModel {
+
+    private static final long serialVersionUID = 1L;
+
+    static final int DATE_COLUMN = 0;
+    static final int AMOUNT_COLUMN = 1;
+    static final int CATEGORY_COLUMN = 2;
+    static final int DESCRIPTION_COLUMN = 3;
+    static final int ID_COLUMN = 4;
+
+    private static final String[] COLUMN_NAMES = {"Date", "Amount", "Category", "Description", "ID"};
+
+    // Distinct amounts can be as many as rows, so only the most recently shown ones are kept
+    private static final int AMOUNT_CACHE_SIZE = 4096;
+
+    private ExpenseSnapshot expenses;
+
+    // Distinct dates are few (one per day), so every formatted one is kept
+    private final Map<Integer, String> dateText = new HashMap<>();
+    private final Map<Long, String> amountText = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, String> eldest) {
+            return size() > AMOUNT_CACHE_SIZE;
+        }
+    };
+
+    /**
+     * Creates a model showing the given snapshot
+     *
+     * @param expenses The expenses to show
+     */
+    ExpenseTableModel(ExpenseSnapshot expenses) {
+        this.expenses = expenses;
+    }
+
+    /**
+     * Shows another snapshot, firing one data-changed event
+     *
+     * @param expenses The expenses to show from now on
+     */
+    void setSnapshot(ExpenseSnapshot expenses) {
+        this.expenses = expenses;
+        fireTableDataChanged();
+    }
+
+    /**
+     * Shows a newer snapshot after a change of the manager, in the order of the snapshot shown so far
+     * When the snapshot is exactly the change applied to the one shown, the table is only told about
+     * the inserted or deleted rows, so it keeps its selection and repaints just those; otherwise it
+     * reloads everything. Snapshots no newer than the one shown are ignored, as events queued
+     * behind a refresh arrive late
+     *
+     * @param latest The manager's snapshot after the change
+     * @param change The change
+     */
+    void update(ExpenseSnapshot latest, ExpenseChangeEvent change) {
+        long shown = expenses.getVersion();
+        if (latest.getVersion() <= shown) {
+            return;
+        }
+        SortSpec order = expenses.getSortSpec();
+        if (order != null) {
+            // A change can move rows anywhere in a sorted view, so it is sorted again (a radix sort, O(rows))
+            expenses = latest.sorted(order);
+            fireTableDataChanged();
+            return;
+        }
+        expenses = latest;
+        boolean delta = change.getVersion() == shown + 1 && latest.getVersion() == change.getVersion();
+        if (delta && change.getType() == ExpenseChangeEvent.Type.ADDED) {
+            fireTableRowsInserted(change.getIndex(), change.getIndex() + change.getCount() - 1);
+        } else if (delta && change.getType() == ExpenseChangeEvent.Type.REMOVED) {
+            fireTableRowsDeleted(change.getIndex(), change.getIndex());
+        } else {
+            fireTableDataChanged();
+        }
+    }
+
+    /**
+     * @return The snapshot currently shown
+     */
+    ExpenseSnapshot getSnapshot() {
+        return expenses;
+    }
+
+    @Override
+    public int getRowCount() {
+        return expenses.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return column == ID_COLUMN ? Long.class : String.class;
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false; // Make table read-only
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        switch (column) {
+            case DATE_COLUMN:
+                return dateText.computeIfAbsent(expenses.getEpochDay(row), ExpenseDates::format);
+            case AMOUNT_COLUMN:
+                return amountText.computeIfAbsent(expenses.getAmountCents(row),
+                                                  cents -> String.format("$%.2f", Money.fromCents(cents)));
+            case CATEGORY_COLUMN:
+                return expenses.getCategory(row).name();
+            case DESCRIPTION_COLUMN:
+                return expenses.getDescription(row);
+            case ID_COLUMN:
+                return expenses.getId(row);
+            default:
+                throw new IndexOutOfBoundsException("Column " + column + " out of range");
+        }
+    }
+}
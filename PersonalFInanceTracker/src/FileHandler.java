@@ -1,4 +1,5 @@
 import java.io.*;
+import java.util.ArrayList;
 import java.util.List;
 
 public class FileHandler {
@@ -22,7 +23,7 @@ public class FileHandler {
 
             // Write each expense as a CSV line
             for (Expense e : expenses) {
-                writer.println(e.getAmount() + "," +
+                writer.println(Money.format(e.getAmountCents()) + "," +
                         e.getCategory() + "," +
                         e.getDate() + "," +
                         e.getDescription());
@@ -48,13 +49,13 @@ public class FileHandler {
             }
 
             String line;
-            manager.clearExpenses(); // Clear current list before loading
+            List<Expense> loaded = new ArrayList<>();
 
             while ((line = reader.readLine()) != null) {
                 String[] parts = line.split(",", -1); // Split CSV line into 4 parts
                 if (parts.length == 4) {
                     try {
-                        double amount = Double.parseDouble(parts[0]);
+                        long amountCents = Money.toCents(parts[0]); // Exact to the cent
                         ExpenseCategory category;
 
                         try {
@@ -64,21 +65,50 @@ public class FileHandler {
                             continue; // Skip invalid categories
                         }
 
-                        String date = parts[2];
+                        int epochDay = Expense.parseDate(parts[2]);
                         String description = parts[3];
 
-                        Expense loadedExpense = new Expense(amount, category, date, description);
-                        manager.addExpense(loadedExpense); // Add to ExpenseManager
-                    } catch (NumberFormatException ex) {
-                        System.out.println("Skipping invalid line: " + line);
+                        Expense loadedExpense = new Expense(0, amountCents, category, epochDay, description);
+                        loaded.add(loadedExpense);
+                    } catch (IllegalArgumentException ex) { // Bad amount or date, or a field the expense rejects
+                        System.out.println("Skipping invalid line: " + line + " (" + ex.getMessage() + ")");
                     }
                 } else {
                     System.out.println("Invalid line format: " + line);
                 }
             }
+            manager.clearExpenses(); // Clear current list before loading
+            manager.addExpenses(loaded); // Add to ExpenseManager in one batch
             System.out.println("Expenses successfully loaded from " + fileName);
         } catch (IOException e) {
             System.out.println("Error loading expenses from file: " + e.getMessage());
         }
     }
+
+    // Load Expenses from CSV on all cores (chunked, merged back in file order)
+    public LoadReport loadExpensesFromFileParallel() {
+        return manager.loadExpensesFromFileParallel(fileName);
+    }
+
+    // Binary snapshot next to the CSV: Expenses.csv -> Expenses.dat
+    public String getSnapshotFileName() {
+        int dot = fileName.lastIndexOf('.');
+        int slash = Math.max(fileName.lastIndexOf('/'), fileName.lastIndexOf('\\'));
+        String base = dot > slash ? fileName.substring(0, dot) : fileName;
+        return base + ExpenseSnapshotFile.EXTENSION;
+    }
+
+    // Save Expenses as a binary snapshot
+    public void saveSnapshot() {
+        manager.saveSnapshot(getSnapshotFileName());
+    }
+
+    // Load Expenses from the binary snapshot, falling back to the CSV if there is none yet
+    public void loadSnapshot() {
+        if (new File(getSnapshotFileName()).exists()) {
+            manager.loadSnapshot(getSnapshotFileName());
+        } else {
+            loadExpensesFromFileParallel();
+        }
+    }
 }
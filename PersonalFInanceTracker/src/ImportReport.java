@@ -0,0 +1,198 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Summary of a multi-file import
+ * Keeps one FileImport per file with its load report and the range of expense IDs its rows were
+ * given, so every imported expense can be traced back to the file it came from
+ */
+public class ImportReport {
+
+    private final String source;
+    private final List<FileImport> files;
+
+    ImportReport(String source, List<FileImport> files) {
+        this.source = source;
+        this.files = new ArrayList<>(files);
+    }
+
+    /**
+     * Gets the directory or glob that was imported
+     * @return The source as given to importExpenses
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Gets the per-file results in import order
+     * @return An unmodifiable list of file results
+     */
+    public List<FileImport> getFiles() {
+        return Collections.unmodifiableList(files);
+    }
+
+    /**
+     * Gets the number of expenses imported across all files
+     * @return The loaded row count
+     */
+    public int getRowsLoaded() {
+        int total = 0;
+        for (FileImport file : files) {
+            total += file.getRowsLoaded();
+        }
+        return total;
+    }
+
+    /**
+     * Gets the number of lines rejected across all files
+     * @return The rejected line count
+     */
+    public int getRowsRejected() {
+        int total = 0;
+        for (FileImport file : files) {
+            total += file.getRowsRejected();
+        }
+        return total;
+    }
+
+    /**
+     * Gets the number of files that could not be read at all
+     * @return The failed file count
+     */
+    public int getFailedFileCount() {
+        int failed = 0;
+        for (FileImport file : files) {
+            if (file.getError() != null) {
+                failed++;
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * Finds the file an imported expense came from
+     * The files' ID ranges are ascending, so this is a binary search
+     *
+     * @param expenseId The ID of an expense
+     * @return The file name, or null if the expense was not part of this import
+     */
+    public String getSourceFile(long expenseId) {
+        int low = 0;
+        int high = files.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            FileImport file = files.get(mid);
+            if (expenseId < file.getFirstId()) {
+                high = mid - 1;
+            } else if (expenseId > file.getLastId()) {
+                low = mid + 1;
+            } else {
+                return file.getFileName();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Prints one line per file that failed or rejected rows, followed by its sample errors
+     */
+    public void printErrors() {
+        for (FileImport file : files) {
+            if (file.getError() != null) {
+                System.err.println("❌ " + file.getFileName() + ": " + file.getError());
+            } else {
+                file.getLoadReport().printErrors();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d rows imported, %d rejected from %d files (%d failed)",
+            source, getRowsLoaded(), getRowsRejected(), files.size(), getFailedFileCount());
+    }
+
+    /**
+     * Outcome of importing one file
+     */
+    public static class FileImport {
+        private final LoadReport loadReport;
+        private final String error;
+        private final long firstId;
+        private final long lastId;
+
+        FileImport(LoadReport loadReport, String error, long firstId, long lastId) {
+            this.loadReport = loadReport;
+            this.error = error;
+            this.firstId = firstId;
+            this.lastId = lastId;
+        }
+
+        /**
+         * Gets the file this result describes
+         * @return The file name
+         */
+        public String getFileName() {
+            return loadReport.getFileName();
+        }
+
+        /**
+         * Gets the per-chunk parse results of the file
+         * @return The load report; empty if the file could not be read
+         */
+        public LoadReport getLoadReport() {
+            return loadReport;
+        }
+
+        /**
+         * Gets why the file could not be read
+         * @return The error message, or null if the file was read
+         */
+        public String getError() {
+            return error;
+        }
+
+        /**
+         * Gets the ID of the first expense imported from this file
+         * @return The first ID; greater than getLastId if no expense was imported
+         */
+        public long getFirstId() {
+            return firstId;
+        }
+
+        /**
+         * Gets the ID of the last expense imported from this file
+         * @return The last ID
+         */
+        public long getLastId() {
+            return lastId;
+        }
+
+        /**
+         * Gets the number of expenses imported from this file
+         * @return The loaded row count
+         */
+        public int getRowsLoaded() {
+            return loadReport.getRowsLoaded();
+        }
+
+        /**
+         * Gets the number of lines of this file that were skipped
+         * @return The rejected line count
+         */
+        public int getRowsRejected() {
+            return loadReport.getRowsRejected();
+        }
+
+        @Override
+        public String toString() {
+            if (error != null) {
+                return loadReport.getFileName() + ": failed (" + error + ")";
+            }
+            return String.format("%s: %d rows imported (IDs %d-%d), %d rejected",
+                loadReport.getFileName(), getRowsLoaded(), firstId, lastId, getRowsRejected());
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/**
+ * Applies replayed journal records to a store that is not shared yet.
+ *
+ * Opening a journal reads the snapshot and replays the journal into a
+ * private store, outside the ledger's lock, so the ledger stays readable
+ * while a large journal is opened. Only the ID index is kept up to date on
+ * the way, since removes look rows up by ID; the ledger rebuilds its other
+ * indexes once in one pass when the store is swapped in.
+ *
+ * Adds and removes are recorded as type,id,amount,category,date,description.
+ * A CSV snapshot does not keep IDs, so over one the recorded IDs mean
+ * nothing: adds get new IDs and removes match on the fields instead.
+ */
+final class JournalReplay implements ExpenseJournal.RecordHandler {
+
+    private final ExpenseStore store;
+    private final boolean idsPersisted;
+    private final ExpenseIdIndex idIndex = new ExpenseIdIndex();
+
+    /**
+     * @param store The snapshot's rows, which the records are applied to
+     * @param idsPersisted Whether the snapshot kept the IDs the records refer to
+     */
+    JournalReplay(ExpenseStore store, boolean idsPersisted) {
+        this.store = store;
+        this.idsPersisted = idsPersisted;
+        reindexIds();
+    }
+
+    @Override
+    public void apply(String[] fields) {
+        switch (fields[0]) {
+            case "A":
+                int day = Expense.parseDate(fields[4]);
+                long id;
+                if (idsPersisted) {
+                    id = store.addCents(Long.parseLong(fields[1]), Money.toCents(fields[2]),
+                                        ExpenseCategory.valueOf(fields[3]), day, fields[5]);
+                } else {
+                    id = store.addCents(Money.toCents(fields[2]), ExpenseCategory.valueOf(fields[3]), day, fields[5]);
+                }
+                idIndex.put(id, store.size() - 1);
+                break;
+            case "R":
+                int row = idsPersisted
+                    ? idIndex.get(Long.parseLong(fields[1]))
+                    : store.find(Money.toCents(fields[2]), ExpenseCategory.valueOf(fields[3]),
+                                 ExpenseDates.toEpochDay(fields[4]), fields[5]);
+                if (row >= 0) {
+                    idIndex.remove(store.id(row));
+                    store.remove(row);
+                }
+                break;
+            case "C":
+                store.clear();
+                idIndex.clear(0);
+                break;
+            case "S":
+                // Recorded lower-case and already validated
+                SortSpec.Key key = fields[1].equals("amount") ? SortSpec.Key.AMOUNT : SortSpec.Key.DATE;
+                SortSpec spec = fields[2].equals("des") ? SortSpec.byDescending(key) : SortSpec.by(key);
+                store.compact();
+                store.reorder(ExpenseSorter.sort(store, null, spec)); // Stable, like List.sort
+                reindexIds();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown record type " + fields[0]);
+        }
+    }
+
+    private void reindexIds() {
+        idIndex.clear(store.size());
+        for (int row = 0; row < store.size(); row++) {
+            if (store.id(row) != ExpenseStore.TOMBSTONE) {
+                idIndex.put(store.id(row), row);
+            }
+        }
+    }
+}
@@ -0,0 +1,177 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Summary of a parallel CSV load
+ * Collects one ChunkReport per parsed chunk instead of printing every rejected line
+ */
+public class LoadReport {
+
+    // Number of rejected lines quoted per chunk; the rest are only counted
+    static final int MAX_SAMPLE_ERRORS = 5;
+
+    private final String fileName;
+    private final List<ChunkReport> chunks = new ArrayList<>();
+
+    /**
+     * Creates an empty report for the given file
+     *
+     * @param fileName The file that was loaded
+     */
+    public LoadReport(String fileName) {
+        this.fileName = fileName;
+    }
+
+    void addChunk(ChunkReport chunk) {
+        chunks.add(chunk);
+    }
+
+    /**
+     * Gets the file this report describes
+     * @return The file name
+     */
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * Gets the per-chunk reports in file order
+     * @return An unmodifiable list of chunk reports
+     */
+    public List<ChunkReport> getChunks() {
+        return Collections.unmodifiableList(chunks);
+    }
+
+    /**
+     * Gets the number of expenses loaded across all chunks
+     * @return The loaded row count
+     */
+    public int getRowsLoaded() {
+        int total = 0;
+        for (ChunkReport chunk : chunks) {
+            total += chunk.getRowsLoaded();
+        }
+        return total;
+    }
+
+    /**
+     * Gets the number of lines rejected across all chunks
+     * @return The rejected line count
+     */
+    public int getRowsRejected() {
+        int total = 0;
+        for (ChunkReport chunk : chunks) {
+            total += chunk.getRowsRejected();
+        }
+        return total;
+    }
+
+    /**
+     * Prints one line per chunk that rejected rows, followed by its sample errors
+     */
+    public void printErrors() {
+        for (ChunkReport chunk : chunks) {
+            if (chunk.getRowsRejected() == 0) {
+                continue;
+            }
+            System.err.println("⚠️ " + chunk);
+            for (String error : chunk.getSampleErrors()) {
+                System.err.println("   " + error);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d rows loaded, %d rejected in %d chunks",
+            fileName, getRowsLoaded(), getRowsRejected(), chunks.size());
+    }
+
+    /**
+     * Outcome of parsing one chunk of the file
+     */
+    public static class ChunkReport {
+        private final int index;
+        private final long startOffset;
+        private final long endOffset;
+        private int rowsLoaded;
+        private int rowsRejected;
+        private final List<String> sampleErrors = new ArrayList<>();
+
+        ChunkReport(int index, long startOffset, long endOffset) {
+            this.index = index;
+            this.startOffset = startOffset;
+            this.endOffset = endOffset;
+        }
+
+        void rowLoaded() {
+            rowsLoaded++;
+        }
+
+        void rowsLoaded(int count) {
+            rowsLoaded += count;
+        }
+
+        void rowRejected(String message) {
+            rowsRejected++;
+            if (sampleErrors.size() < MAX_SAMPLE_ERRORS) {
+                sampleErrors.add(message);
+            }
+        }
+
+        /**
+         * Gets the position of this chunk in the file
+         * @return The zero-based chunk index
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * Gets the byte offset where this chunk starts
+         * @return The start offset in the file
+         */
+        public long getStartOffset() {
+            return startOffset;
+        }
+
+        /**
+         * Gets the byte offset just past the end of this chunk
+         * @return The end offset in the file
+         */
+        public long getEndOffset() {
+            return endOffset;
+        }
+
+        /**
+         * Gets the number of expenses parsed from this chunk
+         * @return The loaded row count
+         */
+        public int getRowsLoaded() {
+            return rowsLoaded;
+        }
+
+        /**
+         * Gets the number of lines in this chunk that were skipped
+         * @return The rejected line count
+         */
+        public int getRowsRejected() {
+            return rowsRejected;
+        }
+
+        /**
+         * Gets the first few error messages of this chunk
+         * @return An unmodifiable list of at most MAX_SAMPLE_ERRORS messages
+         */
+        public List<String> getSampleErrors() {
+            return Collections.unmodifiableList(sampleErrors);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Chunk %d [bytes %d-%d]: %d rows loaded, %d rejected",
+                index, startOffset, endOffset, rowsLoaded, rowsRejected);
+        }
+    }
+}
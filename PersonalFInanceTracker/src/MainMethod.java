@@ -1,3 +1,4 @@
+import java.io.File;
 
 public class MainMethod {
     
@@ -12,9 +13,15 @@ public class MainMethod {
     
         ExpenseManager manager = new ExpenseManager();
 
-        // Load existing expenses from file (if available)
-        // This will populate the manager with previously saved expenses
-        manager.loadExpensesFromFile("Expenses.csv");
+        // Load existing expenses from the binary snapshot (if available) and replay the changes journaled since
+        // From here on every change is appended to Expenses.dat.journal instead of rewriting the file
+        boolean firstRun = !new File("Expenses.dat").exists();
+        manager.openJournal("Expenses.dat");
+
+        // Ledgers from before the binary snapshot existed are imported from the CSV once
+        if (firstRun && new File("Expenses.csv").exists()) {
+            manager.loadExpensesFromFileParallel("Expenses.csv");
+        }
 
         // Sample expenses to demonstrate functionality
         // Note: These are only added if the file is empty or for demonstration
@@ -67,13 +74,14 @@ public class MainMethod {
         System.out.println("=".repeat(60));
         manager.printAllExpenses();
 
-        // Save all expenses to file for persistence
+        // Save all expenses for persistence: the snapshot is the state, the CSV a readable export
+        manager.saveSnapshot("Expenses.dat");
         manager.saveExpensesToFile("Expenses.csv");
         System.out.println("\n" + "=".repeat(60));
         System.out.println("💾 DATA PERSISTENCE");
         System.out.println("=".repeat(60));
-        System.out.println("✅ Expenses successfully saved to file: Expenses.csv");
-        System.out.println("📁 File location: " + System.getProperty("user.dir") + "/Expenses.csv");
+        System.out.println("✅ Expenses successfully saved to file: Expenses.dat (exported to Expenses.csv)");
+        System.out.println("📁 File location: " + System.getProperty("user.dir") + "/Expenses.dat");
 
         // Launch the graphical user interface
         System.out.println("\n" + "=".repeat(60));
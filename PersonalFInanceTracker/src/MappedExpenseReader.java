@@ -0,0 +1,241 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Reads an expense CSV file by memory-mapping it and parsing the rows
+ * directly from the mapped bytes.
+ *
+ * Unlike the BufferedReader path there is no String per line, no split()
+ * array and no trimmed or upper-cased copies: amounts are parsed straight
+ * into cents, categories are resolved with ExpenseCategory.fromAsciiBytes
+ * and dates are converted to epoch days from their digits, so the
+ * description is the only String created per row. Rows are handed to a
+ * RowHandler field by field, so no Expense object is built either. Files larger than 2 GB are mapped in windows that always end on
+ * a line boundary.
+ *
+ * An instance keeps a scratch buffer and is not thread-safe.
+ */
+class MappedExpenseReader {
+
+    private static final long WINDOW_SIZE = 1L << 30; // 1 GB per mapping
+    private static final byte[] HEADER = "amount,category,date,description".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Receives the fields of each parsed row
+     * May throw IllegalArgumentException to reject the row
+     */
+    interface RowHandler {
+        void onRow(long amountCents, ExpenseCategory category, int epochDay, String description);
+    }
+
+    private final RowHandler rowHandler;
+    private final Consumer<String> errorHandler;
+    private byte[] scratch = new byte[128];
+
+    /**
+     * Creates a reader that hands every parsed row and every rejected line to the given callbacks
+     *
+     * @param rowHandler Receives the fields of each parsed row
+     * @param errorHandler Receives a message for each line that had to be skipped
+     */
+    MappedExpenseReader(RowHandler rowHandler, Consumer<String> errorHandler) {
+        this.rowHandler = rowHandler;
+        this.errorHandler = errorHandler;
+    }
+
+    /**
+     * Memory-maps the file and parses every row in it
+     *
+     * @param file The CSV file to read
+     * @throws IOException if the file cannot be mapped or a single line exceeds the mapping window
+     */
+    void read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            boolean firstWindow = true;
+
+            while (position < size) {
+                long length = Math.min(WINDOW_SIZE, size - position);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                int end = (int) length;
+
+                // Only the last window may end in the middle of a line
+                if (position + length < size) {
+                    end = lastNewline(buffer, end) + 1;
+                    if (end == 0) {
+                        throw new IOException("Line longer than " + WINDOW_SIZE + " bytes at offset " + position);
+                    }
+                }
+
+                int start = 0;
+                if (firstWindow) {
+                    start = skipHeader(buffer, end);
+                    firstWindow = false;
+                }
+
+                parseLines(buffer, start, end);
+                position += end;
+            }
+        }
+    }
+
+    /**
+     * Parses every line in the given byte range
+     *
+     * @param buffer The buffer holding the CSV bytes
+     * @param start The index of the first byte of the first line
+     * @param end The index one past the last byte to parse
+     */
+    void parseLines(ByteBuffer buffer, int start, int end) {
+        int lineStart = start;
+        while (lineStart < end) {
+            int lineEnd = lineStart;
+            while (lineEnd < end && buffer.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+
+            int contentEnd = lineEnd;
+            if (contentEnd > lineStart && buffer.get(contentEnd - 1) == '\r') {
+                contentEnd--;
+            }
+            parseLine(buffer, lineStart, contentEnd);
+
+            lineStart = lineEnd + 1;
+        }
+    }
+
+    /**
+     * Parses a single line without its line terminator
+     */
+    private void parseLine(ByteBuffer buffer, int start, int end) {
+        int from = trimStart(buffer, start, end);
+        if (from == end) {
+            return; // Skip empty lines
+        }
+
+        // Locate the three separators; anything else is not a 4-field line
+        int comma1 = indexOf(buffer, ',', start, end);
+        int comma2 = comma1 < 0 ? -1 : indexOf(buffer, ',', comma1 + 1, end);
+        int comma3 = comma2 < 0 ? -1 : indexOf(buffer, ',', comma2 + 1, end);
+        if (comma3 < 0 || indexOf(buffer, ',', comma3 + 1, end) >= 0) {
+            errorHandler.accept("⚠️ Invalid line format (expected 4 fields): " + decode(buffer, start, end));
+            return;
+        }
+
+        int amountStart = trimStart(buffer, start, comma1);
+        int amountEnd = trimEnd(buffer, amountStart, comma1);
+        long amountCents = Money.toCents(buffer, amountStart, amountEnd);
+        if (amountCents == Money.NOT_PARSED) {
+            // Exponents and other rare spellings go through the general-purpose parser
+            String text = decode(buffer, amountStart, amountEnd);
+            try {
+                amountCents = Money.toCents(text);
+            } catch (NumberFormatException ex) {
+                errorHandler.accept("⚠️ Invalid amount format: " + text + ". Skipping line...");
+                return;
+            }
+        }
+
+        int categoryStart = trimStart(buffer, comma1 + 1, comma2);
+        int categoryEnd = trimEnd(buffer, categoryStart, comma2);
+        ExpenseCategory category = ExpenseCategory.fromAsciiBytes(buffer, categoryStart, categoryEnd);
+        if (category == null) {
+            errorHandler.accept("⚠️ Invalid category: " + decode(buffer, comma1 + 1, comma2) + ". Skipping line...");
+            return;
+        }
+
+        int dateStart = trimStart(buffer, comma2 + 1, comma3);
+        int dateEnd = trimEnd(buffer, dateStart, comma3);
+        int epochDay = ExpenseDates.toEpochDay(buffer, dateStart, dateEnd);
+        if (epochDay == ExpenseDates.NOT_PARSED) {
+            // Unusual spellings get one more chance through the strict formatter
+            String text = decode(buffer, dateStart, dateEnd);
+            try {
+                epochDay = ExpenseDates.toEpochDay(text);
+            } catch (IllegalArgumentException ex) {
+                errorHandler.accept("⚠️ Invalid date: " + text + ". Skipping line...");
+                return;
+            }
+        }
+        int descriptionStart = trimStart(buffer, comma3 + 1, end);
+        String description = decode(buffer, descriptionStart, trimEnd(buffer, descriptionStart, end));
+
+        try {
+            rowHandler.onRow(amountCents, category, epochDay, description);
+        } catch (IllegalArgumentException ex) {
+            errorHandler.accept("⚠️ Invalid expense (" + ex.getMessage() + "): " + decode(buffer, start, end) + ". Skipping line...");
+        }
+    }
+
+    /**
+     * Finds where the data starts in the first window of a file
+     *
+     * @return The index just past the header line, or 0 if the first line is not a header
+     */
+    static int skipHeader(ByteBuffer buffer, int end) {
+        int lineEnd = indexOf(buffer, '\n', 0, end);
+        int firstLineEnd = lineEnd < 0 ? end : lineEnd;
+        for (int i = 0; i + HEADER.length <= firstLineEnd; i++) {
+            int j = 0;
+            while (j < HEADER.length && buffer.get(i + j) == HEADER[j]) {
+                j++;
+            }
+            if (j == HEADER.length) {
+                return lineEnd < 0 ? end : lineEnd + 1;
+            }
+        }
+        return 0;
+    }
+
+    private String decode(ByteBuffer buffer, int start, int end) {
+        int length = end - start;
+        if (length > scratch.length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        buffer.get(start, scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return The index of the last '\n' before end, or -1 if there is none
+     */
+    static int lastNewline(ByteBuffer buffer, int end) {
+        for (int i = end - 1; i >= 0; i--) {
+            if (buffer.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static int indexOf(ByteBuffer buffer, char target, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (buffer.get(i) == target) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Same notion of whitespace as String.trim(): any byte up to and including ' '
+    private static int trimStart(ByteBuffer buffer, int start, int end) {
+        while (start < end && (buffer.get(start) & 0xFF) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    private static int trimEnd(ByteBuffer buffer, int start, int end) {
+        while (end > start && (buffer.get(end - 1) & 0xFF) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+}
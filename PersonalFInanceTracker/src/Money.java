@@ -0,0 +1,161 @@
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+
+/**
+ * Conversions between the decimal amounts shown in the GUI and the CSV file
+ * and the whole cents (long) amounts are stored and added up in.
+ *
+ * Adding doubles rounds at every step, so a total over millions of amounts
+ * drifts and depends on the order of the additions; adding cents is exact, so
+ * any order, and any split across threads, gives the same total. Text such as
+ * "12.50" is converted to cents digit by digit without passing through a
+ * double; digits past the cents are rounded half away from zero. Exponents
+ * and other rare spellings fall back to BigDecimal, which is exact as well.
+ */
+final class Money {
+
+    // Returned by the byte parser when the text is not a plain decimal
+    static final long NOT_PARSED = Long.MIN_VALUE;
+
+    // Digits of a plain decimal whose cents are sure to fit a long
+    private static final int MAX_DIGITS = 16;
+
+    private Money() {
+    }
+
+    /**
+     * Parses a decimal amount such as "12.50" into cents
+     *
+     * @param amount The amount text
+     * @return The amount in cents
+     * @throws NumberFormatException if the text is not a number or too large
+     */
+    static long toCents(String amount) {
+        long cents = plainToCents(amount);
+        if (cents != NOT_PARSED) {
+            return cents;
+        }
+        try {
+            return new BigDecimal(amount.trim()).movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Amount out of range: " + amount);
+        }
+    }
+
+    /**
+     * Parses a plain decimal amount straight from ASCII bytes
+     *
+     * @return The amount in cents, or NOT_PARSED if the bytes need the general-purpose parser
+     */
+    static long toCents(ByteBuffer buffer, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+
+        long cents = 0;
+        int digits = 0;
+        int fractionDigits = -1; // -1 until the point
+        boolean roundUp = false;
+        for (; i < end; i++) {
+            int b = buffer.get(i);
+            if (b >= '0' && b <= '9') {
+                digits++;
+                if (fractionDigits < 2) {
+                    cents = cents * 10 + (b - '0');
+                    fractionDigits = fractionDigits < 0 ? -1 : fractionDigits + 1;
+                } else if (fractionDigits++ == 2) {
+                    roundUp = b >= '5';
+                }
+            } else if (b == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else {
+                return NOT_PARSED;
+            }
+        }
+        return finish(cents, digits, fractionDigits, roundUp, negative);
+    }
+
+    /**
+     * @return The amount of a double, rounded to the nearest cent
+     */
+    static long toCents(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    /**
+     * @return The amount as a double, e.g. for display; the nearest double to the exact amount
+     */
+    static double fromCents(long cents) {
+        return cents / 100.0;
+    }
+
+    /**
+     * Formats an amount with exactly two decimals and no grouping, e.g. 12.50 or -3.05
+     * The result parses back to the same cents
+     */
+    static String format(long cents) {
+        long whole = Math.abs(cents / 100);
+        int fraction = (int) Math.abs(cents % 100);
+        return (cents < 0 ? "-" : "") + whole + (fraction < 10 ? ".0" : ".") + fraction;
+    }
+
+    // ========== INTERNALS ==========
+
+    private static long plainToCents(String amount) {
+        int start = 0;
+        int end = amount.length();
+        while (start < end && amount.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && amount.charAt(end - 1) <= ' ') {
+            end--;
+        }
+
+        int i = start;
+        boolean negative = false;
+        if (i < end && (amount.charAt(i) == '-' || amount.charAt(i) == '+')) {
+            negative = amount.charAt(i) == '-';
+            i++;
+        }
+
+        long cents = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        boolean roundUp = false;
+        for (; i < end; i++) {
+            char c = amount.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits++;
+                if (fractionDigits < 2) {
+                    cents = cents * 10 + (c - '0');
+                    fractionDigits = fractionDigits < 0 ? -1 : fractionDigits + 1;
+                } else if (fractionDigits++ == 2) {
+                    roundUp = c >= '5';
+                }
+            } else if (c == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else {
+                return NOT_PARSED;
+            }
+        }
+        return finish(cents, digits, fractionDigits, roundUp, negative);
+    }
+
+    /**
+     * Scales the digits read so far to cents and applies the rounding and sign
+     */
+    private static long finish(long value, int digits, int fractionDigits, boolean roundUp, boolean negative) {
+        if (digits == 0 || digits > MAX_DIGITS) {
+            return NOT_PARSED;
+        }
+        // Only the first two fraction digits went into the value
+        int kept = Math.max(0, Math.min(fractionDigits, 2));
+        long cents = kept == 2 ? value : kept == 1 ? value * 10 : value * 100;
+        cents += roundUp ? 1 : 0;
+        return negative ? -cents : cents;
+    }
+}
@@ -0,0 +1,164 @@
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Reads many expense CSV files at once, e.g. one per account per month.
+ *
+ * Every file gets its own task, so opening and mapping files overlaps
+ * instead of happening one after another. The tasks run on virtual threads
+ * where the JVM has them (Java 21+) and on a small pool of daemon threads
+ * otherwise; either way they mostly wait, because each file is parsed by
+ * ParallelExpenseLoader on the common ForkJoinPool. That lets a large file
+ * use every core while the small ones slot in around it, so the import takes
+ * about as long as its largest file.
+ */
+class MultiFileImporter {
+
+    private static final String GLOB_CHARACTERS = "*?[{";
+
+    /**
+     * Outcome of reading one file; rows is null if the file could not be read
+     */
+    static final class ParsedFile {
+        final LoadReport report;
+        final ExpenseStore rows;
+        final String error;
+
+        ParsedFile(LoadReport report, ExpenseStore rows, String error) {
+            this.report = report;
+            this.rows = rows;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Lists the files to import, sorted by path so that imports are repeatable
+     *
+     * @param directoryOrGlob A directory, whose *.csv files are returned, or a glob pattern
+     * @return The matching regular files
+     * @throws IOException if a directory cannot be listed
+     */
+    static List<Path> resolve(String directoryOrGlob) throws IOException {
+        int firstGlob = firstGlobCharacter(directoryOrGlob);
+        if (firstGlob < 0) {
+            Path directory = Paths.get(directoryOrGlob);
+            if (!Files.isDirectory(directory)) {
+                return Files.isRegularFile(directory) ? List.of(directory) : List.of();
+            }
+            List<Path> files = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory, "*.{csv,CSV}")) {
+                for (Path entry : entries) {
+                    if (Files.isRegularFile(entry)) {
+                        files.add(entry);
+                    }
+                }
+            }
+            files.sort(null);
+            return files;
+        }
+
+        // Walk from the deepest directory that has no glob characters; the walked paths start with it,
+        // just like the pattern, so they can be matched as written
+        String prefix = directoryOrGlob.substring(0, firstGlob);
+        int separator = Math.max(prefix.lastIndexOf('/'), prefix.lastIndexOf(File.separatorChar));
+        Path base = Paths.get(separator < 0 ? "" : prefix.substring(0, separator + 1));
+        if (!Files.isDirectory(base)) {
+            return List.of();
+        }
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + directoryOrGlob);
+        try (Stream<Path> walk = Files.walk(base)) {
+            return walk.filter(p -> Files.isRegularFile(p) && matcher.matches(p))
+                       .sorted()
+                       .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Reads and parses every file concurrently
+     *
+     * @param files The files to read
+     * @return One result per file, in the given order
+     */
+    List<ParsedFile> parseAll(List<Path> files) {
+        ExecutorService executor = newExecutor(files.size());
+        try {
+            List<Future<ParsedFile>> results = new ArrayList<>(files.size());
+            for (Path file : files) {
+                Callable<ParsedFile> task = () -> parse(file);
+                results.add(executor.submit(task));
+            }
+
+            List<ParsedFile> parsed = new ArrayList<>(files.size());
+            for (int i = 0; i < files.size(); i++) {
+                parsed.add(await(results.get(i), files.get(i)));
+            }
+            return parsed;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static ParsedFile parse(Path file) {
+        LoadReport report = new LoadReport(file.toString());
+        try {
+            return new ParsedFile(report, new ParallelExpenseLoader().load(file, report), null);
+        } catch (IOException e) {
+            return new ParsedFile(report, null, e.getMessage() == null ? e.toString() : e.getMessage());
+        }
+    }
+
+    private static ParsedFile await(Future<ParsedFile> result, Path file) {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while importing " + file, e);
+        } catch (ExecutionException e) {
+            // Parsing rejects bad lines instead of throwing, so this is a bug or an out-of-memory
+            throw new RuntimeException("Failed to import " + file, e.getCause());
+        }
+    }
+
+    /**
+     * Uses a virtual thread per file where the JVM supports it, found reflectively so that the
+     * code still compiles and runs on Java 17
+     */
+    private static ExecutorService newExecutor(int files) {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            int threads = Math.min(files, 2 * Runtime.getRuntime().availableProcessors());
+            return Executors.newFixedThreadPool(Math.max(1, threads), task -> {
+                Thread thread = new Thread(task, "expense-import");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private static int firstGlobCharacter(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (GLOB_CHARACTERS.indexOf(text.charAt(i)) >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,199 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Loads an expense CSV file on all cores.
+ *
+ * The file is memory-mapped, cut into chunks that start and end on line
+ * boundaries, and every chunk is parsed by its own MappedExpenseReader on a
+ * ForkJoinPool into a private ExpenseStore. The chunk stores are then
+ * appended to the result in file order, so the rows come out exactly as a
+ * sequential load would produce them.
+ * Rejected lines are collected per chunk in a LoadReport, and the share of
+ * the file parsed so far can be reported as every chunk finishes.
+ */
+class ParallelExpenseLoader {
+
+    private static final long WINDOW_SIZE = 1L << 30;  // 1 GB per mapping
+    private static final int MIN_CHUNK_SIZE = 1 << 20; // Smaller chunks are not worth a task
+    private static final int CHUNKS_PER_THREAD = 4;    // Slack for uneven chunks
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a loader that parses on the common ForkJoinPool
+     */
+    ParallelExpenseLoader() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a loader that parses on the given pool
+     *
+     * @param pool The pool that runs the chunk tasks
+     */
+    ParallelExpenseLoader(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Parses the whole file and returns its expenses in file order
+     *
+     * @param file The CSV file to read
+     * @param report Receives one ChunkReport per chunk
+     * @return A new store holding the parsed expenses
+     * @throws IOException if the file cannot be mapped or a single line exceeds the mapping window
+     */
+    ExpenseStore load(Path file, LoadReport report) throws IOException {
+        return load(file, report, fraction -> { });
+    }
+
+    /**
+     * Parses the whole file and returns its expenses in file order
+     *
+     * @param file The CSV file to read
+     * @param report Receives one ChunkReport per chunk
+     * @param progress Receives the share of the file parsed, from 0 to 1, each time a chunk is done;
+     *                 called from the parsing threads, one call at a time, with increasing values
+     * @return A new store holding the parsed expenses
+     * @throws IOException if the file cannot be mapped or a single line exceeds the mapping window
+     */
+    ExpenseStore load(Path file, LoadReport report, DoubleConsumer progress) throws IOException {
+        ExpenseStore rows = new ExpenseStore();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            Progress parsed = new Progress(size, progress);
+            long position = 0;
+            boolean firstWindow = true;
+
+            while (position < size) {
+                long length = Math.min(WINDOW_SIZE, size - position);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                int end = (int) length;
+
+                // Only the last window may end in the middle of a line
+                if (position + length < size) {
+                    end = MappedExpenseReader.lastNewline(buffer, end) + 1;
+                    if (end == 0) {
+                        throw new IOException("Line longer than " + WINDOW_SIZE + " bytes at offset " + position);
+                    }
+                }
+
+                int start = 0;
+                if (firstWindow) {
+                    start = MappedExpenseReader.skipHeader(buffer, end);
+                    parsed.advance(start);
+                    firstWindow = false;
+                }
+
+                List<ChunkTask> tasks = splitIntoChunks(buffer, start, end, position, report, parsed);
+                pool.invoke(new RecursiveAction() {
+                    @Override
+                    protected void compute() {
+                        invokeAll(tasks);
+                    }
+                });
+
+                // Merge in file order
+                for (ChunkTask task : tasks) {
+                    rows.appendAll(task.getRawResult());
+                }
+
+                position += end;
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Cuts [start, end) into roughly equal chunks, moving every cut forward to the next line start
+     */
+    private List<ChunkTask> splitIntoChunks(ByteBuffer buffer, int start, int end, long windowOffset,
+                                            LoadReport report, Progress parsed) {
+        int threads = Math.max(1, pool.getParallelism());
+        long target = Math.max(MIN_CHUNK_SIZE, (end - start) / ((long) threads * CHUNKS_PER_THREAD) + 1);
+
+        List<ChunkTask> tasks = new ArrayList<>();
+        int chunkStart = start;
+        while (chunkStart < end) {
+            int chunkEnd = (int) Math.min(end, chunkStart + target);
+            if (chunkEnd < end) {
+                int newline = MappedExpenseReader.indexOf(buffer, '\n', chunkEnd - 1, end);
+                chunkEnd = newline < 0 ? end : newline + 1;
+            }
+
+            LoadReport.ChunkReport chunk = new LoadReport.ChunkReport(
+                report.getChunks().size(), windowOffset + chunkStart, windowOffset + chunkEnd);
+            report.addChunk(chunk);
+            tasks.add(new ChunkTask(buffer, chunkStart, chunkEnd, chunk, parsed));
+
+            chunkStart = chunkEnd;
+        }
+        return tasks;
+    }
+
+    /**
+     * Parses one chunk into its own store; absolute reads make the shared buffer safe to use concurrently
+     */
+    private static class ChunkTask extends RecursiveTask<ExpenseStore> {
+        private static final long serialVersionUID = 1L;
+
+        private final ByteBuffer buffer;
+        private final int start;
+        private final int end;
+        private final LoadReport.ChunkReport report;
+        private final Progress parsed;
+
+        ChunkTask(ByteBuffer buffer, int start, int end, LoadReport.ChunkReport report, Progress parsed) {
+            this.buffer = buffer;
+            this.start = start;
+            this.end = end;
+            this.report = report;
+            this.parsed = parsed;
+        }
+
+        @Override
+        protected ExpenseStore compute() {
+            ExpenseStore rows = new ExpenseStore();
+            MappedExpenseReader reader = new MappedExpenseReader(
+                (amountCents, category, epochDay, description) -> {
+                    rows.addCents(amountCents, category, epochDay, description);
+                    report.rowLoaded();
+                },
+                report::rowRejected);
+            reader.parseLines(buffer, start, end);
+            parsed.advance(end - start);
+            return rows;
+        }
+    }
+
+    /**
+     * Bytes parsed so far, passed on as a share of the file
+     */
+    private static final class Progress {
+        private final long size;
+        private final DoubleConsumer listener;
+        private long done;
+
+        Progress(long size, DoubleConsumer listener) {
+            this.size = size;
+            this.listener = listener;
+        }
+
+        synchronized void advance(long bytes) {
+            done += bytes;
+            listener.accept(size == 0 ? 1 : (double) done / size);
+        }
+    }
+}
@@ -0,0 +1,503 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * How an ExpenseQuery is run against one snapshot.
+ *
+ * The planner picks the access path: a lookup of the rows of the query's IDs
+ * through the manager's ID index, or of the rows of its few matching
+ * descriptions through the description index, otherwise a scan of the snapshot that skips
+ * every 4096-row chunk whose zone map rules out the category, date and amount
+ * conditions. The remaining conditions are then tested row by row, most
+ * selective first, so most rows are rejected by the first test: category
+ * selectivity is exact (the manager counts each category), the date range is
+ * estimated from its share of the total amount. A description test the
+ * manager's description index answered up front is a table lookup and is
+ * ordered like the others; any other description test looks at text, so it
+ * always runs last and only once per distinct description.
+ *
+ * A scan tests a chunk at a time, one condition after the other: the first
+ * condition reads its column into a list of the chunk's surviving offsets,
+ * and each further one narrows that list reading only its own column. Each
+ * test is a tight loop over one primitive array, and a condition never looks
+ * at a row an earlier one rejected. Matches are handed out one at a time as
+ * the caller asks for them, so no more than one chunk is tested ahead.
+ */
+final class QueryPlan {
+
+    enum Filter {
+        CATEGORY, DATE, AMOUNT, ID, DESCRIPTION
+    }
+
+    private static final double UNKNOWN_SELECTIVITY = 0.5;
+
+    // A parallel scan is split into about this many tasks per worker thread, so uneven chunks even out
+    private static final int TASKS_PER_THREAD = 4;
+
+    private final ExpenseQuery query;
+    private final ExpenseSnapshot snapshot;
+    private final ExpenseStore rows;
+    private final int[] lookupRows;    // Rows found through an index, ascending; null for a scan
+    private final Filter lookup;       // The condition lookupRows already meet
+    private final byte[] indexedDescriptions; // Per dictionary id, 1 = matches, 2 = does not; null to test the text
+    private final boolean empty;       // The description index found no live expense that matches
+    private final Filter[] filters;    // Tested in this order
+    private final double[] selectivities;
+
+    /**
+     * @param lookupRows The snapshot rows an index found for the query, ascending, or null to scan
+     * @param lookup The condition of the query the index looked up: ID or DESCRIPTION
+     * @param categoryShare The share of expenses in the query's categories
+     * @param dateShare The estimated share of expenses in the query's date range
+     * @param indexedDescriptions The description index's answer for every dictionary id of the
+     *                            snapshot, or null to test the description text
+     * @param descriptionShare The share of expenses with a matching description, if indexed
+     */
+    QueryPlan(ExpenseQuery query, ExpenseSnapshot snapshot, int[] lookupRows, Filter lookup,
+              double categoryShare, double dateShare, byte[] indexedDescriptions, double descriptionShare) {
+        this.query = query;
+        this.snapshot = snapshot;
+        this.rows = snapshot.rows();
+        this.lookupRows = lookupRows;
+        this.lookup = lookupRows == null ? null : lookup;
+        this.indexedDescriptions = indexedDescriptions;
+        this.empty = (indexedDescriptions != null || this.lookup == Filter.DESCRIPTION) && descriptionShare == 0;
+
+        List<Filter> chosen = new ArrayList<>();
+        List<Double> estimates = new ArrayList<>();
+        if (query.hasCategories()) {
+            chosen.add(Filter.CATEGORY);
+            estimates.add(categoryShare);
+        }
+        if (query.hasDateRange()) {
+            chosen.add(Filter.DATE);
+            estimates.add(dateShare);
+        }
+        if (query.hasAmountRange()) {
+            chosen.add(Filter.AMOUNT);
+            estimates.add(UNKNOWN_SELECTIVITY);
+        }
+        if (query.ids() != null && lookup != Filter.ID) {
+            chosen.add(Filter.ID);
+            estimates.add(rows.size() == 0 ? 0 : Math.min(1, (double) query.ids().length / rows.size()));
+        }
+        if (indexedDescriptions != null && lookup != Filter.DESCRIPTION) {
+            chosen.add(Filter.DESCRIPTION);
+            estimates.add(descriptionShare);
+        }
+
+        // Most selective first; the description test is the costly one, so it goes last whatever its selectivity
+        Integer[] byEstimate = new Integer[chosen.size()];
+        for (int i = 0; i < byEstimate.length; i++) {
+            byEstimate[i] = i;
+        }
+        Arrays.sort(byEstimate, (a, b) -> Double.compare(estimates.get(a), estimates.get(b)));
+        boolean testText = query.description() != null && indexedDescriptions == null && this.lookup != Filter.DESCRIPTION;
+        int count = chosen.size() + (testText ? 1 : 0);
+        filters = new Filter[count];
+        selectivities = new double[count];
+        for (int i = 0; i < byEstimate.length; i++) {
+            filters[i] = chosen.get(byEstimate[i]);
+            selectivities[i] = estimates.get(byEstimate[i]);
+        }
+        if (testText) {
+            filters[count - 1] = Filter.DESCRIPTION;
+            selectivities[count - 1] = UNKNOWN_SELECTIVITY;
+        }
+    }
+
+    /**
+     * @return The snapshot the plan reads
+     */
+    ExpenseSnapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Iterates over the matching rows in ledger order
+     */
+    PrimitiveIterator.OfInt rows() {
+        return new RowIterator();
+    }
+
+    /**
+     * Streams the matching expenses lazily; an Expense is only built for a row that matched
+     */
+    Stream<Expense> stream() {
+        Spliterator.OfInt matches = Spliterators.spliteratorUnknownSize(rows(),
+            Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+        return StreamSupport.intStream(matches, false).mapToObj(rows::get);
+    }
+
+    /**
+     * Computes count, sum, min and max over the matching rows without building any Expense
+     * A scan is split into ranges of chunks that run on the pool and are combined as the ranges
+     * join. Amounts are added as cents, which is exact, so the result is the same however the
+     * work was split and in whatever order the ranges finished
+     *
+     * @throws ArithmeticException if the total does not fit in a long number of cents
+     */
+    ExpenseAggregate aggregate(ForkJoinPool pool) {
+        if (lookupRows != null || empty) {
+            long count = 0;
+            long sum = 0;
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            PrimitiveIterator.OfInt matches = rows();
+            while (matches.hasNext()) {
+                long cents = rows.amountCents(matches.nextInt());
+                count++;
+                sum = Math.addExact(sum, cents);
+                min = Math.min(min, cents);
+                max = Math.max(max, cents);
+            }
+            return new ExpenseAggregate(count, sum, min, max);
+        }
+        return pool.invoke(new AggregateTask(0, chunkCount(), chunksPerTask(pool)));
+    }
+
+    /**
+     * Finds the first k matching rows in an order without sorting the matches
+     * A scan is split into ranges of chunks that run on the pool, each keeping its own bounded heap;
+     * the heaps are merged as the ranges join, so the work is O(matches × log k) and the memory O(k)
+     * per range
+     *
+     * @return The rows, first row first
+     */
+    int[] top(int k, SortSpec spec, ForkJoinPool pool) {
+        RowOrder order = new RowOrder(rows, spec);
+        if (empty || k == 0) {
+            return new int[0];
+        }
+        if (lookupRows != null) {
+            TopRows top = new TopRows(k, order);
+            PrimitiveIterator.OfInt matches = rows();
+            while (matches.hasNext()) {
+                top.offer(matches.nextInt());
+            }
+            return top.sorted();
+        }
+        return pool.invoke(new TopTask(k, order, 0, chunkCount(), chunksPerTask(pool))).sorted();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder plan = new StringBuilder();
+        if (empty) {
+            plan.append("No expense has a matching description in the description index; nothing to read");
+        } else if (lookup == Filter.ID) {
+            plan.append("ID index lookup (").append(lookupRows.length).append(" of ").append(query.ids().length)
+                .append(" IDs found)");
+        } else if (lookup == Filter.DESCRIPTION) {
+            plan.append("Description index lookup (").append(lookupRows.length).append(" rows)");
+        } else {
+            plan.append("Scan of ").append(rows.size()).append(" rows");
+            if (query.hasCategories() || query.hasDateRange() || query.hasAmountRange()) {
+                plan.append(", skipping chunks by zone map");
+            }
+        }
+        for (int i = 0; i < filters.length; i++) {
+            boolean indexed = filters[i] == Filter.DESCRIPTION && indexedDescriptions != null;
+            plan.append(String.format("%n  then test %s%s (selectivity ~%.2f)", filters[i].name().toLowerCase(),
+                                      indexed ? " via description index" : "", selectivities[i]));
+        }
+        return plan.toString();
+    }
+
+    /**
+     * Narrows a chunk down to its rows that pass every filter
+     *
+     * @param selected Filled with the offsets of the matching rows within the chunk, ascending
+     * @return The number of matching rows
+     */
+    private int selectInChunk(int chunk, int[] selected, byte[] descriptionMatches) {
+        int kept = rows.rowsInChunk(chunk);
+        for (int o = 0; o < kept; o++) {
+            selected[o] = o;
+        }
+        for (int f = 0; f < filters.length && kept > 0; f++) {
+            int passed = 0;
+            switch (filters[f]) {
+                case CATEGORY:
+                    byte[] categories = rows.categoryChunk(chunk);
+                    for (int i = 0; i < kept; i++) {
+                        int o = selected[i];
+                        if (query.matchesCategory(categories[o])) {
+                            selected[passed++] = o;
+                        }
+                    }
+                    break;
+                case DATE:
+                    int[] days = rows.dayChunk(chunk);
+                    int fromDay = query.fromDay();
+                    int toDay = query.toDay();
+                    for (int i = 0; i < kept; i++) {
+                        int o = selected[i];
+                        if (days[o] >= fromDay && days[o] <= toDay) {
+                            selected[passed++] = o;
+                        }
+                    }
+                    break;
+                case AMOUNT:
+                    long[] amounts = rows.amountChunk(chunk);
+                    long minCents = query.minCents();
+                    long maxCents = query.maxCents();
+                    for (int i = 0; i < kept; i++) {
+                        int o = selected[i];
+                        if (amounts[o] >= minCents && amounts[o] <= maxCents) {
+                            selected[passed++] = o;
+                        }
+                    }
+                    break;
+                case ID:
+                    long[] ids = rows.idChunk(chunk);
+                    for (int i = 0; i < kept; i++) {
+                        int o = selected[i];
+                        if (Arrays.binarySearch(query.ids(), ids[o]) >= 0) {
+                            selected[passed++] = o;
+                        }
+                    }
+                    break;
+                default:
+                    int[] descriptionIds = rows.descriptionChunk(chunk);
+                    for (int i = 0; i < kept; i++) {
+                        int o = selected[i];
+                        int id = descriptionIds[o];
+                        if (descriptionMatches[id] == 0) { // Same memo as in matches
+                            descriptionMatches[id] = query.description().test(rows.descriptionText(id)) ? (byte) 1 : (byte) 2;
+                        }
+                        if (descriptionMatches[id] == 1) {
+                            selected[passed++] = o;
+                        }
+                    }
+                    break;
+            }
+            kept = passed;
+        }
+        return kept;
+    }
+
+    /**
+     * @return The number of chunks holding rows; the store may have allocated more
+     */
+    private int chunkCount() {
+        return (rows.size() + ExpenseStore.CHUNK_MASK) >>> ExpenseStore.CHUNK_SHIFT;
+    }
+
+    private int chunksPerTask(ForkJoinPool pool) {
+        return Math.max(1, chunkCount() / (Math.max(1, pool.getParallelism()) * TASKS_PER_THREAD));
+    }
+
+    /**
+     * Aggregates a range of chunks, splitting the range while it is larger than a task's share
+     */
+    private final class AggregateTask extends RecursiveTask<ExpenseAggregate> {
+        private static final long serialVersionUID = 1L;
+
+        private final int fromChunk;
+        private final int toChunk;
+        private final int chunksPerTask;
+
+        AggregateTask(int fromChunk, int toChunk, int chunksPerTask) {
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+            this.chunksPerTask = chunksPerTask;
+        }
+
+        @Override
+        protected ExpenseAggregate compute() {
+            if (toChunk - fromChunk > chunksPerTask) {
+                int middle = (fromChunk + toChunk) >>> 1;
+                AggregateTask second = new AggregateTask(middle, toChunk, chunksPerTask);
+                second.fork();
+                ExpenseAggregate first = new AggregateTask(fromChunk, middle, chunksPerTask).compute();
+                return first.plus(second.join());
+            }
+
+            long count = 0;
+            long sum = 0;
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            ZoneMap zones = snapshot.zoneMap();
+            int[] selected = new int[ExpenseStore.CHUNK_SIZE];
+            byte[] descriptionMatches = indexedDescriptions != null ? indexedDescriptions
+                : query.description() == null ? null : new byte[rows.descriptionCount()];
+            for (int chunk = fromChunk; chunk < toChunk; chunk++) {
+                if (!zones.mayMatch(chunk, query)) {
+                    continue;
+                }
+                int matched = selectInChunk(chunk, selected, descriptionMatches);
+                long[] amounts = rows.amountChunk(chunk);
+                for (int i = 0; i < matched; i++) {
+                    long cents = amounts[selected[i]];
+                    sum = Math.addExact(sum, cents);
+                    min = Math.min(min, cents);
+                    max = Math.max(max, cents);
+                }
+                count += matched;
+            }
+            return new ExpenseAggregate(count, sum, min, max);
+        }
+    }
+
+    /**
+     * Fills a bounded heap from a range of chunks, splitting the range while it is larger than a task's share
+     */
+    private final class TopTask extends RecursiveTask<TopRows> {
+        private static final long serialVersionUID = 1L;
+
+        private final int k;
+        private final RowOrder order;
+        private final int fromChunk;
+        private final int toChunk;
+        private final int chunksPerTask;
+
+        TopTask(int k, RowOrder order, int fromChunk, int toChunk, int chunksPerTask) {
+            this.k = k;
+            this.order = order;
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+            this.chunksPerTask = chunksPerTask;
+        }
+
+        @Override
+        protected TopRows compute() {
+            if (toChunk - fromChunk > chunksPerTask) {
+                int middle = (fromChunk + toChunk) >>> 1;
+                TopTask second = new TopTask(k, order, middle, toChunk, chunksPerTask);
+                second.fork();
+                TopRows top = new TopTask(k, order, fromChunk, middle, chunksPerTask).compute();
+                top.addAll(second.join());
+                return top;
+            }
+
+            TopRows top = new TopRows(k, order);
+            ZoneMap zones = snapshot.zoneMap();
+            int[] selected = new int[ExpenseStore.CHUNK_SIZE];
+            // Text tests are remembered per task, as the memo is written to
+            byte[] descriptionMatches = indexedDescriptions != null ? indexedDescriptions
+                : query.description() == null ? null : new byte[rows.descriptionCount()];
+            for (int chunk = fromChunk; chunk < toChunk; chunk++) {
+                if (!zones.mayMatch(chunk, query)) {
+                    continue;
+                }
+                int count = selectInChunk(chunk, selected, descriptionMatches);
+                int base = chunk << ExpenseStore.CHUNK_SHIFT;
+                for (int i = 0; i < count; i++) {
+                    top.offer(base + selected[i]);
+                }
+            }
+            return top;
+        }
+    }
+
+    private boolean matches(int row, byte[] descriptionMatches) {
+        for (Filter filter : filters) {
+            switch (filter) {
+                case CATEGORY:
+                    if (!query.matchesCategory(rows.categoryOrdinal(row))) {
+                        return false;
+                    }
+                    break;
+                case DATE:
+                    int day = rows.epochDay(row);
+                    if (day < query.fromDay() || day > query.toDay()) {
+                        return false;
+                    }
+                    break;
+                case AMOUNT:
+                    long cents = rows.amountCents(row);
+                    if (cents < query.minCents() || cents > query.maxCents()) {
+                        return false;
+                    }
+                    break;
+                case ID:
+                    if (Arrays.binarySearch(query.ids(), rows.id(row)) < 0) {
+                        return false;
+                    }
+                    break;
+                default:
+                    // 0 = not tested yet, 1 = matches, 2 = does not; the dictionary shares texts between rows
+                    int id = rows.descriptionId(row);
+                    if (descriptionMatches[id] == 0) {
+                        descriptionMatches[id] = query.description().test(rows.descriptionText(id)) ? (byte) 1 : (byte) 2;
+                    }
+                    if (descriptionMatches[id] == 2) {
+                        return false;
+                    }
+                    break;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Walks the rows an index found, or the chunks the zone map lets through, one chunk ahead of the caller
+     */
+    private final class RowIterator implements PrimitiveIterator.OfInt {
+        private final byte[] descriptionMatches = indexedDescriptions != null ? indexedDescriptions
+            : query.description() == null ? null : new byte[rows.descriptionCount()];
+        private final ZoneMap zones = lookupRows == null ? snapshot.zoneMap() : null;
+        private final int[] selected = lookupRows == null ? new int[ExpenseStore.CHUNK_SIZE] : null;
+        private int position;     // Next index into lookupRows, or next chunk to scan
+        private int chunkBase;    // First row of the chunk in selected
+        private int selectedCount;
+        private int selectedPosition;
+        private int next = -1;    // Matching row found ahead, or -1
+
+        @Override
+        public boolean hasNext() {
+            if (next < 0) {
+                next = advance();
+            }
+            return next >= 0;
+        }
+
+        @Override
+        public int nextInt() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int row = next;
+            next = -1;
+            return row;
+        }
+
+        private int advance() {
+            if (empty) {
+                return -1;
+            }
+            if (lookupRows != null) {
+                while (position < lookupRows.length) {
+                    int row = lookupRows[position++];
+                    if (matches(row, descriptionMatches)) {
+                        return row;
+                    }
+                }
+                return -1;
+            }
+
+            int chunks = (rows.size() + ExpenseStore.CHUNK_MASK) >>> ExpenseStore.CHUNK_SHIFT;
+            while (selectedPosition == selectedCount) {
+                if (position >= chunks) {
+                    return -1;
+                }
+                int chunk = position++;
+                selectedPosition = 0;
+                // Nothing in a chunk the zone map rules out can match
+                selectedCount = zones.mayMatch(chunk, query) ? selectInChunk(chunk, selected, descriptionMatches) : 0;
+                chunkBase = chunk << ExpenseStore.CHUNK_SHIFT;
+            }
+            return chunkBase + selected[selectedPosition++];
+        }
+    }
+}
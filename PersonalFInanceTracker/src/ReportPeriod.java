@@ -0,0 +1,56 @@
+/**
+ * Period lengths of a spending rollup, all made of whole calendar months
+ * Quarters start in January, April, July and October
+ */
+public enum ReportPeriod {
+    MONTH,
+    QUARTER,
+    YEAR;
+
+    /**
+     * Gets the period a month falls into; consecutive periods have consecutive numbers
+     *
+     * @param month A month number as TimeResolution.MONTH numbers them (year * 12 + month - 1)
+     * @return The period number
+     */
+    int periodOf(int month) {
+        switch (this) {
+            case MONTH:
+                return month;
+            case QUARTER:
+                return Math.floorDiv(month, 3);
+            default:
+                return Math.floorDiv(month, 12);
+        }
+    }
+
+    /**
+     * @return The number of the first month of a period
+     */
+    int firstMonth(int period) {
+        switch (this) {
+            case MONTH:
+                return period;
+            case QUARTER:
+                return period * 3;
+            default:
+                return period * 12;
+        }
+    }
+
+    /**
+     * Names a period the way reports show it: 2024-03, 2024-Q1 or 2024
+     */
+    String label(int period) {
+        int month = firstMonth(period);
+        int year = Math.floorDiv(month, 12);
+        switch (this) {
+            case MONTH:
+                return String.format("%04d-%02d", year, Math.floorMod(month, 12) + 1);
+            case QUARTER:
+                return String.format("%04d-Q%d", year, Math.floorMod(month, 12) / 3 + 1);
+            default:
+                return String.format("%04d", year);
+        }
+    }
+}
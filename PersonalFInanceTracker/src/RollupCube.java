@@ -0,0 +1,240 @@
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Sum, count, minimum and maximum of the expenses in every month and category.
+ *
+ * The cells form one dense month-by-category grid over the months that have
+ * expenses, in four parallel primitive arrays, so a report over years of data
+ * reads a few thousand cells instead of the rows. Quarters, years and
+ * category groups are folded together from the cells when asked; sums and
+ * counts add up and minima and maxima combine, so nothing is stored twice.
+ *
+ * Adding an expense updates one cell in O(1). Removing one also does, except
+ * that a cell cannot know its next smallest or largest amount when it loses
+ * its current one; such a cell is only marked, and the next report refreshes
+ * the extremes of every marked cell in one pass over the date, category and
+ * amount columns. Sums and counts are always exact without that pass.
+ */
+final class RollupCube {
+
+    private static final int CATEGORY_COUNT = ExpenseCategory.values().length;
+    private static final CategoryGroup[] GROUP_OF = new CategoryGroup[CATEGORY_COUNT];
+
+    static {
+        for (ExpenseCategory category : ExpenseCategory.values()) {
+            GROUP_OF[category.ordinal()] = category.getGroup();
+        }
+    }
+
+    private int firstMonth;  // Month of row 0 of the grid
+    private int monthCount;  // Months the grid has room for
+    private long[] sums;
+    private int[] counts;
+    private long[] mins;
+    private long[] maxs;
+    private final BitSet staleExtremes = new BitSet(); // Cells that lost their minimum or maximum
+
+    // Day range of the month converted last, so expenses of one month convert their date only once
+    private int cachedFrom = 1;
+    private int cachedTo = 0;
+    private int cachedMonth;
+
+    RollupCube() {
+        clear();
+    }
+
+    /**
+     * Records one expense
+     */
+    void add(int epochDay, int categoryOrdinal, long cents) {
+        int cell = cell(monthOf(epochDay), categoryOrdinal, true);
+        if (counts[cell]++ == 0) {
+            mins[cell] = cents;
+            maxs[cell] = cents;
+        } else {
+            mins[cell] = Math.min(mins[cell], cents);
+            maxs[cell] = Math.max(maxs[cell], cents);
+        }
+        sums[cell] += cents;
+    }
+
+    /**
+     * Forgets one expense that was previously added
+     */
+    void remove(int epochDay, int categoryOrdinal, long cents) {
+        int cell = cell(monthOf(epochDay), categoryOrdinal, false);
+        sums[cell] -= cents;
+        if (--counts[cell] == 0) {
+            staleExtremes.clear(cell);
+        } else if (cents == mins[cell] || cents == maxs[cell]) {
+            staleExtremes.set(cell); // Another expense may share the amount, but only the rows can tell
+        }
+    }
+
+    /**
+     * Drops every cell
+     */
+    void clear() {
+        firstMonth = 0;
+        monthCount = 0;
+        sums = new long[0];
+        counts = new int[0];
+        mins = new long[0];
+        maxs = new long[0];
+        staleExtremes.clear();
+    }
+
+    /**
+     * Rebuilds every cell from a store in one pass, for bulk loads
+     */
+    void rebuild(ExpenseStore store) {
+        clear();
+        for (int row = 0; row < store.size(); row++) {
+            if (store.id(row) != ExpenseStore.TOMBSTONE) {
+                add(store.epochDay(row), store.categoryOrdinal(row), store.amountCents(row));
+            }
+        }
+    }
+
+    /**
+     * @return Whether some cell's minimum or maximum needs refreshExtremes
+     */
+    boolean hasStaleExtremes() {
+        return !staleExtremes.isEmpty();
+    }
+
+    /**
+     * Recomputes the minimum and maximum of the marked cells in one pass over a store
+     */
+    void refreshExtremes(ExpenseStore store) {
+        for (int cell = staleExtremes.nextSetBit(0); cell >= 0; cell = staleExtremes.nextSetBit(cell + 1)) {
+            mins[cell] = Long.MAX_VALUE;
+            maxs[cell] = Long.MIN_VALUE;
+        }
+        for (int row = 0; row < store.size(); row++) {
+            if (store.id(row) == ExpenseStore.TOMBSTONE) {
+                continue;
+            }
+            int cell = cell(monthOf(store.epochDay(row)), store.categoryOrdinal(row), false);
+            if (staleExtremes.get(cell)) {
+                long cents = store.amountCents(row);
+                mins[cell] = Math.min(mins[cell], cents);
+                maxs[cell] = Math.max(maxs[cell], cents);
+            }
+        }
+        staleExtremes.clear();
+    }
+
+    /**
+     * Folds the cells into periods and categories or category groups
+     * Call refreshExtremes first if hasStaleExtremes
+     *
+     * @param byGroup Whether the columns are category groups rather than categories
+     */
+    SpendingRollup rollup(ReportPeriod period, boolean byGroup) {
+        String[] columns = columnNames(byGroup);
+
+        // Only the periods from the first to the last one with expenses are reported
+        int first = -1;
+        int last = -1;
+        for (int month = 0; month < monthCount; month++) {
+            for (int category = 0; category < CATEGORY_COUNT; category++) {
+                if (counts[month * CATEGORY_COUNT + category] > 0) {
+                    first = first < 0 ? month : first;
+                    last = month;
+                    break;
+                }
+            }
+        }
+        if (first < 0) {
+            return new SpendingRollup(period, 0, 0, columns, new long[0], new int[0], new long[0], new long[0]);
+        }
+
+        int firstPeriod = period.periodOf(firstMonth + first);
+        int periodCount = period.periodOf(firstMonth + last) - firstPeriod + 1;
+        int cells = periodCount * columns.length;
+        long[] periodSums = new long[cells];
+        int[] periodCounts = new int[cells];
+        long[] periodMins = new long[cells];
+        long[] periodMaxs = new long[cells];
+        Arrays.fill(periodMins, Long.MAX_VALUE);
+        Arrays.fill(periodMaxs, Long.MIN_VALUE);
+        for (int month = first; month <= last; month++) {
+            int row = period.periodOf(firstMonth + month) - firstPeriod;
+            for (int category = 0; category < CATEGORY_COUNT; category++) {
+                int cell = month * CATEGORY_COUNT + category;
+                if (counts[cell] == 0) {
+                    continue;
+                }
+                int target = row * columns.length + (byGroup ? GROUP_OF[category].ordinal() : category);
+                periodSums[target] += sums[cell];
+                periodCounts[target] += counts[cell];
+                periodMins[target] = Math.min(periodMins[target], mins[cell]);
+                periodMaxs[target] = Math.max(periodMaxs[target], maxs[cell]);
+            }
+        }
+        return new SpendingRollup(period, firstPeriod, periodCount, columns,
+                                  periodSums, periodCounts, periodMins, periodMaxs);
+    }
+
+    // ========== INTERNALS ==========
+
+    private static String[] columnNames(boolean byGroup) {
+        Enum<?>[] keys = byGroup ? CategoryGroup.values() : ExpenseCategory.values();
+        String[] names = new String[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            names[i] = keys[i].name();
+        }
+        return names;
+    }
+
+    private int monthOf(int epochDay) {
+        if (epochDay < cachedFrom || epochDay > cachedTo) {
+            cachedMonth = TimeResolution.MONTH.bucketOf(epochDay);
+            cachedFrom = TimeResolution.MONTH.startDay(cachedMonth);
+            cachedTo = TimeResolution.MONTH.startDay(cachedMonth + 1) - 1;
+        }
+        return cachedMonth;
+    }
+
+    /**
+     * Finds the cell of a month and category, growing the grid to take in the month if asked
+     */
+    private int cell(int month, int categoryOrdinal, boolean grow) {
+        if (grow && (monthCount == 0 || month < firstMonth || month >= firstMonth + monthCount)) {
+            int from = monthCount == 0 ? month : Math.min(month, firstMonth);
+            int to = monthCount == 0 ? month + 1 : Math.max(month + 1, firstMonth + monthCount);
+            int slack = Math.max(12, (to - from) / 2); // Room for the ledger to keep growing in time
+            resize(month < firstMonth ? from - slack : from, month < firstMonth ? to : to + slack);
+        }
+        return (month - firstMonth) * CATEGORY_COUNT + categoryOrdinal;
+    }
+
+    private void resize(int newFirstMonth, int newEndMonth) {
+        int newCount = newEndMonth - newFirstMonth;
+        int shift = (firstMonth - newFirstMonth) * CATEGORY_COUNT;
+        int used = monthCount * CATEGORY_COUNT;
+        long[] newSums = new long[newCount * CATEGORY_COUNT];
+        int[] newCounts = new int[newSums.length];
+        long[] newMins = new long[newSums.length];
+        long[] newMaxs = new long[newSums.length];
+        if (used > 0) {
+            System.arraycopy(sums, 0, newSums, shift, used);
+            System.arraycopy(counts, 0, newCounts, shift, used);
+            System.arraycopy(mins, 0, newMins, shift, used);
+            System.arraycopy(maxs, 0, newMaxs, shift, used);
+        }
+        BitSet stale = (BitSet) staleExtremes.clone();
+        staleExtremes.clear();
+        for (int cell = stale.nextSetBit(0); cell >= 0; cell = stale.nextSetBit(cell + 1)) {
+            staleExtremes.set(cell + shift);
+        }
+        sums = newSums;
+        counts = newCounts;
+        mins = newMins;
+        maxs = newMaxs;
+        firstMonth = newFirstMonth;
+        monthCount = newCount;
+    }
+}
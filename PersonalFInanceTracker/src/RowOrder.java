@@ -0,0 +1,91 @@
+/**
+ * Compares rows of a store by a SortSpec, for callers that only look at a
+ * few rows and would waste a full radix sort on them.
+ *
+ * Ties on every key are broken by row number, i.e. ledger order, so the
+ * rows come out in exactly the order ExpenseSnapshot.sorted gives them.
+ * Descriptions compare by text, like the sorter's dictionary ranks.
+ *
+ * When the first key is not the description, it is also available as a
+ * long that orders like compare on that key alone, so a caller can reject
+ * most rows with one long comparison.
+ */
+final class RowOrder {
+
+    private final ExpenseStore rows;
+    private final SortSpec.Key[] keys;
+    private final boolean[] descending;
+
+    RowOrder(ExpenseStore rows, SortSpec spec) {
+        this.rows = rows;
+        this.keys = spec.getKeys().toArray(new SortSpec.Key[0]);
+        this.descending = new boolean[keys.length];
+        for (int k = 0; k < keys.length; k++) {
+            descending[k] = spec.isDescending(k);
+        }
+    }
+
+    /**
+     * @return Whether primaryKey orders rows like the first key of the spec
+     */
+    boolean hasPrimaryKey() {
+        return keys.length > 0 && keys[0] != SortSpec.Key.DESCRIPTION;
+    }
+
+    /**
+     * Gets the first key of a row as a long; a smaller value comes first
+     * Only meaningful when hasPrimaryKey is true
+     */
+    long primaryKey(int row) {
+        long value;
+        switch (keys[0]) {
+            case DATE:
+                value = rows.epochDay(row);
+                break;
+            case AMOUNT:
+                value = rows.amountCents(row);
+                break;
+            case CATEGORY:
+                value = rows.categoryOrdinal(row);
+                break;
+            case ID:
+                value = rows.id(row);
+                break;
+            default:
+                return 0;
+        }
+        return descending[0] ? -value : value; // Amounts and IDs are far from Long.MIN_VALUE
+    }
+
+    /**
+     * @return Negative if row a comes first, positive if row b does; never 0 for different rows
+     */
+    int compare(int a, int b) {
+        for (int k = 0; k < keys.length; k++) {
+            int result;
+            switch (keys[k]) {
+                case DATE:
+                    result = Integer.compare(rows.epochDay(a), rows.epochDay(b));
+                    break;
+                case AMOUNT:
+                    result = Long.compare(rows.amountCents(a), rows.amountCents(b));
+                    break;
+                case CATEGORY:
+                    result = Integer.compare(rows.categoryOrdinal(a), rows.categoryOrdinal(b));
+                    break;
+                case DESCRIPTION:
+                    int textA = rows.descriptionId(a);
+                    int textB = rows.descriptionId(b);
+                    result = textA == textB ? 0 : rows.descriptionText(textA).compareTo(rows.descriptionText(textB));
+                    break;
+                default:
+                    result = Long.compare(rows.id(a), rows.id(b));
+                    break;
+            }
+            if (result != 0) {
+                return descending[k] ? -result : result;
+            }
+        }
+        return Integer.compare(a, b);
+    }
+}
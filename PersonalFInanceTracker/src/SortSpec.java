@@ -0,0 +1,163 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Composite sort order for expenses, e.g. category, then date descending, then amount
+ * Immutable: then and thenDescending return a new spec with one more key. Expenses that compare
+ * equal on every key keep their ledger order
+ */
+public final class SortSpec {
+
+    /**
+     * Fields expenses can be sorted by
+     */
+    public enum Key {
+        DATE,
+        AMOUNT,
+        CATEGORY,       // In ExpenseCategory declaration order
+        DESCRIPTION,    // By String.compareTo
+        ID              // Roughly the order expenses were added in
+    }
+
+    private final List<Key> keys;
+    private final List<Boolean> descending;
+
+    private SortSpec(List<Key> keys, List<Boolean> descending) {
+        this.keys = keys;
+        this.descending = descending;
+    }
+
+    /**
+     * Starts a spec with one ascending key
+     *
+     * @param key The most significant key
+     * @return The spec
+     * @throws IllegalArgumentException if key is null
+     */
+    public static SortSpec by(Key key) {
+        return new SortSpec(Collections.emptyList(), Collections.emptyList()).then(key, false);
+    }
+
+    /**
+     * Starts a spec with one descending key
+     *
+     * @param key The most significant key
+     * @return The spec
+     * @throws IllegalArgumentException if key is null
+     */
+    public static SortSpec byDescending(Key key) {
+        return new SortSpec(Collections.emptyList(), Collections.emptyList()).then(key, true);
+    }
+
+    /**
+     * Parses a spec such as "category, date des, amount"
+     * Keys are separated by commas; each may be followed by "asc" (the default) or "des"
+     *
+     * @param spec The spec text
+     * @return The spec
+     * @throws IllegalArgumentException if the text is empty or names an unknown key or order
+     */
+    public static SortSpec parse(String spec) {
+        if (spec == null || spec.trim().isEmpty()) {
+            throw new IllegalArgumentException("Sort spec cannot be null or empty");
+        }
+        SortSpec parsed = new SortSpec(Collections.emptyList(), Collections.emptyList());
+        for (String part : spec.split(",")) {
+            String[] words = part.trim().split("\\s+");
+            if (words.length > 2 || words[0].isEmpty()) {
+                throw new IllegalArgumentException("Invalid sort key '" + part.trim() + "'. Use e.g. 'date des'");
+            }
+            Key key;
+            try {
+                key = Key.valueOf(words[0].toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid criteria '" + words[0] + "'. Use date, amount, category, description or id");
+            }
+            boolean descending = false;
+            if (words.length == 2) {
+                if (words[1].equalsIgnoreCase("des")) {
+                    descending = true;
+                } else if (!words[1].equalsIgnoreCase("asc")) {
+                    throw new IllegalArgumentException("Invalid order '" + words[1] + "'. Use 'asc' or 'des'");
+                }
+            }
+            parsed = parsed.then(key, descending);
+        }
+        return parsed;
+    }
+
+    /**
+     * Adds an ascending key that orders expenses equal on all previous keys
+     *
+     * @param key The key
+     * @return A new spec
+     * @throws IllegalArgumentException if key is null
+     */
+    public SortSpec then(Key key) {
+        return then(key, false);
+    }
+
+    /**
+     * Adds a descending key that orders expenses equal on all previous keys
+     *
+     * @param key The key
+     * @return A new spec
+     * @throws IllegalArgumentException if key is null
+     */
+    public SortSpec thenDescending(Key key) {
+        return then(key, true);
+    }
+
+    private SortSpec then(Key key, boolean descendingKey) {
+        if (key == null) {
+            throw new IllegalArgumentException("Sort key cannot be null");
+        }
+        List<Key> newKeys = new ArrayList<>(keys);
+        List<Boolean> newDescending = new ArrayList<>(descending);
+        newKeys.add(key);
+        newDescending.add(descendingKey);
+        return new SortSpec(Collections.unmodifiableList(newKeys), Collections.unmodifiableList(newDescending));
+    }
+
+    /**
+     * @return The keys, most significant first
+     */
+    public List<Key> getKeys() {
+        return keys;
+    }
+
+    /**
+     * @param index The position of a key in getKeys
+     * @return Whether that key sorts descending
+     */
+    public boolean isDescending(int index) {
+        return descending.get(index);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof SortSpec)) {
+            return false;
+        }
+        SortSpec spec = (SortSpec) other;
+        return keys.equals(spec.keys) && descending.equals(spec.descending);
+    }
+
+    @Override
+    public int hashCode() {
+        return keys.hashCode() * 31 + descending.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < keys.size(); i++) {
+            if (i > 0) {
+                text.append(", ");
+            }
+            text.append(keys.get(i).name().toLowerCase()).append(descending.get(i) ? " des" : " asc");
+        }
+        return text.toString();
+    }
+}
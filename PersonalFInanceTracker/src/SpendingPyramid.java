@@ -0,0 +1,205 @@
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Spending pre-aggregated into day, week, month and year buckets, per category.
+ *
+ * Every level holds, for each of its buckets, one total per category and one
+ * for all categories together. Adding or removing an expense updates one
+ * bucket on each level, O(1); a series of n buckets is read in O(n) however
+ * many expenses fall into them. Choosing the coarsest resolution that still
+ * fits the requested bucket count therefore makes a chart cost O(pixels)
+ * instead of O(rows).
+ *
+ * Buckets are stored in blocks of 256 that are only allocated where there
+ * are expenses, so a ledger with a few far-off dates stays small.
+ */
+final class SpendingPyramid {
+
+    private static final int CATEGORY_COUNT = ExpenseCategory.values().length;
+    private static final int SLOTS = CATEGORY_COUNT + 1; // Per bucket: one total per category, then the total of all
+    private static final int ALL = CATEGORY_COUNT;
+
+    private static final int BLOCK_SHIFT = 8;
+    private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+    private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+
+    private static final TimeResolution[] RESOLUTIONS = TimeResolution.values();
+
+    /**
+     * The buckets of one resolution
+     */
+    private static final class Level {
+        final Map<Integer, long[]> blocks = new HashMap<>();
+        int lastKey;
+        long[] lastBlock; // Most recently used block; neighbouring dates usually share it
+
+        long[] block(int bucket, boolean create) {
+            int key = bucket >> BLOCK_SHIFT;
+            if (lastBlock == null || key != lastKey) {
+                long[] block = blocks.get(key);
+                if (block == null) {
+                    if (!create) {
+                        return null;
+                    }
+                    block = new long[BLOCK_SIZE * SLOTS];
+                    blocks.put(key, block);
+                }
+                lastKey = key;
+                lastBlock = block;
+            }
+            return lastBlock;
+        }
+    }
+
+    private final Level[] levels = new Level[RESOLUTIONS.length];
+
+    // Span of the dates recorded since the last clear; removals do not shrink it
+    private int firstDay;
+    private int lastDay;
+
+    // Buckets of the date updated last, so a run of expenses on one date converts it only once
+    private int cachedDay;
+    private final int[] cachedBuckets = new int[RESOLUTIONS.length];
+
+    SpendingPyramid() {
+        clear();
+    }
+
+    /**
+     * Records one expense
+     */
+    void add(int epochDay, int categoryOrdinal, long cents) {
+        firstDay = Math.min(firstDay, epochDay);
+        lastDay = Math.max(lastDay, epochDay);
+        update(epochDay, categoryOrdinal, cents);
+    }
+
+    /**
+     * Forgets one expense that was previously added
+     */
+    void remove(int epochDay, int categoryOrdinal, long cents) {
+        update(epochDay, categoryOrdinal, -cents);
+    }
+
+    /**
+     * Drops every bucket
+     */
+    void clear() {
+        for (int i = 0; i < levels.length; i++) {
+            levels[i] = new Level();
+        }
+        firstDay = Integer.MAX_VALUE;
+        lastDay = Integer.MIN_VALUE;
+        cachedDay = Integer.MIN_VALUE;
+    }
+
+    /**
+     * Rebuilds the pyramid from a compacted store, for bulk loads
+     * Only the day level is filled row by row; the coarser levels are then summed up from the
+     * days, so dates are converted once per distinct day instead of once per row
+     */
+    void rebuild(ExpenseStore store) {
+        clear();
+        Level days = levels[TimeResolution.DAY.ordinal()];
+        for (int row = 0; row < store.size(); row++) {
+            int day = store.epochDay(row);
+            firstDay = Math.min(firstDay, day);
+            lastDay = Math.max(lastDay, day);
+            int offset = (day & BLOCK_MASK) * SLOTS;
+            long[] block = days.block(day, true);
+            long cents = store.amountCents(row);
+            block[offset + store.categoryOrdinal(row)] += cents;
+            block[offset + ALL] += cents;
+        }
+
+        for (Map.Entry<Integer, long[]> entry : days.blocks.entrySet()) {
+            long[] block = entry.getValue();
+            for (int slot = 0; slot < BLOCK_SIZE; slot++) {
+                int offset = slot * SLOTS;
+                if (!hasSpending(block, offset)) {
+                    continue;
+                }
+                int day = (entry.getKey() << BLOCK_SHIFT) | slot;
+                for (int level = 1; level < levels.length; level++) {
+                    int bucket = RESOLUTIONS[level].bucketOf(day);
+                    long[] target = levels[level].block(bucket, true);
+                    int targetOffset = (bucket & BLOCK_MASK) * SLOTS;
+                    for (int i = 0; i < SLOTS; i++) {
+                        target[targetOffset + i] += block[offset + i];
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads spending over a date range at the finest resolution that needs at most maxBuckets
+     * buckets, or by year if even that needs more
+     *
+     * @param categoryOrdinal The category, or -1 for all
+     */
+    SpendingSeries series(int categoryOrdinal, int fromDay, int toDay, int maxBuckets) {
+        TimeResolution resolution = TimeResolution.YEAR;
+        for (TimeResolution candidate : RESOLUTIONS) {
+            if (candidate.bucketOf(toDay) - candidate.bucketOf(fromDay) + 1 <= maxBuckets) {
+                resolution = candidate;
+                break;
+            }
+        }
+
+        int first = resolution.bucketOf(fromDay);
+        int count = resolution.bucketOf(toDay) - first + 1;
+        int[] bucketDays = new int[count + 1];
+        long[] cents = new long[count];
+        Level level = levels[resolution.ordinal()];
+        int slot = categoryOrdinal < 0 ? ALL : categoryOrdinal;
+        for (int i = 0; i <= count; i++) {
+            bucketDays[i] = resolution.startDay(first + i);
+            if (i < count) {
+                long[] block = level.block(first + i, false);
+                cents[i] = block == null ? 0 : block[((first + i) & BLOCK_MASK) * SLOTS + slot];
+            }
+        }
+        return new SpendingSeries(resolution, fromDay, toDay, bucketDays, cents);
+    }
+
+    /**
+     * @return The earliest date recorded, or Integer.MAX_VALUE if none
+     */
+    int firstDay() {
+        return firstDay;
+    }
+
+    /**
+     * @return The latest date recorded, or Integer.MIN_VALUE if none
+     */
+    int lastDay() {
+        return lastDay;
+    }
+
+    private void update(int day, int categoryOrdinal, long delta) {
+        if (day != cachedDay) {
+            for (int level = 0; level < levels.length; level++) {
+                cachedBuckets[level] = RESOLUTIONS[level].bucketOf(day);
+            }
+            cachedDay = day;
+        }
+        for (int level = 0; level < levels.length; level++) {
+            int bucket = cachedBuckets[level];
+            long[] block = levels[level].block(bucket, true);
+            int offset = (bucket & BLOCK_MASK) * SLOTS;
+            block[offset + categoryOrdinal] += delta;
+            block[offset + ALL] += delta;
+        }
+    }
+
+    private static boolean hasSpending(long[] block, int offset) {
+        for (int i = 0; i < SLOTS; i++) {
+            if (block[offset + i] != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
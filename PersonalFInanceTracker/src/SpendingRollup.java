@@ -0,0 +1,149 @@
+/**
+ * Spending per period and category (or category group), as returned by ExpenseManager.getRollup
+ * and getGroupRollup
+ * Periods run from the first to the last one with expenses, empty ones in between included;
+ * every cell holds the sum, count, minimum and maximum of the expenses in it
+ */
+public final class SpendingRollup {
+
+    private final ReportPeriod period;
+    private final int firstPeriod;
+    private final int periodCount;
+    private final String[] columns;
+    private final long[] sums;     // One cell per period and column, period-major
+    private final int[] counts;
+    private final long[] mins;
+    private final long[] maxs;
+
+    SpendingRollup(ReportPeriod period, int firstPeriod, int periodCount, String[] columns,
+                   long[] sums, int[] counts, long[] mins, long[] maxs) {
+        this.period = period;
+        this.firstPeriod = firstPeriod;
+        this.periodCount = periodCount;
+        this.columns = columns;
+        this.sums = sums;
+        this.counts = counts;
+        this.mins = mins;
+        this.maxs = maxs;
+    }
+
+    /**
+     * @return The period length of the rows
+     */
+    public ReportPeriod getPeriod() {
+        return period;
+    }
+
+    /**
+     * @return The number of periods; 0 if there are no expenses
+     */
+    public int getPeriodCount() {
+        return periodCount;
+    }
+
+    /**
+     * @param index The period
+     * @return Its name, e.g. 2024-03, 2024-Q1 or 2024
+     */
+    public String getPeriodLabel(int index) {
+        return period.label(firstPeriod + checkPeriod(index));
+    }
+
+    /**
+     * @param index The period
+     * @return Its first day, as days since 1970-01-01
+     */
+    public int getPeriodStartDay(int index) {
+        return TimeResolution.MONTH.startDay(period.firstMonth(firstPeriod + checkPeriod(index)));
+    }
+
+    /**
+     * @return The number of columns: one per category or per category group
+     */
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    /**
+     * @param column The column
+     * @return The name of its category or category group
+     */
+    public String getColumnName(int column) {
+        return columns[column];
+    }
+
+    /**
+     * @param index The period
+     * @param column The category ordinal, or category group ordinal for a group rollup
+     * @return The amount spent
+     */
+    public double getSum(int index, int column) {
+        return Money.fromCents(sums[cell(index, column)]);
+    }
+
+    /**
+     * @param index The period
+     * @param column The category ordinal, or category group ordinal for a group rollup
+     * @return The number of expenses
+     */
+    public int getCount(int index, int column) {
+        return counts[cell(index, column)];
+    }
+
+    /**
+     * @param index The period
+     * @param column The category ordinal, or category group ordinal for a group rollup
+     * @return The smallest amount, or 0 if there are no expenses
+     */
+    public double getMin(int index, int column) {
+        int cell = cell(index, column);
+        return counts[cell] == 0 ? 0 : Money.fromCents(mins[cell]);
+    }
+
+    /**
+     * @param index The period
+     * @param column The category ordinal, or category group ordinal for a group rollup
+     * @return The largest amount, or 0 if there are no expenses
+     */
+    public double getMax(int index, int column) {
+        int cell = cell(index, column);
+        return counts[cell] == 0 ? 0 : Money.fromCents(maxs[cell]);
+    }
+
+    /**
+     * @param index The period
+     * @param column The category ordinal, or category group ordinal for a group rollup
+     * @return The mean amount, or 0 if there are no expenses
+     */
+    public double getAverage(int index, int column) {
+        int cell = cell(index, column);
+        return counts[cell] == 0 ? 0 : Money.fromCents(sums[cell]) / counts[cell];
+    }
+
+    /**
+     * @param index The period
+     * @return The amount spent in it across all columns
+     */
+    public double getPeriodTotal(int index) {
+        long total = 0;
+        int start = cell(index, 0);
+        for (int column = 0; column < columns.length; column++) {
+            total += sums[start + column];
+        }
+        return Money.fromCents(total);
+    }
+
+    private int checkPeriod(int index) {
+        if (index < 0 || index >= periodCount) {
+            throw new IndexOutOfBoundsException("Period " + index + " out of " + periodCount);
+        }
+        return index;
+    }
+
+    private int cell(int index, int column) {
+        if (column < 0 || column >= columns.length) {
+            throw new IndexOutOfBoundsException("Column " + column + " out of " + columns.length);
+        }
+        return checkPeriod(index) * columns.length + column;
+    }
+}
@@ -0,0 +1,84 @@
+/**
+ * Spending per time bucket over a date range, as returned by ExpenseManager.getSpendingSeries
+ * Buckets that overlap the range are included whole, so the first one may start before the range
+ * and the last one end after it
+ */
+public final class SpendingSeries {
+
+    private final TimeResolution resolution;
+    private final int firstDay;
+    private final int lastDay;
+    private final int[] bucketDays; // Start day of every bucket, then the day after the last one
+    private final long[] cents;
+
+    SpendingSeries(TimeResolution resolution, int firstDay, int lastDay, int[] bucketDays, long[] cents) {
+        this.resolution = resolution;
+        this.firstDay = firstDay;
+        this.lastDay = lastDay;
+        this.bucketDays = bucketDays;
+        this.cents = cents;
+    }
+
+    /**
+     * @return The bucket size
+     */
+    public TimeResolution getResolution() {
+        return resolution;
+    }
+
+    /**
+     * @return The first day of the requested range, as days since 1970-01-01
+     */
+    public int getFirstDay() {
+        return firstDay;
+    }
+
+    /**
+     * @return The last day of the requested range, as days since 1970-01-01
+     */
+    public int getLastDay() {
+        return lastDay;
+    }
+
+    /**
+     * @return The number of buckets
+     */
+    public int size() {
+        return cents.length;
+    }
+
+    /**
+     * @param index The bucket
+     * @return Its first day, as days since 1970-01-01
+     */
+    public int getStartDay(int index) {
+        return bucketDays[index];
+    }
+
+    /**
+     * @param index The bucket
+     * @return Its last day, as days since 1970-01-01
+     */
+    public int getEndDay(int index) {
+        return bucketDays[index + 1] - 1;
+    }
+
+    /**
+     * @param index The bucket
+     * @return The amount spent in it
+     */
+    public double getAmount(int index) {
+        return Money.fromCents(cents[index]);
+    }
+
+    /**
+     * @return The largest bucket amount, or 0 if there are no buckets
+     */
+    public double getMaxAmount() {
+        long max = 0;
+        for (long value : cents) {
+            max = Math.max(max, value);
+        }
+        return Money.fromCents(max);
+    }
+}
@@ -0,0 +1,54 @@
+import java.time.LocalDate;
+
+/**
+ * Bucket sizes of the spending time series, finest first
+ * Weeks start on Monday, as in ISO 8601
+ */
+public enum TimeResolution {
+    DAY,
+    WEEK,
+    MONTH,
+    YEAR;
+
+    // Epoch day 0 (1970-01-01) was a Thursday, so the Monday of its week is day -3
+    private static final int WEEK_OFFSET = 3;
+
+    /**
+     * Gets the number of the bucket a date falls into; consecutive buckets have consecutive numbers
+     *
+     * @param epochDay The date as days since 1970-01-01
+     * @return The bucket number
+     */
+    int bucketOf(int epochDay) {
+        switch (this) {
+            case DAY:
+                return epochDay;
+            case WEEK:
+                return Math.floorDiv(epochDay + WEEK_OFFSET, 7);
+            case MONTH:
+                LocalDate date = LocalDate.ofEpochDay(epochDay);
+                return date.getYear() * 12 + date.getMonthValue() - 1;
+            default:
+                return LocalDate.ofEpochDay(epochDay).getYear();
+        }
+    }
+
+    /**
+     * Gets the first date of a bucket
+     *
+     * @param bucket A bucket number from bucketOf
+     * @return The date as days since 1970-01-01
+     */
+    int startDay(int bucket) {
+        switch (this) {
+            case DAY:
+                return bucket;
+            case WEEK:
+                return bucket * 7 - WEEK_OFFSET;
+            case MONTH:
+                return (int) LocalDate.of(Math.floorDiv(bucket, 12), Math.floorMod(bucket, 12) + 1, 1).toEpochDay();
+            default:
+                return (int) LocalDate.of(bucket, 1, 1).toEpochDay();
+        }
+    }
+}
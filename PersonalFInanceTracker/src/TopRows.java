@@ -0,0 +1,114 @@
+import java.util.Arrays;
+
+/**
+ * The first k rows offered, in a RowOrder, kept in a bounded heap.
+ *
+ * The heap's root is the last of the rows kept, so a row that does not beat
+ * it is rejected with one comparison (of a single long when the order's
+ * first key allows it), and one that does replaces it in
+ * O(log k). Offering n rows costs O(n log k) at worst and close to O(n) once
+ * the heap holds good rows, with O(k) memory whatever n is. Heaps filled
+ * from different parts of a store are merged by offering the rows of one to
+ * the other.
+ */
+final class TopRows {
+
+    private final int k;
+    private final RowOrder order;
+    private final int[] heap; // heap[0] is the row that comes last
+    private int size;
+    private final boolean primaryKeys;
+    private long rootKey;     // primaryKey of heap[0] once the heap is full
+
+    TopRows(int k, RowOrder order) {
+        this.k = k;
+        this.order = order;
+        this.heap = new int[k];
+        this.primaryKeys = order.hasPrimaryKey();
+    }
+
+    void offer(int row) {
+        if (size < k) {
+            heap[size] = row;
+            siftUp(size++);
+            if (size == k && primaryKeys) {
+                rootKey = order.primaryKey(heap[0]);
+            }
+        } else if (k > 0) {
+            if (primaryKeys && order.primaryKey(row) > rootKey) {
+                return; // Comes after the root on the first key already
+            }
+            if (order.compare(row, heap[0]) < 0) {
+                heap[0] = row;
+                siftDown(0);
+                if (primaryKeys) {
+                    rootKey = order.primaryKey(heap[0]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Offers every row another heap kept
+     */
+    void addAll(TopRows other) {
+        for (int i = 0; i < other.size; i++) {
+            offer(other.heap[i]);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return The rows kept, first row first
+     */
+    int[] sorted() {
+        int[] rows = Arrays.copyOf(heap, size);
+        // Heap sort in place: each pass moves the last of the remaining rows to the end
+        for (int end = size - 1; end > 0; end--) {
+            int last = rows[0];
+            rows[0] = rows[end];
+            rows[end] = last;
+            siftDown(rows, 0, end);
+        }
+        return rows;
+    }
+
+    private void siftUp(int index) {
+        int row = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (order.compare(heap[parent], row) >= 0) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = row;
+    }
+
+    private void siftDown(int index) {
+        siftDown(heap, index, size);
+    }
+
+    private void siftDown(int[] rows, int index, int length) {
+        int row = rows[index];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= length) {
+                break;
+            }
+            if (child + 1 < length && order.compare(rows[child + 1], rows[child]) > 0) {
+                child++;
+            }
+            if (order.compare(rows[child], row) <= 0) {
+                break;
+            }
+            rows[index] = rows[child];
+            index = child;
+        }
+        rows[index] = row;
+    }
+}
@@ -0,0 +1,57 @@
+/**
+ * Per-chunk summary of an immutable store: the date and amount ranges and the
+ * set of categories of the rows in each 4096-row chunk.
+ *
+ * A scan asks whether a chunk can hold a match before looking at its rows;
+ * chunks whose ranges miss the query's are skipped whole. Ledgers are mostly
+ * appended in date order, so a date range usually touches only a few chunks.
+ * Built once per snapshot in one pass over the columns.
+ */
+final class ZoneMap {
+
+    private final int[] minDays;
+    private final int[] maxDays;
+    private final long[] minCents;
+    private final long[] maxCents;
+    private final int[] categoryMasks;
+
+    ZoneMap(ExpenseStore rows) {
+        int chunks = (rows.size() + ExpenseStore.CHUNK_MASK) >>> ExpenseStore.CHUNK_SHIFT;
+        minDays = new int[chunks];
+        maxDays = new int[chunks];
+        minCents = new long[chunks];
+        maxCents = new long[chunks];
+        categoryMasks = new int[chunks];
+        for (int c = 0; c < chunks; c++) {
+            int[] days = rows.dayChunk(c);
+            long[] amounts = rows.amountChunk(c);
+            byte[] categories = rows.categoryChunk(c);
+            int minDay = Integer.MAX_VALUE;
+            int maxDay = Integer.MIN_VALUE;
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            int mask = 0;
+            for (int o = 0; o < rows.rowsInChunk(c); o++) {
+                minDay = Math.min(minDay, days[o]);
+                maxDay = Math.max(maxDay, days[o]);
+                min = Math.min(min, amounts[o]);
+                max = Math.max(max, amounts[o]);
+                mask |= 1 << categories[o];
+            }
+            minDays[c] = minDay;
+            maxDays[c] = maxDay;
+            minCents[c] = min;
+            maxCents[c] = max;
+            categoryMasks[c] = mask;
+        }
+    }
+
+    /**
+     * @return false if no row of the chunk can match the query's category, date and amount conditions
+     */
+    boolean mayMatch(int chunk, ExpenseQuery query) {
+        return (!query.hasCategories() || (categoryMasks[chunk] & query.categoryMask()) != 0)
+            && minDays[chunk] <= query.toDay() && maxDays[chunk] >= query.fromDay()
+            && minCents[chunk] <= query.maxCents() && maxCents[chunk] >= query.minCents();
+    }
+}